@@ -0,0 +1,228 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+
+package org.knime.geospatial.core.data.cell;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.knime.geospatial.core.data.reference.GeoReferenceSystem.DEFAULT;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.table.access.BufferedAccesses;
+import org.knime.core.table.access.ReadAccess;
+import org.knime.core.table.access.StructAccess.StructReadAccess;
+import org.knime.core.table.access.StructAccess.StructWriteAccess;
+import org.knime.geospatial.core.data.GeoValue;
+import org.knime.geospatial.core.data.cell.GeoArrowValueFactory.GeoArrowReadValue;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Tests the {@link GeoArrowValueFactory} and the {@link GeoArrowConverter}.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+public class GeoArrowValueFactoryTest {
+
+	/**
+	 * Tests that two dimensional geometries are stored in the native layout and
+	 * round trip.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void nativeRoundTrip() throws IOException {
+		assertRoundTrip(new GeoLineCell.NativeValueFactory(), "LINESTRING (30 10, 10 30, 40 40)", true);
+		assertRoundTrip(new GeoPolygonCell.NativeValueFactory(),
+				"POLYGON ((35 10, 45 45, 15 40, 10 20, 35 10), (20 30, 35 35, 30 20, 20 30))", true);
+		assertRoundTrip(new GeoMultiPointCell.NativeValueFactory(), "MULTIPOINT ((10 40), (40 30), (20 20))", true);
+		assertRoundTrip(new GeoMultiLineCell.NativeValueFactory(),
+				"MULTILINESTRING ((10 10, 20 20, 10 40), (40 40, 30 30, 40 20, 30 10))", true);
+		assertRoundTrip(new GeoMultiPolygonCell.NativeValueFactory(),
+				"MULTIPOLYGON (((30 20, 45 40, 10 40, 30 20)), ((15 5, 40 10, 10 20, 5 10, 15 5)))", true);
+	}
+
+	/**
+	 * Tests that empty geometries are stored in the native layout and have an
+	 * empty envelope.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void emptyRoundTrip() throws IOException {
+		// the element count of empty geometries is 0
+		assertRoundTrip(new GeoLineCell.NativeValueFactory(), empty(2), true);
+		assertRoundTrip(new GeoPolygonCell.NativeValueFactory(), empty(3), true);
+		assertRoundTrip(new GeoMultiPointCell.NativeValueFactory(), empty(4), true);
+		assertRoundTrip(new GeoMultiLineCell.NativeValueFactory(), empty(5), true);
+		assertRoundTrip(new GeoMultiPolygonCell.NativeValueFactory(), empty(6), true);
+	}
+
+	/**
+	 * Tests that geometries with z or m values are stored as WKB since the
+	 * coordinates of the native layout only have x and y.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void zmFallbackRoundTrip() throws IOException {
+		assertRoundTrip(new GeoLineCell.NativeValueFactory(), "LINESTRING Z (30 10 1, 10 30 2, 40 40 3)", false);
+		assertRoundTrip(new GeoLineCell.NativeValueFactory(), "LINESTRING M (30 10 1, 10 30 2, 40 40 3)", false);
+		assertRoundTrip(new GeoPolygonCell.NativeValueFactory(), "POLYGON ZM ((30 10 1 2, 40 40 3 4, 20 40 5 6, 30 10 1 2))",
+				false);
+		assertRoundTrip(new GeoMultiPointCell.NativeValueFactory(), "MULTIPOINT Z ((10 40 1), (40 30 2))", false);
+		assertRoundTrip(new GeoMultiLineCell.NativeValueFactory(), "MULTILINESTRING M ((10 10 1, 20 20 2))", false);
+		assertRoundTrip(new GeoMultiPolygonCell.NativeValueFactory(),
+				"MULTIPOLYGON Z (((30 20 1, 45 40 2, 10 40 3, 30 20 1)))", false);
+	}
+
+	/**
+	 * Tests that geometries without native layout are stored as WKB e.g. curve
+	 * polygons or geometries of a different depth than the column.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void fallbackRoundTrip() throws IOException {
+		// circular strings have the layout of line strings
+		final byte[] circularString = ByteBuffer.allocate(9 + 3 * 16).put((byte) 0).putInt(8).putInt(3)
+				.putDouble(0).putDouble(0).putDouble(1).putDouble(1).putDouble(2).putDouble(0).array();
+		assertRoundTrip(new GeoLineCell.NativeValueFactory(), circularString, true);
+		final byte[] curvePolygon = ByteBuffer.allocate(9 + circularString.length + 16).put((byte) 0).putInt(10)
+				.putInt(1).put(ByteBuffer.allocate(circularString.length + 16).put(circularString, 0, 5).putInt(4)
+						.put(circularString, 9, 48).putDouble(0).putDouble(0).array())
+				.array();
+		assertRoundTrip(new GeoPolygonCell.NativeValueFactory(), curvePolygon, false);
+		assertRoundTrip(new GeoLineCell.NativeValueFactory(), "POLYGON ((30 10, 40 40, 20 40, 30 10))", false);
+		assertRoundTrip(new GeoMultiPolygonCell.NativeValueFactory(),
+				"GEOMETRYCOLLECTION (POINT (40 10), LINESTRING (10 10, 20 20, 10 40))", false);
+	}
+
+	/**
+	 * Tests that every data type has a single default value factory and that
+	 * values round trip through the native value factories that are registered
+	 * in the plugin.xml, which are written by the Python integration if the
+	 * GeoArrow layout is selected.
+	 *
+	 * @throws Exception should not happen here
+	 */
+	@Test
+	public void registeredNativeRoundTrip() throws Exception {
+		final Document plugin;
+		try (InputStream in = GeoCell.class.getResourceAsStream("/plugin.xml")) {
+			assertNotNull("plugin.xml not found", in);
+			plugin = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in);
+		}
+		final Map<String, String> nativeFactories = new HashMap<>();
+		final NodeList dataTypes = plugin.getElementsByTagName("DataType");
+		for (int i = 0; i < dataTypes.getLength(); i++) {
+			final Element dataType = (Element) dataTypes.item(i);
+			final String cellClass = dataType.getAttribute("cellClass");
+			final NodeList factories = dataType.getElementsByTagName("ValueFactory");
+			int defaultFactories = 0;
+			for (int j = 0; j < factories.getLength(); j++) {
+				final Element factory = (Element) factories.item(j);
+				if (!Boolean.parseBoolean(factory.getAttribute("deprecated"))) {
+					defaultFactories++;
+				}
+				final String factoryClass = factory.getAttribute("valueFactoryClass");
+				if (factoryClass.endsWith("$NativeValueFactory")) {
+					nativeFactories.put(cellClass, factoryClass);
+				}
+			}
+			assertEquals(cellClass, 1, defaultFactories);
+		}
+		final Map<String, String> wkts = new HashMap<>();
+		wkts.put(GeoLineCell.class.getName(), "LINESTRING (30 10, 10 30, 40 40)");
+		wkts.put(GeoPolygonCell.class.getName(), "POLYGON ((35 10, 45 45, 15 40, 10 20, 35 10))");
+		wkts.put(GeoMultiPointCell.class.getName(), "MULTIPOINT ((10 40), (40 30), (20 20))");
+		wkts.put(GeoMultiLineCell.class.getName(), "MULTILINESTRING ((10 10, 20 20), (40 40, 30 30))");
+		wkts.put(GeoMultiPolygonCell.class.getName(), "MULTIPOLYGON (((30 20, 45 40, 10 40, 30 20)))");
+		assertEquals(wkts.keySet(), nativeFactories.keySet());
+		for (final Entry<String, String> entry : nativeFactories.entrySet()) {
+			final GeoArrowValueFactory factory = (GeoArrowValueFactory) Class.forName(entry.getValue())
+					.getConstructor().newInstance();
+			assertRoundTrip(factory, wkts.get(entry.getKey()), true);
+		}
+	}
+
+	private static byte[] empty(final int typeCode) {
+		return ByteBuffer.allocate(9).put((byte) 0).putInt(typeCode).putInt(0).array();
+	}
+
+	private static void assertRoundTrip(final GeoArrowValueFactory factory, final String wkt,
+			final boolean expectNative) throws IOException {
+		assertRoundTrip(factory, GeoConverter.wkt2wkb(wkt), expectNative);
+	}
+
+	private static void assertRoundTrip(final GeoArrowValueFactory factory, final byte[] wkb,
+			final boolean expectNative) throws IOException {
+		final DataCell cell = GeoCellFactory.createCell(wkb, DEFAULT);
+		final GeoValue value = (GeoValue) cell;
+		final Object access = BufferedAccesses.createBufferedAccess(factory.getSpec());
+		factory.createWriteValue((StructWriteAccess) access).setValue(value);
+		final GeoArrowReadValue readValue = factory.createReadValue((StructReadAccess) access);
+		final String msg = value.getWKT();
+		// the WKB child is only set for geometries without native layout
+		assertEquals(msg, expectNative, ((StructReadAccess) access).<ReadAccess> getAccess(2).isMissing());
+		assertArrayEquals(msg, value.getWKB(), readValue.getWKB());
+		assertEquals(msg, value.getGeometryType(), readValue.getGeometryType());
+		assertEquals(msg, value.getEnvelope(), readValue.getEnvelope());
+		assertEquals(msg, DEFAULT, readValue.getReferenceSystem());
+		assertEquals(msg, cell, readValue.getDataCell());
+	}
+}
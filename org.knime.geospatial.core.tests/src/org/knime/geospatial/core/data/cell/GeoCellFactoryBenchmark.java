@@ -0,0 +1,157 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+
+package org.knime.geospatial.core.data.cell;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
+
+/**
+ * Micro benchmark that compares creating cells from WKB by reading the
+ * geometry type from the WKB header with creating them by parsing the whole
+ * geometric object (see
+ * {@link GeoCellFactory#create(byte[], GeoReferenceSystem, boolean)}).
+ * The WKB is little endian as written by most other libraries e.g. shapely
+ * which is why both variants also convert it into its canonical encoding.
+ * <p>
+ * The benchmark is not part of the test suite and is started via its main
+ * method with the number of WKBs and measured rounds as optional arguments.
+ * </p>
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+public final class GeoCellFactoryBenchmark {
+
+	private static final int WARMUP_ROUNDS = 5;
+
+	private GeoCellFactoryBenchmark() {
+		// started via the main method
+	}
+
+	/**
+	 * @param args the optional number of WKBs (default 100000) and measured
+	 *             rounds (default 10)
+	 * @throws IOException if a WKB is invalid
+	 */
+	public static void main(final String[] args) throws IOException {
+		final int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		final byte[][] wkbs = createWKBs(size);
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			run(wkbs, false);
+			run(wkbs, true);
+		}
+		long header = 0;
+		long parse = 0;
+		for (int i = 0; i < rounds; i++) {
+			header += run(wkbs, false);
+			parse += run(wkbs, true);
+		}
+		final double headerNs = (double) header / rounds / size;
+		final double parseNs = (double) parse / rounds / size;
+		System.out.println(String.format("%d WKBs, %d rounds", size, rounds));
+		System.out.println(String.format("header only:     %8.1f ns/cell", headerNs));
+		System.out.println(String.format("parse geometry:  %8.1f ns/cell", parseNs));
+		System.out.println(String.format("speed-up:        %8.2fx", parseNs / headerNs));
+	}
+
+	/**
+	 * @return the elapsed nanoseconds
+	 */
+	private static long run(final byte[][] wkbs, final boolean validate) throws IOException {
+		final long start = System.nanoTime();
+		int sink = 0;
+		for (final byte[] wkb : wkbs) {
+			sink += GeoCellFactory.create(wkb, GeoReferenceSystem.DEFAULT, validate).getWKBLength();
+		}
+		final long elapsed = System.nanoTime() - start;
+		if (sink == 0) {
+			// use the result to prevent the JIT from removing the loop
+			throw new IllegalStateException("No WKB created");
+		}
+		return elapsed;
+	}
+
+	/**
+	 * Creates a mix of points, line strings with 16 points and polygons with 32
+	 * points.
+	 */
+	private static byte[][] createWKBs(final int size) {
+		final byte[][] wkbs = new byte[size][];
+		for (int i = 0; i < size; i++) {
+			final double x = (i % 360) - 180;
+			final double y = (i % 180) - 90;
+			switch (i % 3) {
+			case 0:
+				wkbs[i] = header(21, 1).putDouble(x).putDouble(y).array();
+				break;
+			case 1:
+				wkbs[i] = ring(header(9 + 4 + 16 * 16, 2), x, y, 16).array();
+				break;
+			default:
+				wkbs[i] = ring(header(9 + 4 + 4 + 32 * 16, 3).putInt(1), x, y, 32).array();
+				break;
+			}
+		}
+		return wkbs;
+	}
+
+	private static ByteBuffer header(final int length, final int type) {
+		return ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN).put((byte) 1).putInt(type);
+	}
+
+	private static ByteBuffer ring(final ByteBuffer buffer, final double x, final double y, final int points) {
+		buffer.putInt(points);
+		for (int i = 0; i < points - 1; i++) {
+			final double angle = 2 * Math.PI * i / (points - 1);
+			buffer.putDouble(x + Math.cos(angle)).putDouble(y + Math.sin(angle));
+		}
+		// closed ring
+		return buffer.putDouble(x + 1).putDouble(y);
+	}
+}
@@ -0,0 +1,316 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.cell;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.knime.geospatial.core.data.reference.GeoReferenceSystem.DEFAULT;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystemFactory;
+
+/**
+ * Tests the {@link AbstractGeoCellSerializer}.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+public class GeoCellSerializerTest {
+
+	/**
+	 * Tests that points are stored as coordinates and serialized in the fixed width encoding.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void pointRoundTrip() throws IOException {
+		for (final String wktVal : new String[] { "POINT (30 10)", "POINT Z (30 10 5)", "POINT M (30 10 2)",
+				"POINT ZM (30 10 5 2)" }) {
+			final GeoPointCell cell = GeoCellFactory.create(wktVal, DEFAULT);
+			assertTrue(cell.hasCoordinates());
+			assertArrayEquals(GeoConverter.wkt2wkb(wktVal), cell.getWKB());
+			assertEquals(cell.getWKB().length, cell.length());
+			final byte[] bytes = serialize(new GeoPointCell.CellSerializer(), cell);
+			// encoding byte + CRS length and bytes + coordinates
+			assertEquals(1 + 1 + DEFAULT.getCRS().length() + cell.getWKB().length - 5, bytes.length);
+			final GeoPointCell copy = deserialize(new GeoPointCell.CellSerializer(), bytes);
+			assertEquals(cell, copy);
+			assertEquals(cell.hashCode(), copy.hashCode());
+			assertArrayEquals(cell.getWKB(), copy.getWKB());
+		}
+	}
+
+	/**
+	 * Tests that geometric objects other than points are serialized as WKB.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void polygonRoundTrip() throws IOException {
+		final GeoPolygonCell cell = GeoCellFactory.create("POLYGON ((30 10, 40 40, 20 40, 10 20, 30 10))", DEFAULT);
+		final GeoPolygonCell copy = deserialize(new GeoPolygonCell.CellSerializer(),
+				serialize(new GeoPolygonCell.CellSerializer(), cell));
+		assertEquals(cell, copy);
+		assertArrayEquals(cell.getWKB(), copy.getWKB());
+	}
+
+	/**
+	 * Tests that the reference system is only written by the first cell of a
+	 * stream and referenced by its id afterwards.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void largeGeometryRoundTrip() throws IOException {
+		final StringBuilder wkt = new StringBuilder("POLYGON ((");
+		for (int i = 0; i < 500; i++) {
+			final double angle = i * 2 * Math.PI / 500;
+			wkt.append(8.5 + 0.01 * Math.cos(angle)).append(' ').append(47.3 + 0.01 * Math.sin(angle)).append(", ");
+		}
+		wkt.append(8.51).append(' ').append(47.3).append("))");
+		final GeoPolygonCell cell = GeoCellFactory.create(wkt.toString(), DEFAULT);
+		final GeoPolygonCell.CellSerializer serializer = new GeoPolygonCell.CellSerializer();
+		final byte[] bytes = serialize(serializer, cell);
+		assertTrue("Large geometries should be stored compressed", bytes.length < cell.getWKB().length);
+		final GeoPolygonCell copy = deserialize(serializer, bytes);
+		assertEquals(cell, copy);
+		assertArrayEquals(cell.getWKB(), copy.getWKB());
+	}
+
+	@Test
+	public void coordinateDeltaRoundTrip() throws IOException {
+		final byte[] wkb = new WKTParser(
+				"GEOMETRYCOLLECTION (POINT (1 2), MULTIPOLYGON (((30 20, 45 40, 10 40, 30 20))), LINESTRING Z (1 2 3, 4 5 6))")
+						.parse();
+		final byte[] encoded = CoordinateDelta.encode(wkb);
+		CoordinateDelta.decode(encoded);
+		assertArrayEquals(wkb, encoded);
+	}
+
+	/**
+	 * Tests that each cell contains its reference system which allows to read the
+	 * cells in a different order than they were written.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void crsWrittenInEveryCell() throws IOException {
+		final GeoReferenceSystem other = GeoReferenceSystemFactory.create("EPSG:3857");
+		final GeoLineCell[] cells = { GeoCellFactory.create("LINESTRING (30 10, 10 30)", DEFAULT),
+				GeoCellFactory.create("LINESTRING (30 10, 10 30, 40 40)", other),
+				GeoCellFactory.create("LINESTRING (1 1, 2 2)", DEFAULT),
+				GeoCellFactory.create("LINESTRING (3 3, 4 4)", other) };
+		final GeoLineCell.CellSerializer serializer = new GeoLineCell.CellSerializer();
+		final byte[][] bytes = new byte[cells.length][];
+		for (int i = 0; i < cells.length; i++) {
+			bytes[i] = serialize(serializer, cells[i]);
+			// encoding byte + CRS length and bytes + WKB length and WKB
+			assertEquals(1 + 1 + cells[i].getReferenceSystem().getCRS().length() + 1 + cells[i].getWKB().length,
+					bytes[i].length);
+		}
+		for (int i = cells.length - 1; i >= 0; i--) {
+			final GeoLineCell copy = deserialize(serializer, bytes[i]);
+			assertEquals(cells[i], copy);
+			assertSame(cells[i].getReferenceSystem(), copy.getReferenceSystem());
+		}
+	}
+
+	/**
+	 * Tests that blob cells of geometric objects above the
+	 * {@link GeoCellFactory#BLOB_THRESHOLD} round trip with their serializer and
+	 * equal the regular cell after loading.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void largeGeometryBlobRoundTrip() throws IOException {
+		final int numPoints = GeoCellFactory.BLOB_THRESHOLD / 16 + 1;
+		final byte[] line = line(numPoints);
+		final byte[] ring = line(numPoints);
+		// close the ring
+		System.arraycopy(ring, 9, ring, ring.length - 16, 16);
+		final byte[] polygon = wrap(3, ring, 5);
+		assertBlobRoundTrip(line, new GeoLineBlobCell.CellSerializer());
+		assertBlobRoundTrip(polygon, new GeoPolygonBlobCell.CellSerializer());
+		assertBlobRoundTrip(points(numPoints), new GeoMultiPointBlobCell.CellSerializer());
+		assertBlobRoundTrip(wrap(5, line, 0), new GeoMultiLineBlobCell.CellSerializer());
+		assertBlobRoundTrip(wrap(6, polygon, 0), new GeoMultiPolygonBlobCell.CellSerializer());
+		assertBlobRoundTrip(wrap(7, line, 0), new GeoCollectionBlobCell.CellSerializer());
+	}
+
+	private static <B extends AbstractGeoBlobCell<?>> void assertBlobRoundTrip(final byte[] wkb,
+			final DataCellSerializer<B> serializer) throws IOException {
+		final DataCell created = GeoCellFactory.createCell(wkb, DEFAULT);
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final CellOutput output = new CellOutput(bytes)) {
+			@SuppressWarnings("unchecked")
+			final B blobCell = (B) created;
+			serializer.serialize(blobCell, output);
+		}
+		final B copy;
+		try (final CellInput input = new CellInput(new ByteArrayInputStream(bytes.toByteArray()))) {
+			copy = serializer.deserialize(input);
+		}
+		assertSame(created.getClass(), copy.getClass());
+		assertEquals(created, copy);
+		final AbstractGeoCell cell = GeoCellFactory.create(wkb, DEFAULT);
+		assertTrue(copy.equalContent(cell));
+		assertTrue(cell.equalContent(copy));
+		assertEquals(cell.hashCode(), copy.hashCode());
+		assertArrayEquals(cell.getWKB(), copy.getWKB());
+	}
+
+	private static byte[] line(final int numPoints) {
+		final ByteBuffer wkb = ByteBuffer.allocate(9 + 16 * numPoints);
+		wkb.put((byte) 0).putInt(2).putInt(numPoints);
+		for (int i = 0; i < numPoints; i++) {
+			wkb.putDouble(i).putDouble(i % 100);
+		}
+		return wkb.array();
+	}
+
+	private static byte[] points(final int numPoints) {
+		final ByteBuffer wkb = ByteBuffer.allocate(9 + 21 * numPoints);
+		wkb.put((byte) 0).putInt(4).putInt(numPoints);
+		for (int i = 0; i < numPoints; i++) {
+			wkb.put((byte) 0).putInt(1).putDouble(i).putDouble(i % 100);
+		}
+		return wkb.array();
+	}
+
+	/**
+	 * Wraps the given WKB as single element of the given type.
+	 *
+	 * @param typeCode the type code of the wrapping geometric object
+	 * @param wkb      the WKB to wrap
+	 * @param skip     the number of header bytes of the given WKB to skip e.g. to
+	 *                 use the points of a line as ring
+	 */
+	private static byte[] wrap(final int typeCode, final byte[] wkb, final int skip) {
+		return ByteBuffer.allocate(9 + wkb.length - skip).put((byte) 0).putInt(typeCode).putInt(1)
+				.put(wkb, skip, wkb.length - skip).array();
+	}
+
+	/**
+	 * Tests that cells written in the initial format that starts with the WKB length can still be read.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void readInitialFormat() throws IOException {
+		for (final String wktVal : new String[] { "POINT (30 10)", "LINESTRING (30 10, 10 30, 40 40)" }) {
+			final byte[] wkb = GeoConverter.wkt2wkb(wktVal);
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (final DataOutputStream out = new DataOutputStream(bytes)) {
+				out.writeInt(wkb.length);
+				out.write(wkb);
+				out.writeUTF(DEFAULT.getCRS());
+			}
+			final AbstractGeoCell expected = GeoCellFactory.create(wktVal, DEFAULT);
+			final AbstractGeoCell cell = expected instanceof GeoPointCell
+					? deserialize(new GeoPointCell.CellSerializer(), bytes.toByteArray())
+					: deserialize(new GeoLineCell.CellSerializer(), bytes.toByteArray());
+			assertEquals(expected, cell);
+			assertArrayEquals(wkb, cell.getWKB());
+		}
+	}
+
+	static <G extends AbstractGeoCell> byte[] serialize(final AbstractGeoCellSerializer<G> serializer,
+			final AbstractGeoCell... cells) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final CellOutput output = new CellOutput(bytes)) {
+			for (final AbstractGeoCell cell : cells) {
+				serializer.serialize(cell, output);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	static <G extends AbstractGeoCell> G deserialize(final AbstractGeoCellSerializer<G> serializer,
+			final byte[] bytes) throws IOException {
+		try (final CellInput input = new CellInput(new ByteArrayInputStream(bytes))) {
+			return serializer.deserialize(input);
+		}
+	}
+
+	static final class CellOutput extends DataOutputStream implements DataCellDataOutput {
+
+		CellOutput(final OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void writeDataCell(final DataCell cell) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	static final class CellInput extends DataInputStream implements DataCellDataInput {
+
+		CellInput(final InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public DataCell readDataCell() throws IOException {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
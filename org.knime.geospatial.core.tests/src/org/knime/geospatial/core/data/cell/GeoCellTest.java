@@ -45,15 +45,28 @@
 
 package org.knime.geospatial.core.data.cell;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.knime.geospatial.core.data.reference.GeoReferenceSystem.DEFAULT;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 
 import org.junit.Test;
+import org.knime.core.data.DataCell;
 import org.knime.core.data.DataType;
+import org.knime.geospatial.core.data.GeoEnvelope;
+import org.knime.geospatial.core.data.cell.GeoCellSerializerTest.CellInput;
+import org.knime.geospatial.core.data.cell.GeoCellSerializerTest.CellOutput;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystemFactory;
+import org.knime.geospatial.core.data.util.GeoSortKey;
 
 /**
  * Tests the different {@link GeoCell} implementations.
@@ -137,6 +150,226 @@ public void whenInvalidWKT_throwException() throws IOException {
         GeoCellFactory.create("no valid wkt", DEFAULT);
 	}
 
+	/**
+	 * Tests that the cell type determined from the WKB header matches the type of
+	 * the fully parsed geometry.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void canCreateCellsFromWKB() throws IOException {
+		final String[] wktVals = { "POINT (30 10)", "LINESTRING (30 10, 10 30, 40 40)",
+				"POLYGON ((30 10, 40 40, 20 40, 10 20, 30 10))", "MULTIPOINT (10 40, 40 30, 20 20, 30 10)",
+				"MULTILINESTRING ((10 10, 20 20, 10 40), (40 40, 30 30, 40 20, 30 10))",
+				"MULTIPOLYGON (((30 20, 45 40, 10 40, 30 20)), ((15 5, 40 10, 10 20, 5 10, 15 5)))",
+				"GEOMETRYCOLLECTION (POINT (40 10), LINESTRING (10 10, 20 20, 10 40))", "POINT Z (30 10 5)" };
+		for (final String wktVal : wktVals) {
+			final byte[] wkb = GeoConverter.wkt2wkb(wktVal);
+			final AbstractGeoCell headerCell = GeoCellFactory.create(wkb, DEFAULT);
+			final AbstractGeoCell validatedCell = GeoCellFactory.create(wkb, DEFAULT, true);
+			assertEquals(validatedCell.getType(), headerCell.getType());
+			assertEquals(GeoConverter.wkb2Geo(wkb).getGeometryType(), GeoConverter.wkb2GeometryType(wkb));
+		}
+	}
+
+	/**
+	 * Tests that a truncated WKB throws an {@link IOException}.
+	 *
+	 * @throws IOException is expected here
+	 */
+	@Test(expected = IOException.class)
+	public void whenTruncatedWKB_throwException() throws IOException {
+		final byte[] wkb = GeoConverter.wkt2wkb("POLYGON ((30 10, 40 40, 20 40, 10 20, 30 10))");
+		GeoCellFactory.create(Arrays.copyOf(wkb, 20), DEFAULT);
+	}
+
+	/**
+	 * Tests that cells are equal independent of the byte order and type code
+	 * encoding of their WKB.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void equalsIndependentOfWKBEncoding() throws IOException {
+		final AbstractGeoCell cell = GeoCellFactory.create("LINESTRING Z (30 10 1, 10 30 2)", DEFAULT);
+		// little endian with the extended WKB z flag and a SRID
+		final ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 4 + 4 + 2 * 3 * 8).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put((byte) 1).putInt(0x80000000 | 0x20000000 | 2).putInt(4326).putInt(2);
+		buffer.putDouble(30).putDouble(10).putDouble(1).putDouble(10).putDouble(30).putDouble(2);
+		final AbstractGeoCell extendedCell = GeoCellFactory.create(buffer.array(), DEFAULT);
+		assertArrayEquals(cell.getWKB(), extendedCell.getWKB());
+		assertEquals(cell, extendedCell);
+		assertEquals(cell.hashCode(), extendedCell.hashCode());
+
+		// canonical WKB is not copied
+		final byte[] wkb = cell.getWKB();
+		assertSame(wkb, GeoCellFactory.create(wkb, DEFAULT).getWKB());
+		assertNotEquals(cell, GeoCellFactory.create("LINESTRING Z (30 10 1, 10 30 3)", DEFAULT));
+	}
+
+	/**
+	 * Tests the envelope of the different cell types.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void envelope() throws IOException {
+		assertEquals(new GeoEnvelope(30, 10, 30, 10), GeoCellFactory.create("POINT (30 10)", DEFAULT).getEnvelope());
+		assertEquals(new GeoEnvelope(10, 10, 40, 40),
+				GeoCellFactory.create("LINESTRING Z (30 10 1, 10 30 2, 40 40 3)", DEFAULT).getEnvelope());
+		assertEquals(new GeoEnvelope(10, 10, 45, 40),
+				GeoCellFactory.create("MULTIPOLYGON (((30 20, 45 40, 10 40, 30 20)), ((15 15, 40 10, 10 20, 15 15)))",
+						DEFAULT).getEnvelope());
+		assertEquals(new GeoEnvelope(10, 10, 40, 40),
+				GeoCellFactory.create("GEOMETRYCOLLECTION (POINT (40 10), LINESTRING (10 10, 20 20, 10 40))", DEFAULT)
+						.getEnvelope());
+		assertTrue(GeoCellFactory.create("POINT EMPTY", DEFAULT).getEnvelope().isEmpty());
+	}
+
+	/**
+	 * Tests that the type and envelope collected by the WKT parser equal the ones
+	 * computed from the WKB.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void wktParserCollectsTypeAndEnvelope() throws IOException {
+		for (final String wktVal : new String[] { "POINT (30 10)", "POINT ZM (30 10 5 2)",
+				"LINESTRING M (30 10 1, 10 30 2, 40 40 3)", "POLYGON ((30 10, 40 40, 20 40, 10 20, 30 10))",
+				"MULTIPOINT ((10 40), (40 30), (20 20), (30 10))",
+				"GEOMETRYCOLLECTION (POINT (40 10), LINESTRING (10 10, 20 20, 10 40))" }) {
+			final CanonicalWKB parsed = new WKTParser(wktVal).parseCanonical();
+			final CanonicalWKB scanned = CanonicalWKB.of(parsed.getWKB());
+			assertArrayEquals(wktVal, scanned.getWKB(), parsed.getWKB());
+			assertEquals(wktVal, scanned.getGeometryType(), parsed.getGeometryType());
+			assertEquals(wktVal, scanned.getEnvelope(), parsed.getEnvelope());
+		}
+	}
+
+	/**
+	 * Tests that the WKB written into a reused buffer equals the WKB array.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void writeWKBIntoBuffer() throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+		for (final String wktVal : new String[] { "POINT (30 10)", "POINT ZM (30 10 5 2)",
+				"LINESTRING (30 10, 10 30, 40 40)" }) {
+			final AbstractGeoCell cell = GeoCellFactory.create(wktVal, DEFAULT);
+			buffer.clear();
+			cell.getWKB(buffer);
+			assertEquals(cell.getWKBLength(), buffer.position());
+			assertArrayEquals(cell.getWKB(), Arrays.copyOf(buffer.array(), buffer.position()));
+			assertEquals(ByteOrder.LITTLE_ENDIAN, buffer.order());
+		}
+	}
+
+	/**
+	 * Tests that the Hilbert index of the envelope center clusters nearby
+	 * geometric objects.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void hilbertIndex() throws IOException {
+		final AbstractGeoCell zurich = GeoCellFactory.create("POINT (8.54 47.37)", DEFAULT);
+		final AbstractGeoCell nearZurich = GeoCellFactory
+				.create("POLYGON ((8.5 47.3, 8.6 47.3, 8.6 47.4, 8.5 47.4, 8.5 47.3))", DEFAULT);
+		final AbstractGeoCell newYork = GeoCellFactory.create("POINT (-74 40.7)", DEFAULT);
+		assertEquals(zurich.getHilbertIndex(), zurich.getHilbertIndex());
+		assertTrue(Math.abs(zurich.getHilbertIndex() - nearZurich.getHilbertIndex()) < Math
+				.abs(zurich.getHilbertIndex() - newYork.getHilbertIndex()));
+		// the grid is linear which is why locations about a meter apart have different indices
+		assertNotEquals(zurich.getHilbertIndex(),
+				GeoCellFactory.create("POINT (8.54001 47.37)", DEFAULT).getHilbertIndex());
+		assertEquals(0, GeoCellFactory.create("POINT EMPTY", DEFAULT).getHilbertIndex());
+	}
+
+	/**
+	 * Tests that equal geometric objects have equal fixed width sort keys that are
+	 * ordered by the reference system first.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void sortKey() throws IOException {
+		final AbstractGeoCell cell = GeoCellFactory.create("LINESTRING (30 10, 10 30, 40 40)", DEFAULT);
+		final AbstractGeoCell copy = GeoCellFactory.create("LINESTRING (30 10, 10 30, 40 40)", DEFAULT);
+		final AbstractGeoCell other = GeoCellFactory.create("LINESTRING (30 10, 10 30, 40 41)", DEFAULT);
+		assertEquals(GeoSortKey.LENGTH, cell.getSortKey().length);
+		assertArrayEquals(cell.getSortKey(), copy.getSortKey());
+		assertNotEquals(0, GeoSortKey.compare(cell.getSortKey(), other.getSortKey()));
+		final AbstractGeoCell otherRefSystem = GeoCellFactory.create("LINESTRING (30 10, 10 30, 40 40)",
+				GeoReferenceSystemFactory.create("EPSG:3857"));
+		assertEquals(
+				Integer.signum(
+						Integer.compareUnsigned(DEFAULT.hashCode(), otherRefSystem.getReferenceSystem().hashCode())),
+				Integer.signum(GeoSortKey.compare(cell.getSortKey(), otherRefSystem.getSortKey())));
+	}
+
+	/**
+	 * Tests that points answer their type and hash without creating the WKB with
+	 * the same result as the WKB based implementation.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void pointWithoutWKB() throws IOException {
+		for (final String wktVal : new String[] { "POINT (30 10)", "POINT Z (30 10 5)", "POINT M (30 10 2)",
+				"POINT ZM (-30 10.5 5 2)" }) {
+			final GeoPointCell cell = GeoCellFactory.create(wktVal, DEFAULT);
+			assertTrue(cell.hasCoordinates());
+			assertEquals("POINT", cell.getGeometryType());
+			assertEquals(Arrays.hashCode(cell.getWKB()), cell.wkbHashCode());
+		}
+	}
+
+	/**
+	 * Tests that an invalid WKB header throws an {@link IOException}
+	 *
+	 * @throws IOException is expected here
+	 */
+	@Test(expected = IOException.class)
+	public void whenInvalidWKBHeader_throwException() throws IOException {
+		GeoCellFactory.create(new byte[] { 7, 0, 0, 0, 1 }, DEFAULT);
+	}
+
+	/**
+	 * Test that large geometric objects are created as blob cells that are equal
+	 * to their non blob counterpart.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void largeGeometriesAreBlobCells() throws IOException {
+		assertTrue(GeoCellFactory.createCell("LINESTRING (30 10, 10 30)", DEFAULT) instanceof GeoLineCell);
+
+		final int numPoints = GeoCellFactory.BLOB_THRESHOLD / 16 + 1;
+		final ByteBuffer wkb = ByteBuffer.allocate(9 + 16 * numPoints);
+		wkb.put((byte) 0).putInt(2).putInt(numPoints);
+		for (int i = 0; i < numPoints; i++) {
+			wkb.putDouble(i).putDouble(i % 100);
+		}
+		final DataCell created = GeoCellFactory.createCell(wkb.array(), DEFAULT);
+		assertTrue(created instanceof GeoLineBlobCell);
+		final GeoLineBlobCell blobCell = (GeoLineBlobCell) created;
+		final GeoLineCell cell = GeoCellFactory.create(wkb.array(), DEFAULT);
+		assertTrue(blobCell.equalContent(cell));
+		assertTrue(cell.equalContent(blobCell));
+		assertEquals(cell.hashCode(), blobCell.hashCode());
+		assertEquals(cell.getEnvelope(), blobCell.getEnvelope());
+
+		final GeoLineBlobCell.CellSerializer serializer = new GeoLineBlobCell.CellSerializer();
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final CellOutput output = new CellOutput(bytes)) {
+			serializer.serialize(blobCell, output);
+		}
+		try (final CellInput input = new CellInput(new ByteArrayInputStream(bytes.toByteArray()))) {
+			assertEquals(blobCell, serializer.deserialize(input));
+		}
+	}
+
 	/**
 	 * Test the hierarchy of the GeoCell types.
 	 */
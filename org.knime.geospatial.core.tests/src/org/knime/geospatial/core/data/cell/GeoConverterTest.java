@@ -0,0 +1,150 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.cell;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import mil.nga.sf.Geometry;
+import mil.nga.sf.wkt.GeometryWriter;
+
+/**
+ * Tests the {@link GeoConverter} that directly transcodes between the different representations.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+public class GeoConverterTest {
+
+	private static final String[] WKT_VALUES = { "POINT (30 10)", "POINT Z (30 10 5)", "POINT M (30 10 2)",
+			"POINT ZM (30 10 5 2)", "POINT (0.0000001 123456789.123)", "LINESTRING (30 10, 10 30, 40 40)",
+			"LINESTRING Z (30 10 1, 10 30 2, 40 40 3)", "POLYGON ((30 10, 40 40, 20 40, 10 20, 30 10))",
+			"POLYGON ((35 10, 45 45, 15 40, 10 20, 35 10), (20 30, 35 35, 30 20, 20 30))",
+			"MULTIPOINT (10 40, 40 30, 20 20, 30 10)",
+			"MULTILINESTRING ((10 10, 20 20, 10 40), (40 40, 30 30, 40 20, 30 10))",
+			"MULTIPOLYGON (((30 20, 45 40, 10 40, 30 20)), ((15 5, 40 10, 10 20, 5 10, 15 5)))",
+			"GEOMETRYCOLLECTION (POINT (40 10), LINESTRING (10 10, 20 20, 10 40), "
+					+ "POLYGON ((40 40, 20 45, 45 30, 40 40)))",
+			"GEOMETRYCOLLECTION (MULTIPOINT (1 2, 3 4), GEOMETRYCOLLECTION (POINT (5 6)))", "POINT EMPTY",
+			"LINESTRING EMPTY", "GEOMETRYCOLLECTION EMPTY" };
+
+	/**
+	 * Tests that the direct WKB to WKT transcoding produces the same output as the geometry writer.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void wkb2wktEqualsGeometryWriter() throws IOException {
+		for (final String wktVal : WKT_VALUES) {
+			final byte[] wkb = GeoConverter.wkt2wkb(wktVal);
+			assertEquals(GeometryWriter.writeGeometry(GeoConverter.wkb2Geo(wkb)), GeoConverter.wkb2wkt(wkb));
+		}
+	}
+
+	/**
+	 * Tests that the direct WKT to WKB parsing produces the same WKB and geometry type as the geometry based
+	 * conversion.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void wkt2wkbEqualsGeometryWriter() throws IOException {
+		final String[] wktVals = Arrays.copyOf(WKT_VALUES, WKT_VALUES.length + 4);
+		wktVals[WKT_VALUES.length] = "MULTIPOINT ((10 40), (40 30))";
+		wktVals[WKT_VALUES.length + 1] = "  point z(30.5 -10 1e3) ";
+		wktVals[WKT_VALUES.length + 2] = "POINT (0.1 0.30000000000000004)";
+		wktVals[WKT_VALUES.length + 3] = "POINT (-0.0 123456789012345678901)";
+		for (final String wktVal : wktVals) {
+			final Geometry geo = GeoConverter.wkt2Geo(wktVal);
+			final byte[] wkb = new WKTParser(wktVal).parse();
+			assertArrayEquals(wktVal, GeoConverter.geo2wkb(geo), wkb);
+			assertEquals(geo.getGeometryType(), CanonicalWKB.of(wkb).getGeometryType());
+		}
+	}
+
+	/**
+	 * Tests the WKB to WKT transcoding of little endian WKB as written e.g. by Shapely.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void wkb2wktLittleEndian() throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 4 + 2 * 21).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put((byte) 1).putInt(4).putInt(2);
+		buffer.put((byte) 1).putInt(1).putDouble(10).putDouble(40);
+		buffer.put((byte) 1).putInt(1).putDouble(40).putDouble(30);
+		final byte[] wkb = buffer.array();
+		assertEquals(GeometryWriter.writeGeometry(GeoConverter.wkb2Geo(wkb)), GeoConverter.wkb2wkt(wkb));
+	}
+
+	/**
+	 * Tests that the WKT is appended to the given {@link StringBuilder}.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void wkb2wktAppends() throws IOException {
+		final StringBuilder sb = new StringBuilder("prefix ");
+		GeoConverter.wkb2wkt(GeoConverter.wkt2wkb("POINT (30 10)"), sb);
+		assertEquals("prefix POINT (30.0 10.0)", sb.toString());
+	}
+
+	/**
+	 * Tests that truncated WKB throws an {@link IOException}
+	 *
+	 * @throws IOException is expected here
+	 */
+	@Test(expected = IOException.class)
+	public void whenTruncatedWKB_throwException() throws IOException {
+		final byte[] wkb = GeoConverter.wkt2wkb("LINESTRING (30 10, 10 30, 40 40)");
+		GeoConverter.wkb2wkt(Arrays.copyOf(wkb, wkb.length - 3));
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+
+package org.knime.geospatial.core.data.cell;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.knime.geospatial.core.data.reference.GeoReferenceSystem.DEFAULT;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.table.access.BufferedAccesses;
+import org.knime.core.table.access.ReadAccess;
+import org.knime.core.table.access.StructAccess.StructReadAccess;
+import org.knime.core.table.access.StructAccess.StructWriteAccess;
+import org.knime.geospatial.core.data.GeoValue;
+import org.knime.geospatial.core.data.cell.GeoPointValueFactory.GeoPointReadValue;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
+
+/**
+ * Tests the {@link GeoPointValueFactory}.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+public class GeoPointValueFactoryTest {
+
+	/**
+	 * Tests that two dimensional points only store their coordinates and round
+	 * trip.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void pointRoundTrip() throws IOException {
+		final GeoPointReadValue readValue = assertRoundTrip(GeoCellFactory.create("POINT (30 10)", DEFAULT), false);
+		assertEquals(30, readValue.getX(), 0);
+		assertEquals(10, readValue.getY(), 0);
+	}
+
+	/**
+	 * Tests that points with z or m values are stored with their WKB and round
+	 * trip.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void zmPointRoundTrip() throws IOException {
+		for (final String wktVal : new String[] { "POINT Z (30 10 5)", "POINT M (30 10 2)",
+				"POINT ZM (30 10 5 2)" }) {
+			final GeoPointReadValue readValue = assertRoundTrip(GeoCellFactory.create(wktVal, DEFAULT), true);
+			assertEquals(30, readValue.getX(), 0);
+			assertEquals(10, readValue.getY(), 0);
+		}
+	}
+
+	/**
+	 * Tests that points which are not given as {@link GeoPointCell} are written
+	 * from their WKB.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void pointFromWKBRoundTrip() throws IOException {
+		// little endian WKB is written in the canonical encoding
+		final byte[] wkb = ByteBuffer.allocate(21).order(ByteOrder.LITTLE_ENDIAN).put((byte) 1).putInt(1)
+				.putDouble(30).putDouble(10).array();
+		assertRoundTrip(new WKBValue(wkb), false);
+		final byte[] emptyWKB = ByteBuffer.allocate(21).put((byte) 0).putInt(1).putDouble(Double.NaN)
+				.putDouble(Double.NaN).array();
+		final GeoPointReadValue readValue = assertRoundTrip(new WKBValue(emptyWKB), false);
+		assertTrue(readValue.getEnvelope().isEmpty());
+	}
+
+	/**
+	 * Tests that writing a geometric object other than a point fails.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void whenNoPoint_throwException() throws IOException {
+		final GeoPointValueFactory factory = new GeoPointCell.PrimitiveValueFactory();
+		final Object access = BufferedAccesses.createBufferedAccess(factory.getSpec());
+		factory.createWriteValue((StructWriteAccess) access)
+				.setValue(GeoCellFactory.create("LINESTRING (30 10, 10 30)", DEFAULT));
+	}
+
+	private static GeoPointReadValue assertRoundTrip(final GeoValue value, final boolean expectWKB)
+			throws IOException {
+		final GeoPointValueFactory factory = new GeoPointCell.PrimitiveValueFactory();
+		final Object access = BufferedAccesses.createBufferedAccess(factory.getSpec());
+		factory.createWriteValue((StructWriteAccess) access).setValue(value);
+		final GeoPointReadValue readValue = factory.createReadValue((StructReadAccess) access);
+		final byte[] wkb = CanonicalWKB.of(value.getWKB()).getWKB();
+		final String msg = GeoConverter.wkb2wkt(wkb);
+		// the WKB child is only set for points with z or m values
+		assertEquals(msg, expectWKB, !((StructReadAccess) access).<ReadAccess> getAccess(3).isMissing());
+		assertArrayEquals(msg, wkb, readValue.getWKB());
+		assertEquals(msg, wkb.length, readValue.getWKBLength());
+		final DataCell expected = GeoCellFactory.createCell(wkb, DEFAULT);
+		assertEquals(msg, ((GeoValue) expected).getGeometryType(), readValue.getGeometryType());
+		assertEquals(msg, CanonicalWKB.of(wkb).getEnvelope(), readValue.getEnvelope());
+		assertEquals(msg, DEFAULT, readValue.getReferenceSystem());
+		assertEquals(msg, expected, readValue.getDataCell());
+		return readValue;
+	}
+
+	/** {@link GeoValue} that is only given by its WKB. */
+	private static final class WKBValue implements GeoValue {
+
+		private final byte[] m_wkb;
+
+		WKBValue(final byte[] wkb) {
+			m_wkb = wkb;
+		}
+
+		@Override
+		public String getGeometryType() {
+			return "POINT";
+		}
+
+		@Override
+		public String getWKT() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public byte[] getWKB() {
+			return m_wkb;
+		}
+
+		@Override
+		public GeoReferenceSystem getReferenceSystem() {
+			return DEFAULT;
+		}
+	}
+}
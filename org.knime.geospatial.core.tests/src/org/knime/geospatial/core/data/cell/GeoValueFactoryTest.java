@@ -0,0 +1,357 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+
+package org.knime.geospatial.core.data.cell;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.knime.geospatial.core.data.reference.GeoReferenceSystem.DEFAULT;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+import org.knime.core.table.access.BufferedAccesses;
+import org.knime.core.table.access.DoubleAccess.DoubleReadAccess;
+import org.knime.core.table.access.DoubleAccess.DoubleWriteAccess;
+import org.knime.core.table.access.StructAccess.StructReadAccess;
+import org.knime.core.table.access.StructAccess.StructWriteAccess;
+import org.knime.core.table.access.StringAccess.StringWriteAccess;
+import org.knime.core.table.access.VarBinaryAccess.VarBinaryWriteAccess;
+import org.knime.core.table.schema.traits.DataTrait.DictEncodingTrait;
+import org.knime.core.table.schema.traits.StructDataTraits;
+import org.knime.geospatial.core.data.GeoEnvelope;
+import org.knime.geospatial.core.data.GeoValue;
+import org.knime.geospatial.core.data.cell.GeoValueFactory.GeoReadValue;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystemFactory;
+
+/**
+ * Tests the {@link GeoValueFactory}.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+public class GeoValueFactoryTest {
+
+	/** Index of the minX child of the envelope layout. */
+	private static final int ENVELOPE = 2;
+
+	private static final String[] WKTS = { "POINT (30 10)", "POINT ZM (30 10 5 2)",
+			"LINESTRING (30 10, 10 30, 40 40)", "POLYGON ((30 10, 40 40, 20 40, 10 20, 30 10))",
+			"GEOMETRYCOLLECTION (POINT (40 10), LINESTRING (10 10, 20 20, 10 40))" };
+
+	/**
+	 * Tests that the geometry type and the WKB length which are read without
+	 * copying the WKB equal the ones of the cell.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void readTypeAndLengthWithoutCopy() throws IOException {
+		for (final GeoValueFactory<?> factory : new GeoValueFactory<?>[] { new GeoCell.ValueFactory(),
+				new GeoCell.EnvelopeValueFactory() }) {
+			final Object access = BufferedAccesses.createBufferedAccess(factory.getSpec());
+			final GeoReadValue<?> readValue = factory.createReadValue((StructReadAccess) access);
+			for (final String wktVal : WKTS) {
+				final AbstractGeoCell cell = GeoCellFactory.create(wktVal, DEFAULT);
+				factory.createWriteValue((StructWriteAccess) access).setValue(cell);
+				assertEquals(wktVal, cell.getGeometryType(), readValue.getGeometryType());
+				assertEquals(wktVal, cell.getWKBLength(), readValue.getWKBLength());
+			}
+		}
+	}
+
+	/**
+	 * Tests that the initial layout keeps the traits of the existing tables and
+	 * that only the envelope layout dictionary encodes the CRS.
+	 */
+	@Test
+	public void layoutTraits() {
+		final StructDataTraits initial = (StructDataTraits) new GeoCell.ValueFactory().getTraits();
+		assertEquals(2, initial.size());
+		for (int i = 0; i < initial.size(); i++) {
+			assertEquals(0, initial.getDataTraits(i).getTraits().length);
+		}
+		final StructDataTraits envelope = (StructDataTraits) new GeoCell.EnvelopeValueFactory().getTraits();
+		assertEquals(6, envelope.size());
+		for (int i = 0; i < envelope.size(); i++) {
+			assertEquals(i == 1, DictEncodingTrait.isEnabled(envelope.getDataTraits(i)));
+		}
+	}
+
+	/**
+	 * Tests that the reference system is read correctly if it alternates between
+	 * rows although the reader reuses the reference system of the last row.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void readAlternatingReferenceSystems() throws IOException {
+		final GeoReferenceSystem other = GeoReferenceSystemFactory.create("EPSG:3857");
+		for (final GeoValueFactory<?> factory : new GeoValueFactory<?>[] { new GeoCell.ValueFactory(),
+				new GeoCell.EnvelopeValueFactory() }) {
+			final Object access = BufferedAccesses.createBufferedAccess(factory.getSpec());
+			final GeoReadValue<?> readValue = factory.createReadValue((StructReadAccess) access);
+			for (int row = 0; row < 6; row++) {
+				// switch the reference system every row and every other row
+				final GeoReferenceSystem refSystem = row % 2 == 0 || row == 3 ? DEFAULT : other;
+				factory.createWriteValue((StructWriteAccess) access)
+						.setValue(GeoCellFactory.create(WKTS[row % WKTS.length], refSystem));
+				assertSame("Row " + row, refSystem, readValue.getReferenceSystem());
+			}
+		}
+	}
+
+	/**
+	 * Tests that reading a WKB which is shorter than the header fails.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void whenTruncatedHeader_throwException() {
+		final GeoValueFactory<?> factory = new GeoCell.ValueFactory();
+		final Object access = BufferedAccesses.createBufferedAccess(factory.getSpec());
+		((StructWriteAccess) access).<VarBinaryWriteAccess>getWriteAccess(0).setByteArray(new byte[] { 0, 0, 0 });
+		factory.createReadValue((StructReadAccess) access).getGeometryType();
+	}
+
+	/**
+	 * Tests that the envelope is written next to the WKB and read from the
+	 * envelope children.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void readStoredEnvelope() throws IOException {
+		final GeoValueFactory<?> factory = new GeoCell.EnvelopeValueFactory();
+		final Object access = BufferedAccesses.createBufferedAccess(factory.getSpec());
+		final GeoReadValue<?> readValue = factory.createReadValue((StructReadAccess) access);
+		for (final String wktVal : WKTS) {
+			final AbstractGeoCell cell = GeoCellFactory.create(wktVal, DEFAULT);
+			factory.createWriteValue((StructWriteAccess) access).setValue(cell);
+			final GeoEnvelope envelope = cell.getEnvelope();
+			assertEquals(wktVal, envelope, readValue.getEnvelope());
+			assertEquals(wktVal, envelope.getMinX(), envelope(access, 0).getDoubleValue(), 0);
+			assertEquals(wktVal, envelope.getMinY(), envelope(access, 1).getDoubleValue(), 0);
+			assertEquals(wktVal, envelope.getMaxX(), envelope(access, 2).getDoubleValue(), 0);
+			assertEquals(wktVal, envelope.getMaxY(), envelope(access, 3).getDoubleValue(), 0);
+		}
+		// the envelope is read from the children and not computed from the WKB
+		((StructWriteAccess) access).<DoubleWriteAccess>getWriteAccess(ENVELOPE)
+				.setDoubleValue(-1000);
+		assertEquals(-1000, readValue.getEnvelope().getMinX(), 0);
+	}
+
+	/**
+	 * Tests that the envelope is computed from the WKB if it is missing e.g.
+	 * because the value was written on the Python side.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void readMissingEnvelopeFromWKB() throws IOException {
+		final GeoValueFactory<?> factory = new GeoCell.EnvelopeValueFactory();
+		final Object access = BufferedAccesses.createBufferedAccess(factory.getSpec());
+		final StructWriteAccess writeAccess = (StructWriteAccess) access;
+		// little endian WKB as written by shapely
+		final byte[] wkb = ByteBuffer.allocate(41).order(ByteOrder.LITTLE_ENDIAN).put((byte) 1).putInt(2).putInt(2)
+				.putDouble(30).putDouble(10).putDouble(10).putDouble(30).array();
+		writeAccess.<VarBinaryWriteAccess>getWriteAccess(0).setByteArray(wkb);
+		writeAccess.<StringWriteAccess>getWriteAccess(1).setStringValue(DEFAULT.getCRS());
+		for (int i = 0; i < 4; i++) {
+			writeAccess.getWriteAccess(ENVELOPE + i).setMissing();
+		}
+		assertEquals(new GeoEnvelope(10, 10, 30, 30),
+				factory.createReadValue((StructReadAccess) access).getEnvelope());
+	}
+
+	/**
+	 * Tests that the envelope of empty geometries is stored as NaN and read as
+	 * empty envelope.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void emptyEnvelopeIsNaN() throws IOException {
+		final GeoValueFactory<?> factory = new GeoCell.EnvelopeValueFactory();
+		final Object access = BufferedAccesses.createBufferedAccess(factory.getSpec());
+		final GeoReadValue<?> readValue = factory.createReadValue((StructReadAccess) access);
+		// empty point with NaN coordinates, polygon without rings and collection without geometries
+		final byte[][] wkbs = { ByteBuffer.allocate(21).put((byte) 0).putInt(1).putDouble(Double.NaN)
+				.putDouble(Double.NaN).array(), ByteBuffer.allocate(9).put((byte) 0).putInt(3).putInt(0).array(),
+				ByteBuffer.allocate(9).put((byte) 0).putInt(7).putInt(0).array() };
+		for (final byte[] wkb : wkbs) {
+			final GeoValue cell = (GeoValue) GeoCellFactory.createCell(wkb, DEFAULT);
+			final String msg = cell.getGeometryType();
+			factory.createWriteValue((StructWriteAccess) access).setValue(cell);
+			for (int i = 0; i < 4; i++) {
+				assertTrue(msg, Double.isNaN(envelope(access, i).getDoubleValue()));
+			}
+			assertTrue(msg, readValue.getEnvelope().isEmpty());
+		}
+	}
+
+	/**
+	 * Tests that the sort key of a non canonical WKB e.g. written on the Python
+	 * side equals the one of the cell.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void sortKeyOfNonCanonicalWKB() throws IOException {
+		final GeoValueFactory<?> factory = new GeoCell.EnvelopeValueFactory();
+		final Object access = BufferedAccesses.createBufferedAccess(factory.getSpec());
+		final StructWriteAccess writeAccess = (StructWriteAccess) access;
+		final byte[] wkb = ByteBuffer.allocate(41).order(ByteOrder.LITTLE_ENDIAN).put((byte) 1).putInt(2).putInt(2)
+				.putDouble(30).putDouble(10).putDouble(10).putDouble(30).array();
+		writeAccess.<VarBinaryWriteAccess>getWriteAccess(0).setByteArray(wkb);
+		writeAccess.<StringWriteAccess>getWriteAccess(1).setStringValue(DEFAULT.getCRS());
+		final GeoValue cell = (GeoValue) GeoCellFactory.createCell(wkb, DEFAULT);
+		assertArrayEquals(cell.getSortKey(), factory.createReadValue((StructReadAccess) access).getSortKey());
+	}
+
+	/**
+	 * Tests that a read value is copied access by access into a second table
+	 * with the same WKB, CRS and envelope including a missing CRS or envelope.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void setFromCopiesReadValue() throws IOException {
+		final GeoValueFactory<?> factory = new GeoCell.EnvelopeValueFactory();
+		final Object source = BufferedAccesses.createBufferedAccess(factory.getSpec());
+		final StructWriteAccess sourceAccess = (StructWriteAccess) source;
+		final GeoReadValue<?> sourceValue = factory.createReadValue((StructReadAccess) source);
+		final Object target = BufferedAccesses.createBufferedAccess(factory.getSpec());
+		final GeoReadValue<?> targetValue = factory.createReadValue((StructReadAccess) target);
+		for (final String wktVal : WKTS) {
+			factory.createWriteValue(sourceAccess).setValue(GeoCellFactory.create(wktVal, DEFAULT));
+			factory.createWriteValue((StructWriteAccess) target).setValue(sourceValue);
+			assertCopy(wktVal, sourceValue, targetValue);
+		}
+
+		// missing CRS and envelope e.g. written on the Python side
+		sourceAccess.getWriteAccess(1).setMissing();
+		for (int i = 0; i < 4; i++) {
+			sourceAccess.getWriteAccess(ENVELOPE + i).setMissing();
+		}
+		factory.createWriteValue((StructWriteAccess) target).setValue(sourceValue);
+		assertTrue(((StructReadAccess) target).getAccess(1).isMissing());
+		for (int i = 0; i < 4; i++) {
+			assertTrue(envelope(target, i).isMissing());
+		}
+		assertSame(DEFAULT, targetValue.getReferenceSystem());
+		assertCopy("missing CRS and envelope", sourceValue, targetValue);
+
+		// the envelope is computed if the source does not store it
+		final GeoValueFactory<?> initialFactory = new GeoCell.ValueFactory();
+		final Object initial = BufferedAccesses.createBufferedAccess(initialFactory.getSpec());
+		final GeoReadValue<?> initialValue = initialFactory.createReadValue((StructReadAccess) initial);
+		initialFactory.createWriteValue((StructWriteAccess) initial).setValue(GeoCellFactory.create(WKTS[2], DEFAULT));
+		factory.createWriteValue((StructWriteAccess) target).setValue(initialValue);
+		assertEquals(new GeoEnvelope(10, 10, 40, 40), new GeoEnvelope(envelope(target, 0).getDoubleValue(),
+				envelope(target, 1).getDoubleValue(), envelope(target, 2).getDoubleValue(),
+				envelope(target, 3).getDoubleValue()));
+		assertCopy(WKTS[2], initialValue, targetValue);
+	}
+
+	private static void assertCopy(final String msg, final GeoValue expected, final GeoValue actual) {
+		assertArrayEquals(msg, expected.getWKB(), actual.getWKB());
+		assertEquals(msg, expected.getReferenceSystem().getCRS(), actual.getReferenceSystem().getCRS());
+		assertEquals(msg, expected.getEnvelope(), actual.getEnvelope());
+	}
+
+	/**
+	 * Tests that a WKB which is larger than the initial reused buffer is read
+	 * completely by all WKB methods of the read value.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void readLargeWKB() throws IOException {
+		final StringBuilder wkt = new StringBuilder("LINESTRING (");
+		for (int i = 0; i < 500; i++) {
+			wkt.append(i == 0 ? "" : ", ").append(i).append(' ').append(i % 7);
+		}
+		final AbstractGeoCell cell = GeoCellFactory.create(wkt.append(')').toString(), DEFAULT);
+		final GeoValueFactory<?> factory = new GeoCell.ValueFactory();
+		final Object access = BufferedAccesses.createBufferedAccess(factory.getSpec());
+		factory.createWriteValue((StructWriteAccess) access).setValue(cell);
+		final GeoReadValue<?> readValue = factory.createReadValue((StructReadAccess) access);
+		final byte[] wkb = cell.getWKB();
+		assertEquals(wkb.length, readValue.getWKBLength());
+		assertArrayEquals(wkb, readValue.getWKB());
+		for (final ByteBuffer buffer : new ByteBuffer[] { ByteBuffer.allocate(wkb.length + 2),
+				ByteBuffer.allocateDirect(wkb.length + 2) }) {
+			buffer.put((byte) 1);
+			readValue.getWKB(buffer);
+			assertEquals(wkb.length + 1, buffer.position());
+			final byte[] read = new byte[wkb.length];
+			buffer.position(1);
+			buffer.get(read);
+			assertArrayEquals(wkb, read);
+		}
+	}
+
+	/**
+	 * Tests that reading the WKB into a buffer that is too small fails.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test(expected = BufferOverflowException.class)
+	public void whenBufferTooSmall_throwException() throws IOException {
+		final GeoValueFactory<?> factory = new GeoCell.ValueFactory();
+		final Object access = BufferedAccesses.createBufferedAccess(factory.getSpec());
+		factory.createWriteValue((StructWriteAccess) access).setValue(GeoCellFactory.create(WKTS[2], DEFAULT));
+		factory.createReadValue((StructReadAccess) access).getWKB(ByteBuffer.allocate(10));
+	}
+
+	private static DoubleReadAccess envelope(final Object access, final int index) {
+		return ((StructReadAccess) access).getAccess(ENVELOPE + index);
+	}
+
+}
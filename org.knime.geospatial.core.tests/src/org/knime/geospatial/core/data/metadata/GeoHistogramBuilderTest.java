@@ -0,0 +1,150 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+
+package org.knime.geospatial.core.data.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.knime.geospatial.core.data.GeoEnvelope;
+
+/**
+ * Tests the {@link GeoHistogramBuilder} and the {@link GeoHistogram}.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+public class GeoHistogramBuilderTest {
+
+	/**
+	 * Tests that an empty builder creates no histogram.
+	 */
+	@Test
+	public void emptyBuilder() {
+		final GeoHistogramBuilder builder = new GeoHistogramBuilder();
+		builder.add(GeoEnvelope.EMPTY);
+		assertNull(builder.build());
+	}
+
+	/**
+	 * Tests that doubling the grid in all directions keeps the counts and that
+	 * the extent contains all envelope centers.
+	 */
+	@Test
+	public void doublingKeepsCounts() {
+		final GeoHistogramBuilder builder = new GeoHistogramBuilder();
+		builder.add(point(0, 0));
+		builder.add(point(1000, 0));
+		builder.add(point(-1000, 500));
+		builder.add(point(0, -2000));
+		builder.add(point(0, 0));
+		final GeoHistogram histogram = builder.build();
+		assertEquals(5, histogram.getTotalCount());
+		final GeoEnvelope extent = histogram.getExtent();
+		assertTrue(extent.getMinX() <= -1000 && extent.getMaxX() >= 1000);
+		assertTrue(extent.getMinY() <= -2000 && extent.getMaxY() >= 500);
+		assertEquals(2, count(histogram, 0, 0));
+		assertEquals(1, count(histogram, 1000, 0));
+		assertEquals(1, count(histogram, -1000, 500));
+		assertEquals(1, count(histogram, 0, -2000));
+	}
+
+	/**
+	 * Tests that merging builders adds the counts of both builders.
+	 */
+	@Test
+	public void mergeAddsCounts() {
+		final GeoHistogramBuilder first = new GeoHistogramBuilder();
+		final GeoHistogramBuilder second = new GeoHistogramBuilder();
+		for (int i = 0; i < 10; i++) {
+			first.add(point(i, i));
+			second.add(point(100 + i, 100 + i));
+		}
+		first.add(second);
+		final GeoHistogram histogram = first.build();
+		assertEquals(20, histogram.getTotalCount());
+		assertEquals(10, histogram.estimateCount(new GeoEnvelope(-1, -1, 50, 50)), 1e-9);
+		assertEquals(10, histogram.estimateCount(new GeoEnvelope(60, 60, 200, 200)), 1e-9);
+		// merging an empty builder changes nothing
+		first.add(new GeoHistogramBuilder());
+		assertEquals(histogram, first.build());
+	}
+
+	/**
+	 * Tests the estimated count and selectivity for uniformly distributed points.
+	 */
+	@Test
+	public void estimateCount() {
+		final GeoHistogramBuilder builder = new GeoHistogramBuilder();
+		for (int x = 0; x < 100; x++) {
+			for (int y = 0; y < 100; y++) {
+				builder.add(point(x + 0.5, y + 0.5));
+			}
+		}
+		final GeoHistogram histogram = builder.build();
+		final GeoEnvelope extent = histogram.getExtent();
+		assertEquals(10000, histogram.estimateCount(extent), 1e-6);
+		assertEquals(1, histogram.estimateSelectivity(extent), 1e-9);
+		assertEquals(5000, histogram.estimateCount(new GeoEnvelope(0, 0, 50, 100)), 500);
+		assertEquals(0.25, histogram.estimateSelectivity(new GeoEnvelope(0, 0, 50, 50)), 0.05);
+		assertEquals(0, histogram.estimateCount(new GeoEnvelope(1000, 1000, 2000, 2000)), 0);
+	}
+
+	private static GeoEnvelope point(final double x, final double y) {
+		return new GeoEnvelope(x, y, x, y);
+	}
+
+	private static long count(final GeoHistogram histogram, final double x, final double y) {
+		final GeoEnvelope extent = histogram.getExtent();
+		final int resolution = histogram.getResolution();
+		final int col = Math.min(resolution - 1,
+				(int) ((x - extent.getMinX()) / (extent.getMaxX() - extent.getMinX()) * resolution));
+		final int row = Math.min(resolution - 1,
+				(int) ((y - extent.getMinY()) / (extent.getMaxY() - extent.getMinY()) * resolution));
+		return histogram.getCount(col, row);
+	}
+
+}
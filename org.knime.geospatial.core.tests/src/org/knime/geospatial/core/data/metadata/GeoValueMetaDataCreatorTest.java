@@ -0,0 +1,374 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+
+package org.knime.geospatial.core.data.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.knime.geospatial.core.data.reference.GeoReferenceSystem.DEFAULT;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.DataContainer;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.geospatial.core.data.GeoEnvelope;
+import org.knime.geospatial.core.data.GeoValue;
+import org.knime.geospatial.core.data.cell.GeoCell;
+import org.knime.geospatial.core.data.cell.GeoCellFactory;
+import org.knime.geospatial.core.data.cell.GeoPointCell;
+
+/**
+ * Tests the {@link GeoValueMetaDataCreator}.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+public class GeoValueMetaDataCreatorTest {
+
+	/**
+	 * Tests that the zones of the input spec are dropped when a container
+	 * initializes its domain from it since they do not describe the added rows.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void initDomainKeepsOnlyZonesOfAddedRows() throws IOException {
+		final GeoValueMetaDataCreator inputCreator = new GeoValueMetaDataCreator();
+		for (int i = 0; i < 3; i++) {
+			inputCreator.update(point(100, 100));
+		}
+		final DataColumnSpecCreator colSpecCreator = new DataColumnSpecCreator("geo", GeoPointCell.TYPE);
+		colSpecCreator.addMetaData(inputCreator.create(), true);
+		final DataContainer container = new DataContainer(new DataTableSpec(colSpecCreator.createSpec()), true);
+		for (int i = 0; i < 5; i++) {
+			container.addRowToTable(new DefaultRow(RowKey.createRowKey((long) i), point(i, i)));
+		}
+		container.close();
+		final GeoValueMetaData metaData = GeoValueMetaData
+				.extractFromSpec(container.getTable().getDataTableSpec().getColumnSpec(0));
+		assertEquals(Collections.singleton(DEFAULT), metaData.getReferenceSystem());
+		final List<GeoZone> zones = metaData.getZones();
+		assertEquals(1, zones.size());
+		assertEquals(5, zones.get(0).getRowCount());
+		assertEquals(new GeoEnvelope(0, 0, 4, 4), zones.get(0).getEnvelope());
+	}
+
+	/**
+	 * Tests that the zones of a merged creator follow the zones of this creator.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void mergeCreatorAppendsZones() throws IOException {
+		final GeoValueMetaDataCreator first = new GeoValueMetaDataCreator();
+		first.update(point(0, 0));
+		first.update(point(1, 1));
+		final GeoValueMetaDataCreator second = new GeoValueMetaDataCreator();
+		for (int i = 0; i < 3; i++) {
+			second.update(point(10 + i, 10));
+		}
+		final List<GeoZone> zones = first.merge(second).create().getZones();
+		assertEquals(2, zones.size());
+		assertEquals(2, zones.get(0).getRowCount());
+		assertEquals(new GeoEnvelope(0, 0, 1, 1), zones.get(0).getEnvelope());
+		assertEquals(3, zones.get(1).getRowCount());
+		assertEquals(new GeoEnvelope(10, 10, 12, 10), zones.get(1).getEnvelope());
+	}
+
+	/**
+	 * Tests that merged meta data keeps its zones if no rows are added.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void mergeMetaDataKeepsZones() throws IOException {
+		final GeoValueMetaData metaData = createMetaData();
+		final GeoValueMetaData merged = new GeoValueMetaDataCreator().merge(metaData).create();
+		assertEquals(Collections.singleton(DEFAULT), merged.getReferenceSystem());
+		assertEquals(metaData.getZones(5), merged.getZones(5));
+		assertEquals(2, merged.getZones(5).size());
+	}
+
+	/**
+	 * Tests that the zones survive when a column spec is copied or its type is
+	 * replaced.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void specCopyKeepsZones() throws IOException {
+		final GeoValueMetaData metaData = createMetaData();
+		final DataColumnSpec spec = createSpec(metaData);
+		final DataColumnSpec copy = new DataColumnSpecCreator(spec).createSpec();
+		assertEquals(metaData.getZones(5), GeoValueMetaData.extractFromSpec(copy).getZones(5));
+		final DataColumnSpec replaced = GeoValueMetaData.replaceColumnDataType(spec, GeoCell.TYPE);
+		assertEquals(metaData.getZones(5), GeoValueMetaData.extractFromSpec(replaced).getZones(5));
+	}
+
+	/**
+	 * Tests that the zones are only returned for the number of rows they cover.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void zonesOfOtherRowCountAreUnknown() throws IOException {
+		final GeoValueMetaData metaData = createMetaData();
+		assertEquals(2, metaData.getZones(5).size());
+		assertEquals(0, metaData.getZones(4).size());
+		assertEquals(0, metaData.getZones(6).size());
+	}
+
+	/**
+	 * Tests the statistics that are collected from the updated rows.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void collectStatistics() throws IOException {
+		final GeoValueMetaDataCreator creator = new GeoValueMetaDataCreator();
+		final DataCell point = point(0, 0);
+		final DataCell line = cell("LINESTRING (1 1, 2 3)");
+		creator.update(point);
+		creator.update(line);
+		creator.update(point);
+		final GeoStatistics statistics = creator.create().getStatistics().get();
+		final Map<String, Long> typeCounts = new HashMap<>();
+		typeCounts.put(((GeoValue) point).getGeometryType(), 2L);
+		typeCounts.put(((GeoValue) line).getGeometryType(), 1L);
+		assertEquals(typeCounts, statistics.getGeometryTypeCounts());
+		assertEquals(3, statistics.getGeometryCount());
+		assertEquals(4, statistics.getCoordinateCount());
+		assertEquals(((GeoValue) point).getWKBLength(), statistics.getMinWKBLength());
+		assertEquals(((GeoValue) line).getWKBLength(), statistics.getMaxWKBLength());
+		assertEquals(new GeoEnvelope(0, 0, 2, 3), statistics.getExtent(DEFAULT));
+	}
+
+	/**
+	 * Tests that the counts of merged creators are added.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void mergeCreatorAddsStatistics() throws IOException {
+		final GeoValueMetaDataCreator first = new GeoValueMetaDataCreator();
+		first.update(point(0, 0));
+		final GeoValueMetaDataCreator second = new GeoValueMetaDataCreator();
+		second.update(cell("LINESTRING (1 1, 2 3)"));
+		final GeoStatistics statistics = first.merge(second).create().getStatistics().get();
+		assertEquals(2, statistics.getGeometryCount());
+		assertEquals(3, statistics.getCoordinateCount());
+		assertEquals(new GeoEnvelope(0, 0, 2, 3), statistics.getExtent(DEFAULT));
+	}
+
+	/**
+	 * Tests that the statistics survive when a column spec is copied or its type
+	 * is replaced.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void specCopyKeepsStatistics() throws IOException {
+		final GeoValueMetaData metaData = createMetaData();
+		final GeoStatistics statistics = metaData.getStatistics().get();
+		assertEquals(5, statistics.getGeometryCount());
+		final DataColumnSpec spec = createSpec(metaData);
+		final DataColumnSpec copy = new DataColumnSpecCreator(spec).createSpec();
+		assertEquals(statistics, GeoValueMetaData.extractFromSpec(copy).getStatistics().get());
+		final DataColumnSpec replaced = GeoValueMetaData.replaceColumnDataType(spec, GeoCell.TYPE);
+		assertEquals(statistics, GeoValueMetaData.extractFromSpec(replaced).getStatistics().get());
+	}
+
+	/**
+	 * Tests that the counts of several merged meta data are added.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void mergeMetaDataAddsStatistics() throws IOException {
+		final GeoValueMetaData metaData = createMetaData();
+		final GeoStatistics statistics = new GeoValueMetaDataCreator().merge(metaData).merge(metaData).create()
+				.getStatistics().get();
+		assertEquals(10, statistics.getGeometryCount());
+		assertEquals(2 * metaData.getStatistics().get().getCoordinateCount(), statistics.getCoordinateCount());
+		assertEquals(new GeoEnvelope(0, 0, 12, 10), statistics.getExtent(DEFAULT));
+	}
+
+	/**
+	 * Tests that a container that initializes its domain from the input spec
+	 * only counts the added rows but keeps the extent of the input.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void initDomainCountsOnlyAddedRows() throws IOException {
+		final GeoValueMetaDataCreator inputCreator = new GeoValueMetaDataCreator();
+		final DataCell line = cell("LINESTRING (100 100, 200 200)");
+		for (int i = 0; i < 3; i++) {
+			inputCreator.update(line);
+		}
+		final DataColumnSpecCreator colSpecCreator = new DataColumnSpecCreator("geo", GeoPointCell.TYPE);
+		colSpecCreator.addMetaData(inputCreator.create(), true);
+		final DataContainer container = new DataContainer(new DataTableSpec(colSpecCreator.createSpec()), true);
+		final DataCell point = point(0, 0);
+		for (int i = 0; i < 2; i++) {
+			container.addRowToTable(new DefaultRow(RowKey.createRowKey((long) i), point));
+		}
+		container.close();
+		final GeoStatistics statistics = GeoValueMetaData
+				.extractFromSpec(container.getTable().getDataTableSpec().getColumnSpec(0)).getStatistics().get();
+		assertEquals(Collections.singletonMap(((GeoValue) point).getGeometryType(), 2L), statistics.getGeometryTypeCounts());
+		assertEquals(2, statistics.getCoordinateCount());
+		// the extent and the WKB length range are bounds that include the input
+		assertEquals(new GeoEnvelope(0, 0, 200, 200), statistics.getExtent(DEFAULT));
+		assertEquals(((GeoValue) point).getWKBLength(), statistics.getMinWKBLength());
+		assertEquals(((GeoValue) line).getWKBLength(), statistics.getMaxWKBLength());
+	}
+
+	/**
+	 * Tests that a container that initializes its domain from the input spec
+	 * does not add the histogram counts of the input.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void initDomainHistogramCountsOnlyAddedRows() throws IOException {
+		final GeoValueMetaDataCreator inputCreator = new GeoValueMetaDataCreator();
+		for (int i = 0; i < 3; i++) {
+			inputCreator.update(point(i, i));
+		}
+		final DataColumnSpecCreator colSpecCreator = new DataColumnSpecCreator("geo", GeoPointCell.TYPE);
+		colSpecCreator.addMetaData(inputCreator.create(), true);
+		final DataContainer container = new DataContainer(new DataTableSpec(colSpecCreator.createSpec()), true);
+		for (int i = 0; i < 3; i++) {
+			container.addRowToTable(new DefaultRow(RowKey.createRowKey((long) i), point(i, i)));
+		}
+		container.close();
+		final GeoHistogram histogram = GeoValueMetaData
+				.extractFromSpec(container.getTable().getDataTableSpec().getColumnSpec(0)).getHistogram().get();
+		assertEquals(3, histogram.getTotalCount());
+	}
+
+	/**
+	 * Tests that the histogram survives when a column spec is copied or its type
+	 * is replaced.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void specCopyKeepsHistogram() throws IOException {
+		final GeoValueMetaData metaData = createMetaData();
+		final GeoHistogram histogram = metaData.getHistogram().get();
+		assertEquals(5, histogram.getTotalCount());
+		final DataColumnSpec spec = createSpec(metaData);
+		final DataColumnSpec copy = new DataColumnSpecCreator(spec).createSpec();
+		assertEquals(histogram, GeoValueMetaData.extractFromSpec(copy).getHistogram().get());
+		final DataColumnSpec replaced = GeoValueMetaData.replaceColumnDataType(spec, GeoCell.TYPE);
+		assertEquals(metaData, GeoValueMetaData.extractFromSpec(replaced));
+	}
+
+	/**
+	 * Tests that the histogram counts of several merged meta data are added.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void mergeMetaDataAddsHistogram() throws IOException {
+		final GeoValueMetaData metaData = createMetaData();
+		assertEquals(10, new GeoValueMetaDataCreator().merge(metaData).merge(metaData).create().getHistogram().get()
+				.getTotalCount());
+	}
+
+	/**
+	 * Tests that the histogram of merged creators contains the counts of both.
+	 *
+	 * @throws IOException should not happen here
+	 */
+	@Test
+	public void mergeCreatorAddsHistogram() throws IOException {
+		final GeoValueMetaDataCreator first = new GeoValueMetaDataCreator();
+		first.update(point(0, 0));
+		final GeoValueMetaDataCreator second = new GeoValueMetaDataCreator();
+		second.update(point(10, 10));
+		second.update(point(20, 20));
+		assertEquals(3, first.merge(second).create().getHistogram().get().getTotalCount());
+	}
+
+	/**
+	 * @return the meta data of 5 rows in two zones
+	 */
+	private static GeoValueMetaData createMetaData() throws IOException {
+		final GeoValueMetaDataCreator first = new GeoValueMetaDataCreator();
+		first.update(point(0, 0));
+		first.update(cell("LINESTRING (1 1, 2 3)"));
+		final GeoValueMetaDataCreator second = new GeoValueMetaDataCreator();
+		for (int i = 0; i < 3; i++) {
+			second.update(point(10 + i, 10));
+		}
+		return first.merge(second).create();
+	}
+
+	private static DataColumnSpec createSpec(final GeoValueMetaData metaData) {
+		final DataColumnSpecCreator colSpecCreator = new DataColumnSpecCreator("geo", GeoCell.TYPE);
+		colSpecCreator.addMetaData(metaData, true);
+		return colSpecCreator.createSpec();
+	}
+
+	static DataCell point(final double x, final double y) throws IOException {
+		return cell("POINT (" + x + " " + y + ")");
+	}
+
+	static DataCell cell(final String wkt) throws IOException {
+		return GeoCellFactory.create(wkt, DEFAULT);
+	}
+
+}
@@ -0,0 +1,145 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.reference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.locationtech.proj4j.CRSFactory;
+import org.locationtech.proj4j.CoordinateReferenceSystem;
+
+/**
+ * Tests the {@link CRSCache}.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+public class CRSCacheTest {
+
+	private static final CoordinateReferenceSystem WGS84 = new CRSFactory().createFromName("EPSG:4326");
+
+	/**
+	 * Tests that concurrent requests for the same CRS string parse it only once.
+	 *
+	 * @throws Exception should not happen here
+	 */
+	@Test
+	public void loadsOnlyOnce() throws Exception {
+		final AtomicInteger loads = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		final CRSCache cache = new CRSCache(10, crs -> {
+			loads.incrementAndGet();
+			return WGS84;
+		});
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			final List<Future<CoordinateReferenceSystem>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					return cache.get("EPSG:4326");
+				}));
+			}
+			start.countDown();
+			for (final Future<CoordinateReferenceSystem> result : results) {
+				assertSame(WGS84, result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getLoadCount());
+		assertEquals(7, cache.getHitCount());
+	}
+
+	/**
+	 * Tests that the least recently used entry is evicted once the maximum size is
+	 * exceeded.
+	 *
+	 * @throws Exception should not happen here
+	 */
+	@Test
+	public void evictsLeastRecentlyUsed() throws Exception {
+		final CRSCache cache = new CRSCache(2, crs -> WGS84);
+		cache.get("A");
+		cache.get("B");
+		cache.get("A");
+		cache.get("C");
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		cache.get("A");
+		assertEquals(3, cache.getLoadCount());
+		assertEquals(2, cache.getHitCount());
+	}
+
+	/**
+	 * Tests that invalid CRS strings are not cached.
+	 */
+	@Test
+	public void doesNotCacheInvalidCRS() {
+		final CRSCache cache = new CRSCache(2, crs -> {
+			throw new IllegalArgumentException("Invalid CRS");
+		});
+		for (int i = 0; i < 2; i++) {
+			try {
+				cache.get("invalid");
+				fail("Exception expected");
+			} catch (final Exception e) {
+				// expected
+			}
+		}
+		assertEquals(0, cache.size());
+		assertEquals(2, cache.getLoadCount());
+	}
+}
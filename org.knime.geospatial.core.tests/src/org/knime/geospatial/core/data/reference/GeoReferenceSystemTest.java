@@ -48,11 +48,14 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 
 import org.junit.Test;
+import org.knime.geospatial.core.data.GeoEnvelope;
 
 /**
  * Tests the different {@link GeoReferenceSystem} implementations.
@@ -110,6 +113,7 @@ public void isEqualsReferenceSystem() throws IOException {
         assertEquals(epsgL, epsgU);
         final GeoReferenceSystem wkt1 = GeoReferenceSystemFactory.create(WKT1);
         assertEquals(epsgU, wkt1);
+        assertEquals(epsgU.hashCode(), wkt1.hashCode());
         final GeoReferenceSystem wkt2 = GeoReferenceSystemFactory.create(WKT2);
             assertEquals(wkt1, wkt2);
     }
@@ -131,6 +135,110 @@ public void normalizeInputCRS() throws IOException {
 
     }
 
+    /**
+     * Tests that equal normalized CRS strings share the same instance.
+     * @throws IOException the CRS is invalid
+     */
+    @Test
+    public void sharesInstances() throws IOException {
+        assertSame(GeoReferenceSystem.DEFAULT, GeoReferenceSystemFactory.create(" epsg:4326"));
+        assertSame(GeoReferenceSystemFactory.create(WKT1), GeoReferenceSystemFactory.create(WKT1.toLowerCase()));
+        assertNotSame(GeoReferenceSystemFactory.create(WKT1), GeoReferenceSystem.DEFAULT);
+    }
+
+    /**
+     * Tests that the number of shared instances is bounded by evicting the least recently used ones except for the
+     * default reference system.
+     * @throws IOException the CRS is invalid
+     */
+    @Test
+    public void evictsLeastRecentlyUsedInstances() throws IOException {
+        final GeoReferenceSystem evicted = GeoReferenceSystemFactory.create("EPSG:3857");
+        final GeoReferenceSystem used = GeoReferenceSystemFactory.create("EPSG:3395");
+        for (int i = 0; i < 2000; i++) {
+            // the CRS strings are only parsed if needed
+            GeoReferenceSystemFactory.create("EPSG:" + (32600 + i));
+            assertSame(used, GeoReferenceSystemFactory.create("EPSG:3395"));
+        }
+        assertNotSame(evicted, GeoReferenceSystemFactory.create("EPSG:3857"));
+        assertSame(GeoReferenceSystem.DEFAULT, GeoReferenceSystemFactory.create("EPSG:4326"));
+    }
+
+    /**
+     * Tests that different representations of the same coordinate reference system share the same interned identity
+     * which does not depend on the order in which the reference systems are resolved.
+     * @throws IOException the CRS is invalid
+     */
+    @Test
+    public void identityIsCanonical() throws IOException {
+        final DefaultGeoReferenceSystem epsg = (DefaultGeoReferenceSystem)GeoReferenceSystemFactory.create("EPSG:4326");
+        final DefaultGeoReferenceSystem wkt = (DefaultGeoReferenceSystem)GeoReferenceSystemFactory.create(WKT1);
+        assertSame(epsg.getIdentity(), wkt.getIdentity());
+        assertEquals(epsg.getIdentity().hashCode(), wkt.hashCode());
+        assertNotEquals(epsg.getIdentity(),
+            ((DefaultGeoReferenceSystem)GeoReferenceSystemFactory.create("EPSG:3857")).getIdentity());
+    }
+
+    /**
+     * Tests that the order of the reference systems is consistent with equals.
+     * @throws IOException the CRS is invalid
+     */
+    @Test
+    public void compareIsConsistentWithEquals() throws IOException {
+        final GeoReferenceSystem epsg = GeoReferenceSystemFactory.create("EPSG:4326");
+        assertEquals(0, GeoReferenceSystemFactory.compare(epsg, GeoReferenceSystemFactory.create(WKT1)));
+        final GeoReferenceSystem other = GeoReferenceSystemFactory.create("EPSG:3857");
+        final int compare = GeoReferenceSystemFactory.compare(epsg, other);
+        assertNotEquals(0, compare);
+        assertEquals(-Integer.signum(compare), Integer.signum(GeoReferenceSystemFactory.compare(other, epsg)));
+    }
+
+    /**
+     * Tests that reference systems which only differ in a parameter that is not part of the PROJ.4 description of the
+     * projection such as the first standard parallel of a Lambert conformal conic projection are not equal.
+     * @throws IOException the CRS is invalid
+     */
+    @Test
+    public void lccStandardParallelIsPartOfIdentity() throws IOException {
+        final DefaultGeoReferenceSystem lcc33 = (DefaultGeoReferenceSystem)GeoReferenceSystemFactory.create(lcc(33));
+        final DefaultGeoReferenceSystem lcc34 = (DefaultGeoReferenceSystem)GeoReferenceSystemFactory.create(lcc(34));
+        assertNotEquals(lcc33.getIdentity(), lcc34.getIdentity());
+        assertNotEquals(lcc33, lcc34);
+        assertEquals(lcc33, GeoReferenceSystemFactory.create(lcc(33).replace("\r\n", " ")));
+    }
+
+    private static String lcc(final double standardParallel1) {
+        return "PROJCS[\"LCC\",\r\n"
+            + "    GEOGCS[\"NAD83\",\r\n"
+            + "        DATUM[\"North_American_Datum_1983\",\r\n"
+            + "            SPHEROID[\"GRS 1980\",6378137,298.257222101]],\r\n"
+            + "        PRIMEM[\"Greenwich\",0],\r\n"
+            + "        UNIT[\"degree\",0.0174532925199433]],\r\n"
+            + "    PROJECTION[\"Lambert_Conformal_Conic_2SP\"],\r\n"
+            + "    PARAMETER[\"standard_parallel_1\"," + standardParallel1 + "],\r\n"
+            + "    PARAMETER[\"standard_parallel_2\",45],\r\n"
+            + "    PARAMETER[\"latitude_of_origin\",23],\r\n"
+            + "    PARAMETER[\"central_meridian\",-96],\r\n"
+            + "    PARAMETER[\"false_easting\",0],\r\n"
+            + "    PARAMETER[\"false_northing\",0],\r\n"
+            + "    UNIT[\"metre\",1]]";
+    }
+
+    /**
+     * Tests that the extent contains the valid coordinates of geographic and projected reference systems.
+     * @throws IOException the CRS is invalid
+     */
+    @Test
+    public void extent() throws IOException {
+        final GeoEnvelope geographic = GeoReferenceSystemFactory.create("EPSG:4326").getExtent();
+        assertTrue(geographic.intersects(new GeoEnvelope(-180, -90, -180, -90)));
+        assertTrue(geographic.intersects(new GeoEnvelope(180, 90, 180, 90)));
+        final GeoEnvelope webMercator = GeoReferenceSystemFactory.create("EPSG:3857").getExtent();
+        assertTrue(webMercator.intersects(new GeoEnvelope(-20037508, -20037508, -20037508, -20037508)));
+        assertTrue(webMercator.intersects(new GeoEnvelope(20037508, 20037508, 20037508, 20037508)));
+        assertFalse(webMercator.intersects(new GeoEnvelope(3e7, 0, 3e7, 0)));
+    }
+
     /**
      * Tests the valid method of the {@link GeoReferenceSystemFactory}.
      */
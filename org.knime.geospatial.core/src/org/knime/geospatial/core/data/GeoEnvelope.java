@@ -0,0 +1,169 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data;
+
+/**
+ * The envelope (bounding box) of a geometric object that is described by the
+ * minimum and maximum x and y coordinates of the object. The envelope of an
+ * empty geometric object is {@link #EMPTY}.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+public final class GeoEnvelope {
+
+	/** The envelope of empty geometric objects whose coordinates are all NaN. */
+	public static final GeoEnvelope EMPTY = new GeoEnvelope(Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+
+	private final double m_minX;
+
+	private final double m_minY;
+
+	private final double m_maxX;
+
+	private final double m_maxY;
+
+	/**
+	 * @param minX the minimum x coordinate
+	 * @param minY the minimum y coordinate
+	 * @param maxX the maximum x coordinate
+	 * @param maxY the maximum y coordinate
+	 */
+	public GeoEnvelope(final double minX, final double minY, final double maxX, final double maxY) {
+		m_minX = minX;
+		m_minY = minY;
+		m_maxX = maxX;
+		m_maxY = maxY;
+	}
+
+	/**
+	 * @return the minimum x coordinate
+	 */
+	public double getMinX() {
+		return m_minX;
+	}
+
+	/**
+	 * @return the minimum y coordinate
+	 */
+	public double getMinY() {
+		return m_minY;
+	}
+
+	/**
+	 * @return the maximum x coordinate
+	 */
+	public double getMaxX() {
+		return m_maxX;
+	}
+
+	/**
+	 * @return the maximum y coordinate
+	 */
+	public double getMaxY() {
+		return m_maxY;
+	}
+
+	/**
+	 * @return <code>true</code> if the envelope belongs to an empty geometric
+	 *         object
+	 */
+	public boolean isEmpty() {
+		return Double.isNaN(m_minX);
+	}
+
+	/**
+	 * @param other the other envelope
+	 * @return <code>true</code> if both envelopes are not empty and intersect
+	 */
+	public boolean intersects(final GeoEnvelope other) {
+		return !isEmpty() && !other.isEmpty() && m_minX <= other.m_maxX && other.m_minX <= m_maxX
+				&& m_minY <= other.m_maxY && other.m_minY <= m_maxY;
+	}
+
+	/**
+	 * @param other the other envelope
+	 * @return the smallest envelope that contains both envelopes, empty envelopes
+	 *         are ignored
+	 */
+	public GeoEnvelope union(final GeoEnvelope other) {
+		if (other.isEmpty()) {
+			return this;
+		}
+		if (isEmpty()) {
+			return other;
+		}
+		return new GeoEnvelope(Math.min(m_minX, other.m_minX), Math.min(m_minY, other.m_minY),
+				Math.max(m_maxX, other.m_maxX), Math.max(m_maxY, other.m_maxY));
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof GeoEnvelope)) {
+			return false;
+		}
+		final GeoEnvelope other = (GeoEnvelope) obj;
+		return Double.compare(m_minX, other.m_minX) == 0 && Double.compare(m_minY, other.m_minY) == 0
+				&& Double.compare(m_maxX, other.m_maxX) == 0 && Double.compare(m_maxY, other.m_maxY) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + Double.hashCode(m_minX);
+		result = prime * result + Double.hashCode(m_minY);
+		result = prime * result + Double.hashCode(m_maxX);
+		result = prime * result + Double.hashCode(m_maxY);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return isEmpty() ? "EMPTY" : "[" + m_minX + ", " + m_minY + ", " + m_maxX + ", " + m_maxY + "]";
+	}
+}
@@ -45,9 +45,17 @@
 
 package org.knime.geospatial.core.data;
 
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 import org.knime.core.data.DataValue;
+import org.knime.geospatial.core.data.cell.GeoCellFactory;
 import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
+import org.knime.geospatial.core.data.util.GeoSortKey;
 import org.knime.geospatial.core.data.util.GeoUtilityFactory;
+import org.knime.geospatial.core.data.util.HilbertCurve;
 
 /**
  * {@link DataValue} implementation that represents a geometric object. This is
@@ -93,6 +101,70 @@ public interface GeoValue extends DataValue {
 	 */
 	byte[] getWKB();
 
+	/**
+	 * Returns the number of bytes of the Well Known Binary (WKB) representation
+	 * of this geometric object without creating the WKB.
+	 *
+	 * @return the length of the WKB
+	 */
+	default int getWKBLength() {
+		return getWKB().length;
+	}
+
+	/**
+	 * Writes the Well Known Binary (WKB) representation of this geometric object
+	 * into the given buffer starting at its current position. This allows to reuse
+	 * a single buffer for many values instead of creating a new array per value.
+	 *
+	 * @param buffer the {@link ByteBuffer} to write to which needs at least
+	 *               {@link #getWKBLength()} remaining bytes
+	 * @throws BufferOverflowException if the buffer has not enough remaining
+	 *                                 bytes
+	 */
+	default void getWKB(final ByteBuffer buffer) {
+		buffer.put(getWKB());
+	}
+
+	/**
+	 * Returns the envelope (bounding box) of this geometric object which allows
+	 * cheap spatial filtering without parsing the whole geometric object.
+	 *
+	 * @return the {@link GeoEnvelope} of this geometric object
+	 */
+	default GeoEnvelope getEnvelope() {
+		try {
+			return GeoCellFactory.createEnvelope(getWKB());
+		} catch (final IOException e) {
+			throw new IllegalArgumentException("Exception reading WKB: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Returns the index of the center of the envelope of this geometric object on
+	 * a Hilbert curve (see {@link HilbertCurve}). Sorting by the index clusters
+	 * the geometric objects spatially.
+	 *
+	 * @return the non negative Hilbert index or 0 for empty geometric objects
+	 */
+	default long getHilbertIndex() {
+		return HilbertCurve.index(getEnvelope(), getReferenceSystem().getExtent());
+	}
+
+	/**
+	 * Returns the fixed width binary sort key of this geometric object (see
+	 * {@link GeoSortKey}). Comparing the keys byte by byte groups the geometric
+	 * objects by their reference system and clusters them spatially. The default
+	 * implementation hashes the WKB as returned by {@link #getWKB()} which is why
+	 * implementations whose WKB is not canonical e.g. little endian should
+	 * override this method to get the same keys as the cells.
+	 *
+	 * @return the sort key with {@link GeoSortKey#LENGTH} bytes which must not be
+	 *         modified
+	 */
+	default byte[] getSortKey() {
+		return GeoSortKey.create(getReferenceSystem().hashCode(), getHilbertIndex(), Arrays.hashCode(getWKB()));
+	}
+
 	/**
 	 * Returns the coordinate reference system (CRS) of this geometric object that
 	 * is used to precisely measure locations on the surface of the Earth of these
@@ -0,0 +1,211 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.cell;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataValue;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.blob.BinaryObjectDataValue;
+import org.knime.core.data.container.BlobDataCell;
+import org.knime.core.data.convert.DataValueAccessMethod;
+import org.knime.geospatial.core.data.GeoEnvelope;
+import org.knime.geospatial.core.data.GeoValue;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
+
+/**
+ * Abstract {@link BlobDataCell} implementation that represents a large geometric
+ * object. The table container writes blob cells only once into a separate file
+ * and rows only reference them which keeps the table chunks small and copying
+ * rows cheap. The geometric object itself is held by the wrapped
+ * {@link AbstractGeoCell} which is also used for serialization.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ * @param <G> the wrapped {@link AbstractGeoCell} implementation
+ * @see GeoCellFactory#BLOB_THRESHOLD
+ */
+abstract class AbstractGeoBlobCell<G extends AbstractGeoCell> extends BlobDataCell
+		implements GeoValue, StringValue, BinaryObjectDataValue {
+
+	private static final long serialVersionUID = 1L;
+
+	private final G m_cell;
+
+	/**
+	 * @param cell the {@link AbstractGeoCell} to store as blob
+	 */
+	AbstractGeoBlobCell(final G cell) {
+		m_cell = cell;
+	}
+
+	/**
+	 * @return the wrapped {@link AbstractGeoCell}
+	 */
+	G getCell() {
+		return m_cell;
+	}
+
+	@Override
+	public String getGeometryType() {
+		return m_cell.getGeometryType();
+	}
+
+	@Override
+	public String getWKT() {
+		return m_cell.getWKT();
+	}
+
+	@Override
+	public byte[] getWKB() {
+		return m_cell.getWKB();
+	}
+
+	@Override
+	public int getWKBLength() {
+		return m_cell.getWKBLength();
+	}
+
+	@Override
+	public void getWKB(final ByteBuffer buffer) {
+		m_cell.getWKB(buffer);
+	}
+
+	@Override
+	public GeoEnvelope getEnvelope() {
+		return m_cell.getEnvelope();
+	}
+
+	@Override
+	public long getHilbertIndex() {
+		return m_cell.getHilbertIndex();
+	}
+
+	@Override
+	public byte[] getSortKey() {
+		return m_cell.getSortKey();
+	}
+
+	@Override
+	public GeoReferenceSystem getReferenceSystem() {
+		return m_cell.getReferenceSystem();
+	}
+
+	@Override
+	public String getStringValue() {
+		return getWKT();
+	}
+
+	@Override
+	public String toString() {
+		return getWKT();
+	}
+
+	@Override
+	public long length() {
+		return getWKBLength();
+	}
+
+	@Override
+	@DataValueAccessMethod(name = "InputStream (WKB)")
+	public InputStream openInputStream() throws IOException {
+		return new ByteArrayInputStream(getWKB());
+	}
+
+	@Override
+	protected boolean equalsDataCell(final DataCell dc) {
+		return m_cell.equals(((AbstractGeoBlobCell<?>) dc).m_cell);
+	}
+
+	@Override
+	protected boolean equalContent(final DataValue otherValue) {
+		return AbstractGeoCell.equalContent(this, otherValue);
+	}
+
+	@Override
+	public int hashCode() {
+		//same hash code as the wrapped cell since blob and non blob cells with the same content are equal
+		return m_cell.hashCode();
+	}
+
+	/**
+	 * {@link DataCellSerializer} implementation for {@link AbstractGeoBlobCell}s
+	 * that writes the wrapped cell with its {@link AbstractGeoCellSerializer} and
+	 * wraps the read cell again via {@link AbstractGeoCell#toBlobCell()}. The
+	 * blob cell implementations thus only bind the serializer of their wrapped
+	 * cell.
+	 *
+	 * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+	 * @param <G> the wrapped {@link AbstractGeoCell} implementation
+	 * @param <B> the concrete {@link AbstractGeoBlobCell} implementation
+	 */
+	abstract static class AbstractGeoBlobCellSerializer<G extends AbstractGeoCell, B extends AbstractGeoBlobCell<G>>
+			implements DataCellSerializer<B> {
+
+		private final AbstractGeoCellSerializer<G> m_serializer;
+
+		protected AbstractGeoBlobCellSerializer(final AbstractGeoCellSerializer<G> serializer) {
+			m_serializer = serializer;
+		}
+
+		@Override
+		public void serialize(final B cell, final DataCellDataOutput output) throws IOException {
+			m_serializer.serialize(cell.getCell(), output);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public B deserialize(final DataCellDataInput input) throws IOException {
+			// the blob variant is created independent of the size to keep the cell class of the stored cell
+			return (B) m_serializer.deserialize(input).toBlobCell();
+		}
+	}
+}
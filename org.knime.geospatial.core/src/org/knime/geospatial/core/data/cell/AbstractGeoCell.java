@@ -48,17 +48,18 @@
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.ref.SoftReference;
+import java.util.Arrays;
 import java.util.Objects;
 
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataValue;
 import org.knime.core.data.StringValue;
 import org.knime.core.data.blob.BinaryObjectDataValue;
 import org.knime.core.data.convert.DataValueAccessMethod;
 import org.knime.geospatial.core.data.GeoValue;
 import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
-
-import mil.nga.sf.Geometry;
+import org.knime.geospatial.core.data.util.GeoSortKey;
+import org.knime.geospatial.core.data.util.HilbertCurve;
 
 /**
  * Abstract {@link DataCell} implementation that represents a geometric object.
@@ -71,27 +72,19 @@ abstract class AbstractGeoCell extends DataCell implements GeoValue, StringValue
 
 	private final byte[] m_wkb;
 	private final GeoReferenceSystem m_refSystem;
-	//We need the geometry only internally for equals comparison which is why we use a soft reference
-	private SoftReference<Geometry> m_geometry = new SoftReference<Geometry>(null);
-
+	//lazily computed since cells are immutable, 0 if not yet computed
+	private transient int m_hashCode;
+
+	/**
+	 * @param wkb       the canonical WKB (see {@link CanonicalWKB}) or <code>null</code> if the subclass computes the WKB
+	 *                  in {@link #getWKB()} from its own representation
+	 * @param refSystem the {@link GeoReferenceSystem}
+	 */
 	AbstractGeoCell(final byte[] wkb, final GeoReferenceSystem refSystem) {
 		m_wkb = wkb;
 		m_refSystem = refSystem;
 	}
 
-	private Geometry getGeometry() {
-	    Geometry geo = m_geometry.get();
-	    if (geo == null) {
-	        try {
-                geo = GeoConverter.wkb2Geo(m_wkb);
-                m_geometry = new SoftReference<Geometry>(geo);
-            } catch (IOException e) {
-                throw new IllegalArgumentException("Exception converting WKB to geometry for details see log file", e);
-            }
-	    }
-	    return geo;
-	}
-
 	@Override
 	public String getGeometryType() {
 		try {
@@ -111,11 +104,27 @@ public String getWKT() {
 	}
 
 	// TODO: Return Stream???
+	/**
+	 * {@inheritDoc} Subclasses that do not store the WKB (see
+	 * {@link #AbstractGeoCell(byte[], GeoReferenceSystem)}) have to override this
+	 * method.
+	 */
 	@Override
 	public byte[] getWKB() {
 		return m_wkb;
 	}
 
+	@Override
+	public long getHilbertIndex() {
+		return HilbertCurve.index(getEnvelope(), m_refSystem.getExtent());
+	}
+
+	@Override
+	public byte[] getSortKey() {
+		// the hash equals the WKB part of the hash code of the cell
+		return GeoSortKey.create(m_refSystem.hashCode(), getHilbertIndex(), wkbHashCode());
+	}
+
 	@Override
 	public GeoReferenceSystem getReferenceSystem() {
 		return m_refSystem;
@@ -137,7 +146,7 @@ public String toString() {
      */
     @Override
     public long length() {
-        return m_wkb.length;
+        return getWKBLength();
     }
 
     /** Opens a new input stream on the byte content.
@@ -147,28 +156,76 @@ public long length() {
     @Override
     @DataValueAccessMethod(name = "InputStream (WKB)")
     public InputStream openInputStream() throws IOException {
-        return new ByteArrayInputStream(m_wkb);
+        return new ByteArrayInputStream(getWKB());
     }
 
 	@Override
 	protected boolean equalsDataCell(final DataCell dc) {
 		final AbstractGeoCell other = (AbstractGeoCell) dc;
-		if (!Objects.equals(m_refSystem, other.m_refSystem)) {
-		    return false;
+		if (m_hashCode != 0 && other.m_hashCode != 0 && m_hashCode != other.m_hashCode) {
+			return false;
 		}
-		//we have to compare the Geometry object since the WKB can be different if generated by different libraries
-		//e.g. our library and Snowflake!!!
-		return getGeometry().equals(other.getGeometry());
+		//the WKB is normalized when the cell is created which is why the WKB generated by different libraries
+		//e.g. our library and Snowflake can be compared byte wise
+		return Arrays.equals(getWKB(), other.getWKB()) && Objects.equals(m_refSystem, other.m_refSystem);
+	}
+
+	@Override
+	protected boolean equalContent(final DataValue otherValue) {
+		return equalContent(this, otherValue);
+	}
+
+	/**
+	 * Compares the content of a geometric cell with a value of a different
+	 * class e.g. a blob cell with a regular cell.
+	 *
+	 * @param value      the {@link GeoValue} of the cell
+	 * @param otherValue the {@link DataValue} to compare with
+	 * @return <code>true</code> if the other value is a {@link GeoValue} with the
+	 *         same WKB and {@link GeoReferenceSystem}
+	 */
+	static boolean equalContent(final GeoValue value, final DataValue otherValue) {
+		if (!(otherValue instanceof GeoValue)) {
+			return false;
+		}
+		final GeoValue other = (GeoValue) otherValue;
+		return Arrays.equals(value.getWKB(), other.getWKB())
+				&& Objects.equals(value.getReferenceSystem(), other.getReferenceSystem());
+	}
+
+	/**
+	 * Returns the {@link AbstractGeoBlobCell} variant of this cell that is used
+	 * for large geometric objects. Cells without a blob variant return
+	 * themselves.
+	 *
+	 * @return the blob variant of this cell or this cell
+	 * @see GeoCellFactory#BLOB_THRESHOLD
+	 */
+	DataCell toBlobCell() {
+		return this;
 	}
 
 	@Override
 	public int hashCode() {
-		// TODO: Maybe we should cache the hash code for efficiency
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + Objects.hash(m_refSystem);
-		result = prime * result + getGeometry().hashCode();
+		int result = m_hashCode;
+		if (result == 0) {
+			final int prime = 31;
+			result = 1;
+			result = prime * result + Objects.hash(m_refSystem);
+			result = prime * result + wkbHashCode();
+			m_hashCode = result;
+		}
 		return result;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Subclasses that compute the WKB in {@link #getWKB()} should override this
+	 * method to not create the WKB.
+	 *
+	 * @return the same hash as {@link Arrays#hashCode(byte[])} of the WKB
+	 */
+	int wkbHashCode() {
+		return Arrays.hashCode(getWKB());
+	}
+
+}
@@ -84,8 +84,8 @@ public DataCell createCell(final String s) {
 			return DataType.getMissingCell();
 		}
 		try {
-			final byte[] wkb = GeoConverter.wkt2wkb(trimmed);
-			return m_factory.createGeoCell(wkb, GeoReferenceSystem.DEFAULT);
+			return GeoCellFactory.toTableCell(
+					m_factory.createGeoCell(new WKTParser(trimmed).parseCanonical(), GeoReferenceSystem.DEFAULT));
 		} catch (final IOException e) {
 			throw new RuntimeException(e);
 		}
@@ -95,7 +95,8 @@ public DataCell createCell(final InputStream s) throws IOException {
         if (s == null) {
             return DataType.getMissingCell();
         }
-        return m_factory.createGeoCell(IOUtils.toByteArray(s), GeoReferenceSystem.DEFAULT);
+        return GeoCellFactory.toTableCell(
+                m_factory.createGeoCell(CanonicalWKB.of(IOUtils.toByteArray(s)), GeoReferenceSystem.DEFAULT));
     }
 
     @Override
@@ -45,24 +45,79 @@
 
 package org.knime.geospatial.core.data.cell;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellDataInput;
 import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DataCellSerializer;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
 import org.knime.geospatial.core.data.reference.GeoReferenceSystemFactory;
 
 
 /**
  * {@link DataCellSerializer} implementation that is used by all the different
  * {@link DataCell} implementations.
+ * <p>
+ * The initial format starts with the 4 byte length of the WKB. Since the length
+ * is never negative the first byte of the initial format never has the highest
+ * bit set. All later formats start with a single encoding byte that has the
+ * highest bit set and identifies the encoding of the geometric object.
+ * </p>
+ * <p>
+ * The encoding byte is followed by the variable length size and the UTF-8
+ * bytes of the CRS string. Each cell writes its reference system since cells
+ * might be read in a different order than they were written e.g. by random
+ * access or when rows are skipped.
+ * </p>
+ * <p>
+ * The WKB encoding writes the variable length WKB size followed by the WKB.
+ * WKBs of at least {@link #COMPRESSION_THRESHOLD} bytes are compressed if this
+ * reduces their size, which is indicated by the {@link #COMPRESSED_FLAG}. Before
+ * the compression the coordinates are delta encoded if supported, which is
+ * indicated by the {@link #DELTA_FLAG}.
+ * </p>
  *
  * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
  * @param <G> the concrete implementation of the {@link DataCell} class
  */
 abstract class AbstractGeoCellSerializer<G extends AbstractGeoCell> implements DataCellSerializer<G> {
 
+	/** Set in the first byte of all encodings apart from the initial format. */
+	private static final int ENCODING_FLAG = 0x80;
+
+	/** Set if the WKB is compressed with the {@link Deflater}. */
+	private static final int COMPRESSED_FLAG = 0x20;
+
+	/** Set if the coordinates of the WKB are delta encoded see {@link CoordinateDelta}. */
+	private static final int DELTA_FLAG = 0x10;
+
+	private static final int ENCODING_MASK = 0x0F;
+
+	/** Minimum number of WKB bytes to try compressing them. */
+	private static final int COMPRESSION_THRESHOLD = 1024;
+
+	private static final ThreadLocal<Deflater> DEFLATER =
+			ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+
+	private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+	/**
+	 * Fixed width encoding of points as their coordinates. The dimension flags of
+	 * the point are added to this value.
+	 */
+	private static final int POINT_ENCODING = 1;
+
+	/** Encoding of all geometric objects as length and WKB. */
+	private static final int WKB_ENCODING = 5;
+
 	private final InternalGeoCellFactory<G> m_factory;
 
 	protected AbstractGeoCellSerializer(final InternalGeoCellFactory<G> factory) {
@@ -71,17 +126,164 @@ protected AbstractGeoCellSerializer(final InternalGeoCellFactory<G> factory) {
 
 	@Override
 	public void serialize(final AbstractGeoCell cell, final DataCellDataOutput output) throws IOException {
-		output.writeInt(cell.getWKB().length);
-		output.write(cell.getWKB());
-		output.writeUTF(cell.getReferenceSystem().getCRS());
+		final String crs = cell.getReferenceSystem().getCRS();
+		if (cell instanceof GeoPointCell && ((GeoPointCell) cell).hasCoordinates()) {
+			final GeoPointCell point = (GeoPointCell) cell;
+			output.writeByte(ENCODING_FLAG | (POINT_ENCODING + point.getDimFlags()));
+			writeCRS(output, crs);
+			point.writeCoordinates(output);
+			return;
+		}
+		final byte[] wkb = cell.getWKB();
+		if (wkb.length >= COMPRESSION_THRESHOLD) {
+			final byte[] delta = CoordinateDelta.encode(wkb);
+			final byte[] payload = delta != null ? delta : wkb;
+			final byte[] compressed = compress(payload);
+			if (compressed != null) {
+				final int deltaFlag = delta != null ? DELTA_FLAG : 0;
+				output.writeByte(ENCODING_FLAG | COMPRESSED_FLAG | deltaFlag | WKB_ENCODING);
+				writeCRS(output, crs);
+				writeVarInt(output, payload.length);
+				writeVarInt(output, compressed.length);
+				output.write(compressed);
+				return;
+			}
+		}
+		output.writeByte(ENCODING_FLAG | WKB_ENCODING);
+		writeCRS(output, crs);
+		writeVarInt(output, wkb.length);
+		output.write(wkb);
+	}
+
+	/**
+	 * @param bytes the bytes to compress
+	 * @return the compressed bytes or <code>null</code> if the compressed bytes
+	 *         are not smaller
+	 */
+	private static byte[] compress(final byte[] bytes) {
+		final Deflater deflater = DEFLATER.get();
+		try {
+			deflater.setInput(bytes);
+			deflater.finish();
+			final byte[] buffer = new byte[bytes.length - 1];
+			final int length = deflater.deflate(buffer);
+			return deflater.finished() ? Arrays.copyOf(buffer, length) : null;
+		} finally {
+			deflater.reset();
+		}
 	}
 
+	private static byte[] decompress(final byte[] compressed, final int length) throws IOException {
+		final Inflater inflater = INFLATER.get();
+		try {
+			inflater.setInput(compressed);
+			final byte[] bytes = new byte[length];
+			int read = 0;
+			while (read < length && !inflater.finished()) {
+				final int n = inflater.inflate(bytes, read, length - read);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				read += n;
+			}
+			if (read != length) {
+				throw new IOException("Invalid compressed WKB");
+			}
+			return bytes;
+		} catch (final DataFormatException e) {
+			throw new IOException("Invalid compressed WKB", e);
+		} finally {
+			inflater.reset();
+		}
+	}
+
+	private static void writeCRS(final DataOutput output, final String crs) throws IOException {
+		// not limited to 64KB like writeUTF which matters for WKT-CRS strings
+		final byte[] bytes = crs.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(output, bytes.length);
+		output.write(bytes);
+	}
+
+	@SuppressWarnings("unchecked")
 	@Override
 	public G deserialize(final DataCellDataInput input) throws IOException {
-		final int length = input.readInt();
-		final byte[] wkb = new byte[length];
-		input.readFully(wkb);
-		final String refCoord = input.readUTF();
-		return m_factory.createGeoCell(wkb, GeoReferenceSystemFactory.create(refCoord));
+		final int first = input.readUnsignedByte();
+		if ((first & ENCODING_FLAG) == 0) {
+			// initial format that starts with the length of the WKB
+			final int length = first << 24 | input.readUnsignedByte() << 16 | input.readUnsignedShort();
+			final byte[] wkb = new byte[length];
+			input.readFully(wkb);
+			final String refCoord = input.readUTF();
+			// cells written by earlier versions might contain WKB that is not canonical
+			return m_factory.createGeoCell(CanonicalWKB.of(wkb), GeoReferenceSystemFactory.create(refCoord));
+		}
+		final GeoReferenceSystem refSystem = readCRS(input);
+		final int encoding = first & ENCODING_MASK;
+		if (encoding == WKB_ENCODING) {
+			final int length = readVarInt(input);
+			final byte[] wkb;
+			if ((first & COMPRESSED_FLAG) != 0) {
+				final byte[] compressed = new byte[readVarInt(input)];
+				input.readFully(compressed);
+				wkb = decompress(compressed, length);
+			} else {
+				wkb = new byte[length];
+				input.readFully(wkb);
+			}
+			if ((first & DELTA_FLAG) != 0) {
+				CoordinateDelta.decode(wkb);
+			}
+			// does not copy the WKB since it was canonical when it was written but collects the envelope
+			return m_factory.createGeoCell(CanonicalWKB.of(wkb), refSystem);
+		}
+		final int dimFlags = encoding - POINT_ENCODING;
+		if (dimFlags >= 0 && dimFlags <= (GeoPointCell.Z_FLAG | GeoPointCell.M_FLAG)) {
+			// only written by the serializer of the GeoPointCell
+			return (G) GeoPointCell.readCoordinates(input, dimFlags, refSystem);
+		}
+		throw new IOException("Unsupported geo cell encoding: " + first);
+	}
+
+	private static GeoReferenceSystem readCRS(final DataInput input) throws IOException {
+		final byte[] bytes = new byte[readVarInt(input)];
+		input.readFully(bytes);
+		// the reference systems are interned which is why equal CRS strings share the same instance
+		return GeoReferenceSystemFactory.create(new String(bytes, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Writes the given non negative value with 7 bits per byte and the highest bit
+	 * of each byte indicating that more bytes follow.
+	 *
+	 * @param output the {@link DataOutput} to write to
+	 * @param value  the non negative value
+	 * @throws IOException if the value can not be written
+	 */
+	static void writeVarInt(final DataOutput output, final int value) throws IOException {
+		int remaining = value;
+		while ((remaining & ~0x7F) != 0) {
+			output.writeByte((remaining & 0x7F) | 0x80);
+			remaining >>>= 7;
+		}
+		output.writeByte(remaining);
+	}
+
+	/**
+	 * Reads a value written by {@link #writeVarInt(DataOutput, int)}.
+	 *
+	 * @param input the {@link DataInput} to read from
+	 * @return the value
+	 * @throws IOException if the value can not be read
+	 */
+	static int readVarInt(final DataInput input) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+			final int b = input.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Invalid variable length integer");
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,403 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.cell;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.knime.geospatial.core.data.GeoEnvelope;
+import org.knime.geospatial.core.data.util.GeoSortKey;
+
+import mil.nga.sf.Geometry;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.GeometryType;
+import mil.nga.sf.util.GeometryEnvelopeBuilder;
+
+/**
+ * The canonical encoding of a Well Known Binary (WKB) geometry together with
+ * the {@link GeometryType} and the envelope that are collected while creating
+ * it. WKB produced by different libraries e.g. our library and Snowflake can
+ * describe the same geometric object with different bytes. The canonical
+ * encoding uses big endian byte order, ISO type codes without extended WKB
+ * flags or SRID and a single bit pattern for NaN coordinates. Two geometric
+ * objects are equal if and only if their canonical WKBs are equal.
+ * <p>
+ * The WKB is transcoded in a single pass without creating geometry objects. The
+ * output array is only allocated once the first byte differs from the input,
+ * which is why WKB that is already canonical is used as is. Geometry types that
+ * are not supported by the transcoder (e.g. curves) are re-encoded via the
+ * simple features library.
+ * </p>
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+final class CanonicalWKB {
+
+	private static final int UNSUPPORTED = -1;
+
+	private final byte[] m_input;
+
+	/** The length of the WKB at the start of the input array. */
+	private final int m_length;
+
+	/** <code>null</code> as long as the canonical encoding equals the input. */
+	private byte[] m_out;
+
+	private int m_outPos;
+
+	private byte[] m_wkb;
+
+	private GeometryType m_type;
+
+	private double m_minX = Double.POSITIVE_INFINITY;
+
+	private double m_minY = Double.POSITIVE_INFINITY;
+
+	private double m_maxX = Double.NEGATIVE_INFINITY;
+
+	private double m_maxY = Double.NEGATIVE_INFINITY;
+
+	private CanonicalWKB(final byte[] wkb, final int length) {
+		m_input = wkb;
+		m_length = length;
+	}
+
+	/**
+	 * Wraps WKB that is known to be canonical e.g. because it was written by the
+	 * {@link WKTParser} which collected the type and the envelope while writing.
+	 *
+	 * @param wkb  the canonical WKB
+	 * @param type the {@link GeometryType}
+	 * @param minX the minimum x coordinate or positive infinity if empty
+	 * @param minY the minimum y coordinate or positive infinity if empty
+	 * @param maxX the maximum x coordinate or negative infinity if empty
+	 * @param maxY the maximum y coordinate or negative infinity if empty
+	 * @return the {@link CanonicalWKB}
+	 */
+	static CanonicalWKB ofCanonical(final byte[] wkb, final GeometryType type, final double minX,
+			final double minY, final double maxX, final double maxY) {
+		final CanonicalWKB canonical = new CanonicalWKB(wkb, wkb.length);
+		canonical.m_wkb = wkb;
+		canonical.m_type = type;
+		canonical.m_minX = minX;
+		canonical.m_minY = minY;
+		canonical.m_maxX = maxX;
+		canonical.m_maxY = maxY;
+		return canonical;
+	}
+
+	/**
+	 * Creates the canonical encoding of the given WKB.
+	 *
+	 * @param wkb the Well Known Binary
+	 * @return the {@link CanonicalWKB}
+	 * @throws IOException if the WKB is invalid
+	 */
+	static CanonicalWKB of(final byte[] wkb) throws IOException {
+		final CanonicalWKB canonical = new CanonicalWKB(wkb, wkb.length);
+		final int end = canonical.normalize();
+		if (end == UNSUPPORTED) {
+			canonical.reencode();
+		} else if (canonical.m_out != null) {
+			canonical.m_wkb = Arrays.copyOf(canonical.m_out, canonical.m_outPos);
+		} else {
+			// drop trailing bytes that do not belong to the geometry
+			canonical.m_wkb = end == wkb.length ? wkb : Arrays.copyOf(wkb, end);
+		}
+		return canonical;
+	}
+
+	/**
+	 * Computes the hash (see {@link GeoSortKey#hash(byte[], int)}) of the
+	 * canonical encoding of the WKB at the start of the given array e.g. of a
+	 * reused buffer. WKB that is already canonical is hashed in place without
+	 * allocating an array.
+	 *
+	 * @param wkb    the array that starts with the Well Known Binary
+	 * @param length the length of the WKB
+	 * @return the hash of the canonical WKB
+	 * @throws IOException if the WKB is invalid
+	 */
+	static int hash(final byte[] wkb, final int length) throws IOException {
+		final CanonicalWKB canonical = new CanonicalWKB(wkb, length);
+		final int end = canonical.normalize();
+		if (end == UNSUPPORTED) {
+			canonical.reencode();
+			return GeoSortKey.hash(canonical.m_wkb, canonical.m_wkb.length);
+		}
+		if (canonical.m_out != null) {
+			return GeoSortKey.hash(canonical.m_out, canonical.m_outPos);
+		}
+		return GeoSortKey.hash(wkb, end);
+	}
+
+	/**
+	 * @return the canonical WKB which is the input array if it was already
+	 *         canonical
+	 */
+	byte[] getWKB() {
+		return m_wkb;
+	}
+
+	/**
+	 * @return the {@link GeometryType} of the geometric object
+	 */
+	GeometryType getGeometryType() {
+		return m_type;
+	}
+
+	/**
+	 * @return <code>true</code> if the geometric object has no coordinates apart
+	 *         from NaN
+	 */
+	boolean isEmpty() {
+		return m_minX > m_maxX;
+	}
+
+	/**
+	 * @return the minimum x coordinate
+	 */
+	double getMinX() {
+		return isEmpty() ? Double.NaN : m_minX;
+	}
+
+	/**
+	 * @return the minimum y coordinate
+	 */
+	double getMinY() {
+		return isEmpty() ? Double.NaN : m_minY;
+	}
+
+	/**
+	 * @return the maximum x coordinate
+	 */
+	double getMaxX() {
+		return isEmpty() ? Double.NaN : m_maxX;
+	}
+
+	/**
+	 * @return the maximum y coordinate
+	 */
+	double getMaxY() {
+		return isEmpty() ? Double.NaN : m_maxY;
+	}
+
+	/**
+	 * @return the {@link GeoEnvelope} of the geometric object
+	 */
+	GeoEnvelope getEnvelope() {
+		return isEmpty() ? GeoEnvelope.EMPTY : new GeoEnvelope(m_minX, m_minY, m_maxX, m_maxY);
+	}
+
+	/**
+	 * @return the end of the geometry or {@link #UNSUPPORTED}
+	 */
+	private int normalize() throws IOException {
+		final int end;
+		try {
+			end = normalizeGeometry(0);
+		} catch (final ArrayIndexOutOfBoundsException e) {
+			throw new IOException("Invalid WKB: geometry incomplete", e);
+		}
+		if (end > m_length) {
+			throw new IOException("Invalid WKB: geometry incomplete");
+		}
+		return end;
+	}
+
+	private void reencode() throws IOException {
+		final Geometry geo = GeoConverter
+				.wkb2Geo(m_length == m_input.length ? m_input : Arrays.copyOf(m_input, m_length));
+		m_wkb = GeoConverter.geo2wkb(geo);
+		m_type = geo.getGeometryType();
+		final GeometryEnvelope envelope = GeometryEnvelopeBuilder.buildEnvelope(geo);
+		// reset the coordinates collected before the unsupported type was found
+		m_minX = Double.POSITIVE_INFINITY;
+		m_minY = Double.POSITIVE_INFINITY;
+		m_maxX = Double.NEGATIVE_INFINITY;
+		m_maxY = Double.NEGATIVE_INFINITY;
+		if (envelope != null) {
+			m_minX = envelope.getMinX();
+			m_minY = envelope.getMinY();
+			m_maxX = envelope.getMaxX();
+			m_maxY = envelope.getMaxY();
+		}
+	}
+
+	private int normalizeGeometry(final int offset) throws IOException {
+		final int typeCode = WKBHeader.typeCode(m_input, offset);
+		final boolean littleEndian = WKBHeader.isLittleEndian(m_input, offset);
+		final GeometryType type = WKBHeader.geometryType(typeCode);
+		if (m_type == null) {
+			m_type = type;
+		}
+		final int dims = 2 + (WKBHeader.hasZ(typeCode) ? 1 : 0) + (WKBHeader.hasM(typeCode) ? 1 : 0);
+		int pos = offset + WKBHeader.SIZE;
+		if (WKBHeader.hasSRID(typeCode)) {
+			// the reference system is stored separately in the cell
+			pos += Integer.BYTES;
+		}
+		switch (type) {
+		case POINT:
+			writeHeader(typeCode);
+			return copyCoordinates(pos, littleEndian, dims, 1);
+		case LINESTRING:
+			writeHeader(typeCode);
+			return copyLineString(pos, littleEndian, dims);
+		case POLYGON:
+			writeHeader(typeCode);
+			return copyPolygon(pos, littleEndian, dims);
+		case MULTIPOINT:
+		case MULTILINESTRING:
+		case MULTIPOLYGON:
+		case GEOMETRYCOLLECTION:
+			writeHeader(typeCode);
+			return copyCollection(pos, littleEndian);
+		default:
+			return UNSUPPORTED;
+		}
+	}
+
+	private int copyLineString(final int offset, final boolean littleEndian, final int dims) throws IOException {
+		final int numPoints = readCount(offset, littleEndian, dims * Double.BYTES);
+		return copyCoordinates(offset + Integer.BYTES, littleEndian, dims, numPoints);
+	}
+
+	private int copyPolygon(final int offset, final boolean littleEndian, final int dims) throws IOException {
+		final int numRings = readCount(offset, littleEndian, Integer.BYTES);
+		int pos = offset + Integer.BYTES;
+		for (int i = 0; i < numRings; i++) {
+			pos = copyLineString(pos, littleEndian, dims);
+		}
+		return pos;
+	}
+
+	private int copyCollection(final int offset, final boolean littleEndian) throws IOException {
+		final int numGeometries = readCount(offset, littleEndian, WKBHeader.SIZE);
+		int pos = offset + Integer.BYTES;
+		for (int i = 0; i < numGeometries; i++) {
+			pos = normalizeGeometry(pos);
+			if (pos == UNSUPPORTED) {
+				return UNSUPPORTED;
+			}
+		}
+		return pos;
+	}
+
+	private int copyCoordinates(final int offset, final boolean littleEndian, final int dims, final int numPoints) {
+		final int end = offset + numPoints * dims * Double.BYTES;
+		for (int pos = offset; pos < end; pos += dims * Double.BYTES) {
+			final double x = WKBHeader.readDouble(m_input, pos, littleEndian);
+			final double y = WKBHeader.readDouble(m_input, pos + Double.BYTES, littleEndian);
+			// NaN coordinates belong to empty points and fail all comparisons
+			if (x < m_minX) {
+				m_minX = x;
+			}
+			if (x > m_maxX) {
+				m_maxX = x;
+			}
+			if (y < m_minY) {
+				m_minY = y;
+			}
+			if (y > m_maxY) {
+				m_maxY = y;
+			}
+			// doubleToLongBits collapses all NaN values into a single bit pattern
+			writeLong(Double.doubleToLongBits(x));
+			writeLong(Double.doubleToLongBits(y));
+			for (int i = 2; i < dims; i++) {
+				final double value = WKBHeader.readDouble(m_input, pos + i * Double.BYTES, littleEndian);
+				writeLong(Double.doubleToLongBits(value));
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Reads and writes the number of elements and checks that the remaining bytes
+	 * can hold them to fail fast on corrupt WKB.
+	 */
+	private int readCount(final int offset, final boolean littleEndian, final int minElementSize)
+			throws IOException {
+		final int count = WKBHeader.readInt(m_input, offset, littleEndian);
+		if (count < 0 || (long) count * minElementSize > m_length - offset - Integer.BYTES) {
+			throw new IOException("Invalid WKB: invalid number of elements " + count);
+		}
+		writeInt(count);
+		return count;
+	}
+
+	private void writeHeader(final int typeCode) {
+		// big endian
+		writeByte((byte) 0);
+		writeInt(WKBHeader.isoTypeCode(typeCode));
+	}
+
+	private void writeLong(final long value) {
+		writeInt((int) (value >>> 32));
+		writeInt((int) value);
+	}
+
+	private void writeInt(final int value) {
+		writeByte((byte) (value >>> 24));
+		writeByte((byte) (value >>> 16));
+		writeByte((byte) (value >>> 8));
+		writeByte((byte) value);
+	}
+
+	private void writeByte(final byte value) {
+		if (m_out == null) {
+			// the input and output positions are equal until the first difference
+			if (m_input[m_outPos] == value) {
+				m_outPos++;
+				return;
+			}
+			// the canonical WKB is never longer than the input since only the SRID is dropped
+			m_out = new byte[m_length];
+			System.arraycopy(m_input, 0, m_out, 0, m_outPos);
+		}
+		m_out[m_outPos++] = value;
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.cell;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import mil.nga.sf.GeometryType;
+
+/**
+ * Reversible transformation of canonical Well Known Binary (WKB) geometries
+ * that replaces each coordinate value with the difference of its bits to the
+ * bits of the same dimension of the previous coordinate of the same line or
+ * ring. Neighboring coordinates usually share the sign, the exponent and the
+ * leading bits of the mantissa which is why the transformed WKB contains many
+ * zero bytes and compresses much better. The header and the element counts are
+ * not changed.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+final class CoordinateDelta {
+
+	private static final int UNSUPPORTED = -1;
+
+	private CoordinateDelta() {
+		// Avoid object creation
+	}
+
+	/**
+	 * @param wkb the canonical WKB
+	 * @return the delta encoded copy of the WKB or <code>null</code> if the WKB
+	 *         contains geometry types that are not supported e.g. curves
+	 */
+	static byte[] encode(final byte[] wkb) {
+		final byte[] encoded = Arrays.copyOf(wkb, wkb.length);
+		try {
+			return transform(encoded, 0, true) == wkb.length ? encoded : null;
+		} catch (final IOException | ArrayIndexOutOfBoundsException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reverts {@link #encode(byte[])} in place.
+	 *
+	 * @param wkb the delta encoded WKB
+	 * @throws IOException if the WKB is invalid
+	 */
+	static void decode(final byte[] wkb) throws IOException {
+		try {
+			if (transform(wkb, 0, false) != wkb.length) {
+				throw new IOException("Invalid delta encoded WKB");
+			}
+		} catch (final ArrayIndexOutOfBoundsException e) {
+			throw new IOException("Invalid delta encoded WKB: geometry incomplete", e);
+		}
+	}
+
+	private static int transform(final byte[] wkb, final int offset, final boolean encode) throws IOException {
+		// canonical WKB is always big endian
+		final int typeCode = WKBHeader.readInt(wkb, offset + 1, false);
+		final GeometryType type = WKBHeader.geometryType(typeCode);
+		final int dims = 2 + (WKBHeader.hasZ(typeCode) ? 1 : 0) + (WKBHeader.hasM(typeCode) ? 1 : 0);
+		int pos = offset + WKBHeader.SIZE;
+		switch (type) {
+		case POINT:
+			// a single coordinate has no predecessor
+			return pos + dims * Double.BYTES;
+		case LINESTRING:
+			return transformSequence(wkb, pos, dims, encode);
+		case POLYGON:
+			final int numRings = WKBHeader.readInt(wkb, pos, false);
+			pos += Integer.BYTES;
+			for (int i = 0; i < numRings; i++) {
+				pos = transformSequence(wkb, pos, dims, encode);
+			}
+			return pos;
+		case MULTIPOINT:
+		case MULTILINESTRING:
+		case MULTIPOLYGON:
+		case GEOMETRYCOLLECTION:
+			final int numGeometries = WKBHeader.readInt(wkb, pos, false);
+			pos += Integer.BYTES;
+			for (int i = 0; i < numGeometries && pos != UNSUPPORTED; i++) {
+				pos = transform(wkb, pos, encode);
+			}
+			return pos;
+		default:
+			return UNSUPPORTED;
+		}
+	}
+
+	private static int transformSequence(final byte[] wkb, final int offset, final int dims,
+			final boolean encode) {
+		final int numPoints = WKBHeader.readInt(wkb, offset, false);
+		final long[] previous = new long[dims];
+		int pos = offset + Integer.BYTES;
+		for (int i = 0; i < numPoints; i++) {
+			for (int d = 0; d < dims; d++) {
+				final long bits = WKBHeader.readLong(wkb, pos, false);
+				if (encode) {
+					writeLong(wkb, pos, bits - previous[d]);
+					previous[d] = bits;
+				} else {
+					previous[d] += bits;
+					writeLong(wkb, pos, previous[d]);
+				}
+				pos += Double.BYTES;
+			}
+		}
+		return pos;
+	}
+
+	private static void writeLong(final byte[] wkb, final int offset, final long value) {
+		for (int i = 0; i < Long.BYTES; i++) {
+			wkb[offset + i] = (byte) (value >>> (56 - 8 * i));
+		}
+	}
+}
@@ -0,0 +1,320 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.cell;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.knime.core.table.access.DoubleAccess.DoubleReadAccess;
+import org.knime.core.table.access.DoubleAccess.DoubleWriteAccess;
+import org.knime.core.table.access.ListAccess.ListReadAccess;
+import org.knime.core.table.access.ListAccess.ListWriteAccess;
+import org.knime.core.table.access.ReadAccess;
+import org.knime.core.table.access.StructAccess.StructReadAccess;
+import org.knime.core.table.access.StructAccess.StructWriteAccess;
+import org.knime.core.table.access.WriteAccess;
+import org.knime.core.table.schema.DataSpec;
+import org.knime.core.table.schema.ListDataSpec;
+import org.knime.core.table.schema.StructDataSpec;
+import org.knime.core.table.schema.traits.DataTraits;
+import org.knime.core.table.schema.traits.DefaultDataTraits;
+import org.knime.core.table.schema.traits.DefaultListDataTraits;
+import org.knime.core.table.schema.traits.DefaultStructDataTraits;
+import org.knime.geospatial.core.data.GeoEnvelope;
+
+import mil.nga.sf.GeometryType;
+
+/**
+ * Converts between canonical Well Known Binary (WKB) geometries and the
+ * GeoArrow native layout that stores the coordinates of a two dimensional
+ * geometry as nested lists of <code>struct&lt;x, y&gt;</code>. The nesting
+ * depth depends on the geometry type e.g. a line string is a list of
+ * coordinates, a polygon a list of rings and a multi polygon a list of
+ * polygons. Multi geometries do not store the header of their elements since it
+ * is given by the type of the multi geometry. Geometries with z or m values
+ * have no native layout since the GeoArrow layout of a column has a fixed
+ * dimension.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ * @see <a href="https://geoarrow.org/format.html">GeoArrow</a>
+ */
+final class GeoArrowConverter {
+
+	/** Depth of the geometry types that can not be stored in the native layout. */
+	static final int UNSUPPORTED = -1;
+
+	private static final int X = 0;
+
+	private static final int Y = 1;
+
+	private GeoArrowConverter() {
+		// Avoid object creation
+	}
+
+	/**
+	 * Returns the number of nested lists that are needed to store the coordinates
+	 * of the given geometry type in the native layout.
+	 *
+	 * @param typeCode the ISO type code of the geometry
+	 * @return the nesting depth or {@link #UNSUPPORTED} if the geometry has no
+	 *         native layout e.g. curve polygons, collections and geometries with z
+	 *         or m values
+	 */
+	static int depth(final int typeCode) {
+		if (WKBHeader.hasZ(typeCode) || WKBHeader.hasM(typeCode)) {
+			return UNSUPPORTED;
+		}
+		try {
+			switch (WKBHeader.geometryType(typeCode)) {
+			case POINT:
+				return 0;
+			case LINESTRING:
+			case CIRCULARSTRING:
+			case MULTIPOINT:
+				return 1;
+			case POLYGON:
+			case TRIANGLE:
+			case MULTILINESTRING:
+				return 2;
+			case MULTIPOLYGON:
+				return 3;
+			default:
+				return UNSUPPORTED;
+			}
+		} catch (final IOException e) {
+			return UNSUPPORTED;
+		}
+	}
+
+	/**
+	 * @param depth the nesting depth of the coordinate lists
+	 * @return the {@link DataSpec} of the coordinates
+	 */
+	static DataSpec spec(final int depth) {
+		DataSpec spec = new StructDataSpec(DataSpec.doubleSpec(), DataSpec.doubleSpec());
+		for (int i = 0; i < depth; i++) {
+			spec = new ListDataSpec(spec);
+		}
+		return spec;
+	}
+
+	/**
+	 * @param depth the nesting depth of the coordinate lists
+	 * @return the {@link DataTraits} of the coordinates
+	 */
+	static DataTraits traits(final int depth) {
+		DataTraits traits = DefaultStructDataTraits.builder()//
+				.addInnerTraits(DefaultDataTraits.EMPTY)//
+				.addInnerTraits(DefaultDataTraits.EMPTY)//
+				.build();
+		for (int i = 0; i < depth; i++) {
+			traits = new DefaultListDataTraits(traits);
+		}
+		return traits;
+	}
+
+	/**
+	 * Writes the coordinates of the given canonical WKB into the native layout.
+	 * The caller has to ensure that the {@link #depth(int)} of the geometry type
+	 * matches the layout of the access.
+	 *
+	 * @param wkb    the canonical WKB
+	 * @param access the {@link WriteAccess} of the coordinates
+	 * @throws IOException if the WKB is invalid
+	 */
+	static void write(final byte[] wkb, final WriteAccess access) throws IOException {
+		// canonical WKB is always big endian and uses ISO type codes
+		final int typeCode = WKBHeader.readInt(wkb, 1, false);
+		write(wkb, WKBHeader.SIZE, WKBHeader.geometryType(typeCode), access);
+	}
+
+	private static int write(final byte[] wkb, final int offset, final GeometryType type,
+			final WriteAccess access) {
+		if (type == GeometryType.POINT) {
+			final StructWriteAccess structAccess = (StructWriteAccess) access;
+			structAccess.<DoubleWriteAccess> getWriteAccess(X).setDoubleValue(WKBHeader.readDouble(wkb, offset, false));
+			structAccess.<DoubleWriteAccess> getWriteAccess(Y)
+					.setDoubleValue(WKBHeader.readDouble(wkb, offset + Double.BYTES, false));
+			return offset + 2 * Double.BYTES;
+		}
+		final ListWriteAccess listAccess = (ListWriteAccess) access;
+		final int size = WKBHeader.readInt(wkb, offset, false);
+		int pos = offset + Integer.BYTES;
+		listAccess.create(size);
+		final GeometryType elementType = elementType(type);
+		final WriteAccess elementAccess = listAccess.getWriteAccess();
+		for (int i = 0; i < size; i++) {
+			listAccess.setWriteIndex(i);
+			if (isMulti(type)) {
+				pos += WKBHeader.SIZE;
+			}
+			pos = write(wkb, pos, elementType, elementAccess);
+		}
+		return pos;
+	}
+
+	/**
+	 * Creates the canonical WKB from the coordinates that are stored in the native
+	 * layout.
+	 *
+	 * @param typeCode the ISO type code of the geometry
+	 * @param access   the {@link ReadAccess} of the coordinates
+	 * @return the canonical WKB
+	 * @throws IOException if the type code is invalid
+	 */
+	static byte[] toWKB(final int typeCode, final ReadAccess access) throws IOException {
+		final GeometryType type = WKBHeader.geometryType(typeCode);
+		final ByteBuffer wkb = ByteBuffer.allocate(WKBHeader.SIZE + length(type, access));
+		wkb.put((byte) 0).putInt(typeCode);
+		toWKB(wkb, type, typeCode, access);
+		return wkb.array();
+	}
+
+	private static int length(final GeometryType type, final ReadAccess access) {
+		if (type == GeometryType.POINT) {
+			return 2 * Double.BYTES;
+		}
+		final ListReadAccess listAccess = (ListReadAccess) access;
+		final int size = listAccess.size();
+		final GeometryType elementType = elementType(type);
+		final int headerSize = isMulti(type) ? WKBHeader.SIZE : 0;
+		if (elementType == GeometryType.POINT) {
+			return Integer.BYTES + size * (headerSize + 2 * Double.BYTES);
+		}
+		int length = Integer.BYTES + size * headerSize;
+		final ReadAccess elementAccess = listAccess.getAccess();
+		for (int i = 0; i < size; i++) {
+			listAccess.setIndex(i);
+			length += length(elementType, elementAccess);
+		}
+		return length;
+	}
+
+	private static void toWKB(final ByteBuffer wkb, final GeometryType type, final int typeCode,
+			final ReadAccess access) {
+		if (type == GeometryType.POINT) {
+			final StructReadAccess structAccess = (StructReadAccess) access;
+			wkb.putDouble(structAccess.<DoubleReadAccess> getAccess(X).getDoubleValue());
+			wkb.putDouble(structAccess.<DoubleReadAccess> getAccess(Y).getDoubleValue());
+			return;
+		}
+		final ListReadAccess listAccess = (ListReadAccess) access;
+		final int size = listAccess.size();
+		wkb.putInt(size);
+		final GeometryType elementType = elementType(type);
+		final ReadAccess elementAccess = listAccess.getAccess();
+		for (int i = 0; i < size; i++) {
+			listAccess.setIndex(i);
+			final int elementTypeCode;
+			if (isMulti(type)) {
+				// the ISO codes of point, line string and polygon are the codes of their multi type minus 3
+				elementTypeCode = typeCode - 3;
+				wkb.put((byte) 0).putInt(elementTypeCode);
+			} else {
+				elementTypeCode = typeCode;
+			}
+			toWKB(wkb, elementType, elementTypeCode, elementAccess);
+		}
+	}
+
+	private static boolean isMulti(final GeometryType type) {
+		return type == GeometryType.MULTIPOINT || type == GeometryType.MULTILINESTRING
+				|| type == GeometryType.MULTIPOLYGON;
+	}
+
+	private static GeometryType elementType(final GeometryType type) {
+		switch (type) {
+		case LINESTRING:
+		case CIRCULARSTRING:
+		case MULTIPOINT:
+			return GeometryType.POINT;
+		case POLYGON:
+		case TRIANGLE:
+		case MULTILINESTRING:
+			return GeometryType.LINESTRING;
+		default:
+			return GeometryType.POLYGON;
+		}
+	}
+
+	/**
+	 * Computes the envelope directly from the coordinates that are stored in the
+	 * native layout.
+	 *
+	 * @param depth  the nesting depth of the coordinate lists
+	 * @param access the {@link ReadAccess} of the coordinates
+	 * @return the {@link GeoEnvelope} of the coordinates
+	 */
+	static GeoEnvelope envelope(final int depth, final ReadAccess access) {
+		final double[] envelope = { Double.NaN, Double.NaN, Double.NaN, Double.NaN };
+		envelope(depth, access, envelope);
+		if (Double.isNaN(envelope[0])) {
+			return GeoEnvelope.EMPTY;
+		}
+		return new GeoEnvelope(envelope[0], envelope[1], envelope[2], envelope[3]);
+	}
+
+	private static void envelope(final int depth, final ReadAccess access, final double[] envelope) {
+		if (depth == 0) {
+			final StructReadAccess structAccess = (StructReadAccess) access;
+			final double x = structAccess.<DoubleReadAccess> getAccess(X).getDoubleValue();
+			final double y = structAccess.<DoubleReadAccess> getAccess(Y).getDoubleValue();
+			// empty points are stored as NaN coordinates
+			if (!Double.isNaN(x) && !Double.isNaN(y)) {
+				envelope[0] = Double.isNaN(envelope[0]) ? x : Math.min(envelope[0], x);
+				envelope[1] = Double.isNaN(envelope[1]) ? y : Math.min(envelope[1], y);
+				envelope[2] = Double.isNaN(envelope[2]) ? x : Math.max(envelope[2], x);
+				envelope[3] = Double.isNaN(envelope[3]) ? y : Math.max(envelope[3], y);
+			}
+			return;
+		}
+		final ListReadAccess listAccess = (ListReadAccess) access;
+		final ReadAccess elementAccess = listAccess.getAccess();
+		for (int i = 0, size = listAccess.size(); i < size; i++) {
+			listAccess.setIndex(i);
+			envelope(depth - 1, elementAccess, envelope);
+		}
+	}
+}
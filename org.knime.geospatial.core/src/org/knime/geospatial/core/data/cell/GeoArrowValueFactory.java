@@ -0,0 +1,272 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.cell;
+
+import java.io.IOException;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.v2.ReadValue;
+import org.knime.core.data.v2.ValueFactory;
+import org.knime.core.data.v2.WriteValue;
+import org.knime.core.table.access.IntAccess.IntReadAccess;
+import org.knime.core.table.access.IntAccess.IntWriteAccess;
+import org.knime.core.table.access.ReadAccess;
+import org.knime.core.table.access.StringAccess.StringWriteAccess;
+import org.knime.core.table.access.StructAccess.StructReadAccess;
+import org.knime.core.table.access.StructAccess.StructWriteAccess;
+import org.knime.core.table.access.VarBinaryAccess.VarBinaryReadAccess;
+import org.knime.core.table.access.VarBinaryAccess.VarBinaryWriteAccess;
+import org.knime.core.table.access.WriteAccess;
+import org.knime.core.table.schema.DataSpec;
+import org.knime.core.table.schema.StructDataSpec;
+import org.knime.core.table.schema.traits.DataTraits;
+import org.knime.core.table.schema.traits.DefaultDataTraits;
+import org.knime.core.table.schema.traits.DefaultStructDataTraits;
+import org.knime.geospatial.core.data.GeoEnvelope;
+import org.knime.geospatial.core.data.GeoValue;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
+
+/**
+ * Alternative {@link ValueFactory} implementation that stores the coordinates
+ * in the GeoArrow native layout (see {@link GeoArrowConverter}) instead of an
+ * opaque WKB blob. The coordinates are stored contiguously in the Arrow buffers
+ * and can be read without decoding WKB. The layout consists of the ISO type
+ * code of the geometry, the nested coordinate lists, the WKB which is only set
+ * for geometries without native layout (e.g. curve polygons or geometries with
+ * z or m values) and the dictionary encoded CRS.
+ * <p>
+ * The factory is registered as alternative to the default factory of its data
+ * type. KNIME only writes the default factory, the Python integration writes
+ * this layout instead if the environment variable
+ * <code>KNIME_GEOSPATIAL_GEOARROW</code> is <code>true</code>.
+ * </p>
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ * @see <a href="https://geoarrow.org/format.html">GeoArrow</a>
+ */
+class GeoArrowValueFactory implements ValueFactory<StructReadAccess, StructWriteAccess> {
+
+	private final int m_depth;
+
+	/**
+	 * @param depth the nesting depth of the coordinate lists of the geometry type
+	 *              see {@link GeoArrowConverter#depth(int)}
+	 */
+	GeoArrowValueFactory(final int depth) {
+		m_depth = depth;
+	}
+
+	@Override
+	public GeoArrowWriteValue createWriteValue(final StructWriteAccess access) {
+		return new GeoArrowWriteValue(access, m_depth);
+	}
+
+	@Override
+	public GeoArrowReadValue createReadValue(final StructReadAccess access) {
+		return new GeoArrowReadValue(access, m_depth);
+	}
+
+	@Override
+	public DataSpec getSpec() {
+		return new StructDataSpec(DataSpec.intSpec(), GeoArrowConverter.spec(m_depth), DataSpec.varBinarySpec(),
+				DataSpec.stringSpec());
+	}
+
+	@Override
+	public DataTraits getTraits() {
+		return DefaultStructDataTraits.builder()//
+				.addInnerTraits(DefaultDataTraits.EMPTY)//
+				.addInnerTraits(GeoArrowConverter.traits(m_depth))//
+				.addInnerTraits(DefaultDataTraits.EMPTY)//
+				.addInnerTraits(GeoReferenceSystemReader.TRAITS) //
+				.build();
+	}
+
+	/**
+	 * {@link ReadValue} for {@link GeoValue}s in the GeoArrow native layout.
+	 *
+	 * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+	 */
+	public static final class GeoArrowReadValue implements ReadValue, GeoValue {
+
+		private final int m_depth;
+
+		private final IntReadAccess m_typeCode;
+
+		private final ReadAccess m_coordinates;
+
+		private final VarBinaryReadAccess m_wkb;
+
+		private final GeoReferenceSystemReader m_refSystem;
+
+		GeoArrowReadValue(final StructReadAccess structAccess, final int depth) {
+			m_depth = depth;
+			m_typeCode = structAccess.getAccess(0);
+			m_coordinates = structAccess.getAccess(1);
+			m_wkb = structAccess.getAccess(2);
+			m_refSystem = new GeoReferenceSystemReader(structAccess.getAccess(3));
+		}
+
+		/**
+		 * @return <code>true</code> if the geometry of the current row is stored in
+		 *         the native layout
+		 */
+		private boolean isNative() {
+			return m_wkb.isMissing();
+		}
+
+		@Override
+		public String getGeometryType() {
+			try {
+				return WKBHeader.geometryType(m_typeCode.getIntValue()).getName();
+			} catch (final IOException e) {
+				throw new IllegalArgumentException("Exception converting WKB to geometry for details see log file", e);
+			}
+		}
+
+		@Override
+		public String getWKT() {
+			try {
+				return GeoConverter.wkb2wkt(getWKB());
+			} catch (final IOException e) {
+				// this should not happen since the GeoCell was already create via the factory
+				// before
+				throw new IllegalArgumentException("Exception converting WKB to WKT: " + e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public byte[] getWKB() {
+			if (!isNative()) {
+				return m_wkb.getByteArray();
+			}
+			try {
+				return GeoArrowConverter.toWKB(m_typeCode.getIntValue(), m_coordinates);
+			} catch (final IOException e) {
+				// this should not happen since the type code was written from valid WKB
+				throw new IllegalArgumentException("Exception creating WKB: " + e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public GeoEnvelope getEnvelope() {
+			if (isNative()) {
+				// computed directly from the coordinate buffers without creating the WKB
+				return GeoArrowConverter.envelope(m_depth, m_coordinates);
+			}
+			try {
+				return CanonicalWKB.of(getWKB()).getEnvelope();
+			} catch (final IOException e) {
+				// this should not happen since the GeoCell was already create via the factory
+				// before
+				throw new IllegalArgumentException("Exception reading WKB: " + e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public GeoReferenceSystem getReferenceSystem() {
+			return m_refSystem.read();
+		}
+
+		@Override
+		public DataCell getDataCell() {
+			try {
+				return GeoCellFactory.createCell(getWKB(), getReferenceSystem());
+			} catch (final IOException e) {
+				// this should not happen since the GeoCell was already create via the factory
+				// before
+				throw new IllegalArgumentException("Exception creating GeoCell: " + e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * {@link WriteValue} for {@link GeoValue}s in the GeoArrow native layout.
+	 *
+	 * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+	 */
+	public static final class GeoArrowWriteValue implements WriteValue<GeoValue> {
+
+		private final int m_depth;
+
+		private final IntWriteAccess m_typeCode;
+
+		private final WriteAccess m_coordinates;
+
+		private final VarBinaryWriteAccess m_wkb;
+
+		private final StringWriteAccess m_refSystem;
+
+		GeoArrowWriteValue(final StructWriteAccess structAccess, final int depth) {
+			m_depth = depth;
+			m_typeCode = structAccess.getWriteAccess(0);
+			m_coordinates = structAccess.getWriteAccess(1);
+			m_wkb = structAccess.getWriteAccess(2);
+			m_refSystem = structAccess.getWriteAccess(3);
+		}
+
+		@Override
+		public void setValue(final GeoValue value) {
+			try {
+				// the WKB of all geo values is canonical which is why this usually does not copy
+				final byte[] wkb = CanonicalWKB.of(value.getWKB()).getWKB();
+				final int typeCode = WKBHeader.readInt(wkb, 1, false);
+				m_typeCode.setIntValue(typeCode);
+				if (GeoArrowConverter.depth(typeCode) == m_depth) {
+					GeoArrowConverter.write(wkb, m_coordinates);
+					m_wkb.setMissing();
+				} else {
+					m_coordinates.setMissing();
+					m_wkb.setByteArray(wkb);
+				}
+			} catch (final IOException e) {
+				// this should not happen since the GeoCell was already create via the factory
+				// before
+				throw new IllegalArgumentException("Exception converting WKB: " + e.getMessage(), e);
+			}
+			m_refSystem.setStringValue(value.getReferenceSystem().getCRS());
+		}
+	}
+}
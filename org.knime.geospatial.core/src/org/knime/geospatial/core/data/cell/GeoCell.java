@@ -62,7 +62,7 @@
  *
  * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
  */
-public class GeoCell extends AbstractGeoCell {
+public class GeoCell extends AbstractEnvelopeGeoCell {
 
 	private static final long serialVersionUID = 1L;
 
@@ -74,13 +74,18 @@ public class GeoCell extends AbstractGeoCell {
 	/**
 	 * Creates a new instance.
 	 *
-	 * @param wkb the WKB
+	 * @param wkb the canonical WKB
 	 * @param refCoord the Geo Reference System
 	 */
-	GeoCell(final byte[] wkb, final GeoReferenceSystem refCoord) {
+	GeoCell(final CanonicalWKB wkb, final GeoReferenceSystem refCoord) {
 		super(wkb, refCoord);
 	}
 
+	@Override
+	GeoBlobCell toBlobCell() {
+		return new GeoBlobCell(this);
+	}
+
 	/**
 	 * Factory for {@link GeoCell}s.
 	 *
@@ -138,11 +143,28 @@ public CellSerializer() {
 	}
 
 	/**
-	 * {@link ValueFactory} implementation of this {@link DataCell} implementation.
+	 * {@link ValueFactory} implementation of this {@link DataCell} implementation
+	 * that only stores the WKB and the CRS. Only used to read tables that were
+	 * written before the {@link EnvelopeValueFactory} was introduced.
 	 *
 	 * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
 	 */
 	public static class ValueFactory extends GeoValueFactory<GeoCell> {
 		// no data cell specific implementation needed
 	}
+
+	/**
+	 * {@link ValueFactory} implementation of this {@link DataCell} implementation
+	 * that stores the envelope next to the WKB and the CRS.
+	 *
+	 * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+	 */
+	public static class EnvelopeValueFactory extends GeoValueFactory<GeoCell> {
+		/**
+		 * Constructor for class EnvelopeValueFactory.
+		 */
+		public EnvelopeValueFactory() {
+			super(true);
+		}
+	}
 }
@@ -48,10 +48,12 @@
 import java.io.IOException;
 
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataValue;
 import org.knime.core.node.NodeLogger;
+import org.knime.geospatial.core.data.GeoEnvelope;
+import org.knime.geospatial.core.data.GeoValue;
 import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
 
-import mil.nga.sf.Geometry;
 import mil.nga.sf.GeometryType;
 
 /**
@@ -72,6 +74,15 @@ public class GeoCellFactory {
 
 	private static final NodeLogger LOGGER = NodeLogger.getLogger(GeoCellFactory.class);
 
+	/**
+	 * Number of WKB bytes from which on {@link #createCell(byte[], GeoReferenceSystem)}
+	 * creates a blob cell (e.g. {@link GeoMultiPolygonBlobCell}) that is written
+	 * only once into a separate file and only referenced from the rows. The
+	 * threshold can be changed with the system property
+	 * <code>knime.geospatial.blob.threshold</code> and defaults to 1 MB.
+	 */
+	public static final int BLOB_THRESHOLD = Integer.getInteger("knime.geospatial.blob.threshold", 1024 * 1024);
+
 	/**
 	 * Creates the concrete {@link DataCell} instance for the given geometric
 	 * object.
@@ -88,34 +99,129 @@ public class GeoCellFactory {
 	@SuppressWarnings("unchecked")
 	public static <C extends AbstractGeoCell> C create(final String wktVal, final GeoReferenceSystem refSystem)
 			throws IOException {
-		final Geometry geo = GeoConverter.wkt2Geo(wktVal);
-		final GeometryType geometryType = geo.getGeometryType();
-		final byte[] wkb = GeoConverter.geo2wkb(geo);
-
-		return (C) create(geometryType, wkb, refSystem);
+		final CanonicalWKB wkb = new WKTParser(wktVal).parseCanonical();
+		return (C) create(wkb.getGeometryType(), wkb, refSystem);
 	}
 
 	/**
 	 * Creates the concrete {@link DataCell} instance for the given geometric
-	 * object.
+	 * object. The WKB is converted into its canonical encoding which also checks
+	 * its structure but does not create the geometric object. Use
+	 * {@link #create(byte[], GeoReferenceSystem, boolean)} for WKB from untrusted
+	 * sources.
 	 *
 	 * @param wkb       Well Known Binary representation of the geometric object
 	 *                  (WKB)
 	 * @param refSystem the {@link GeoReferenceSystem}
 	 * @return the
-	 * @throws IOException if the wktVal or the refSystemVal are no valid WKT
+	 * @throws IOException if the wkb is invalid
 	 * @see <a href=
 	 *      "https://en.wikipedia.org/wiki/Well-known_text_representation_of_geometry#Well-known_binary">WKB</a>
 	 */
-	@SuppressWarnings("unchecked")
 	public static <C extends AbstractGeoCell> C create(final byte[] wkb, final GeoReferenceSystem refSystem)
 			throws IOException {
-		final Geometry geo = GeoConverter.wkb2Geo(wkb);
-		final GeometryType geometryType = geo.getGeometryType();
-		return (C) create(geometryType, wkb, refSystem);
+		return create(wkb, refSystem, false);
+	}
+
+	/**
+	 * Creates the concrete {@link DataCell} instance for the given geometric
+	 * object. The WKB is converted into its canonical encoding.
+	 *
+	 * @param wkb       Well Known Binary representation of the geometric object
+	 *                  (WKB)
+	 * @param refSystem the {@link GeoReferenceSystem}
+	 * @param validate  <code>true</code> if the geometric object should be created
+	 *                  to ensure that the WKB is valid e.g. if it comes from an
+	 *                  untrusted source, <code>false</code> if only the structure
+	 *                  of the WKB should be checked
+	 * @return the
+	 * @throws IOException if the wkb is invalid
+	 * @see <a href=
+	 *      "https://en.wikipedia.org/wiki/Well-known_text_representation_of_geometry#Well-known_binary">WKB</a>
+	 */
+	@SuppressWarnings("unchecked")
+	public static <C extends AbstractGeoCell> C create(final byte[] wkb, final GeoReferenceSystem refSystem,
+			final boolean validate) throws IOException {
+		final CanonicalWKB canonical = CanonicalWKB.of(wkb);
+		final GeometryType geometryType;
+		if (validate) {
+			geometryType = GeoConverter.wkb2Geo(canonical.getWKB()).getGeometryType();
+		} else {
+			geometryType = canonical.getGeometryType();
+		}
+		return (C) create(geometryType, canonical, refSystem);
+	}
+
+	/**
+	 * Creates the {@link DataCell} instance for the given geometric object that
+	 * should be added to a table. In contrast to
+	 * {@link #create(String, GeoReferenceSystem)} a blob cell is returned if the
+	 * WKB exceeds the {@link #BLOB_THRESHOLD}.
+	 *
+	 * @param wktVal    Well Known Text representation of the geometric object (WKT)
+	 * @param refSystem the {@link GeoReferenceSystem}
+	 * @return the cell that implements the {@link DataValue} of the geometric type
+	 * @throws IOException if the wktVal is no valid WKT
+	 */
+	public static DataCell createCell(final String wktVal, final GeoReferenceSystem refSystem) throws IOException {
+		return toTableCell(create(wktVal, refSystem));
+	}
+
+	/**
+	 * Creates the {@link DataCell} instance for the given geometric object that
+	 * should be added to a table. In contrast to
+	 * {@link #create(byte[], GeoReferenceSystem)} a blob cell is returned if the
+	 * WKB exceeds the {@link #BLOB_THRESHOLD}.
+	 *
+	 * @param wkb       Well Known Binary representation of the geometric object
+	 *                  (WKB)
+	 * @param refSystem the {@link GeoReferenceSystem}
+	 * @return the cell that implements the {@link DataValue} of the geometric type
+	 * @throws IOException if the wkb is invalid
+	 */
+	public static DataCell createCell(final byte[] wkb, final GeoReferenceSystem refSystem) throws IOException {
+		return toTableCell(create(wkb, refSystem));
+	}
+
+	/**
+	 * Computes the envelope of the given WKB without creating the geometric
+	 * object e.g. for {@link GeoValue} implementations that do not store it.
+	 *
+	 * @param wkb Well Known Binary representation of the geometric object (WKB)
+	 * @return the {@link GeoEnvelope} of the geometric object
+	 * @throws IOException if the wkb is invalid
+	 */
+	public static GeoEnvelope createEnvelope(final byte[] wkb) throws IOException {
+		return CanonicalWKB.of(wkb).getEnvelope();
+	}
+
+	/**
+	 * Returns the canonical WKB (see {@link CanonicalWKB}) of the given value
+	 * which is equal for equal geometric objects e.g. to compare values
+	 * consistent with the equals method of the cells. The cells already store the
+	 * canonical WKB which is returned as is.
+	 *
+	 * @param value the {@link GeoValue}
+	 * @return the canonical Well Known Binary representation (WKB)
+	 * @throws IOException if the wkb is invalid
+	 */
+	public static byte[] createCanonicalWKB(final GeoValue value) throws IOException {
+		if (value instanceof AbstractGeoCell || value instanceof AbstractGeoBlobCell) {
+			return value.getWKB();
+		}
+		return CanonicalWKB.of(value.getWKB()).getWKB();
+	}
+
+	/**
+	 * @param cell the {@link AbstractGeoCell}
+	 * @return the blob variant of the cell if its WKB exceeds the
+	 *         {@link #BLOB_THRESHOLD} otherwise the cell itself
+	 */
+	static DataCell toTableCell(final AbstractGeoCell cell) {
+		return cell.getWKBLength() >= BLOB_THRESHOLD ? cell.toBlobCell() : cell;
 	}
 
-	private static AbstractGeoCell create(final GeometryType geometryType, final byte[] wkb,
+	private static AbstractGeoCell create(final GeometryType geometryType, final CanonicalWKB wkb,
 			final GeoReferenceSystem refSystem) {
 		switch (geometryType) {
 		case GEOMETRY:
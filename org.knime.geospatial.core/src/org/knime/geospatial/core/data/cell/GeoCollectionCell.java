@@ -63,7 +63,7 @@
  *
  * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
  */
-public class GeoCollectionCell extends AbstractGeoCell implements GeoCollectionValue {
+public class GeoCollectionCell extends AbstractEnvelopeGeoCell implements GeoCollectionValue {
 
 	private static final long serialVersionUID = 1L;
 
@@ -75,13 +75,18 @@ public class GeoCollectionCell extends AbstractGeoCell implements GeoCollectionV
     /**
      * Creates a new instance.
      *
-     * @param wkb the WKB
+     * @param wkb the canonical WKB
      * @param refCoord the Geo Reference System
      */
-	GeoCollectionCell(final byte[] wkb, final GeoReferenceSystem refCoord) {
+	GeoCollectionCell(final CanonicalWKB wkb, final GeoReferenceSystem refCoord) {
 		super(wkb, refCoord);
 	}
 
+	@Override
+	GeoCollectionBlobCell toBlobCell() {
+		return new GeoCollectionBlobCell(this);
+	}
+
 	/**
 	 * Factory for {@link GeoCollectionCell}s.
 	 *
@@ -138,11 +143,28 @@ public CellSerializer() {
 	}
 
 	/**
-	 * {@link ValueFactory} implementation of this {@link DataCell} implementation.
+	 * {@link ValueFactory} implementation of this {@link DataCell} implementation
+	 * that only stores the WKB and the CRS. Only used to read tables that were
+	 * written before the {@link EnvelopeValueFactory} was introduced.
 	 *
 	 * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
 	 */
 	public static class ValueFactory extends GeoValueFactory<GeoCollectionCell> {
 		// no data cell specific implementation needed
 	}
+
+	/**
+	 * {@link ValueFactory} implementation of this {@link DataCell} implementation
+	 * that stores the envelope next to the WKB and the CRS.
+	 *
+	 * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+	 */
+	public static class EnvelopeValueFactory extends GeoValueFactory<GeoCollectionCell> {
+		/**
+		 * Constructor for class EnvelopeValueFactory.
+		 */
+		public EnvelopeValueFactory() {
+			super(true);
+		}
+	}
 }
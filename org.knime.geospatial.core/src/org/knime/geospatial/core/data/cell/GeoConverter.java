@@ -50,9 +50,6 @@
 import mil.nga.sf.Geometry;
 import mil.nga.sf.GeometryType;
 import mil.nga.sf.util.SFException;
-import mil.nga.sf.wkb.GeometryReader;
-import mil.nga.sf.wkb.GeometryTypeInfo;
-import mil.nga.sf.wkt.GeometryWriter;
 
 /**
  * Utility class to convert between the different geometric object
@@ -67,23 +64,33 @@ private GeoConverter() {
 	}
 
 	public static String wkb2wkt(final byte[] wkb) throws IOException {
-		try {
-			final Geometry geo = GeometryReader.readGeometry(wkb);
-			final String wkt = GeometryWriter.writeGeometry(geo);
-			return wkt;
-		} catch (final SFException e) {
-			throw new IOException(e);
-		}
+		final StringBuilder sb = new StringBuilder(wkb.length * 2);
+		wkb2wkt(wkb, sb);
+		return sb.toString();
 	}
 
+	/**
+	 * Appends the WKT representation of the given WKB to the given
+	 * {@link StringBuilder} without creating the geometric object.
+	 *
+	 * @param wkb the Well Known Binary
+	 * @param sb  the {@link StringBuilder} to append to
+	 * @throws IOException if the WKB is invalid
+	 */
+	public static void wkb2wkt(final byte[] wkb, final StringBuilder sb) throws IOException {
+		WKTWriter.write(wkb, sb);
+	}
+
+	/**
+	 * Converts the given WKT to WKB while parsing it without creating the geometric
+	 * object.
+	 *
+	 * @param wkt the Well Known Text
+	 * @return the Well Known Binary
+	 * @throws IOException if the WKT is invalid
+	 */
 	public static byte[] wkt2wkb(final String wkt) throws IOException {
-		try {
-			final Geometry geo = mil.nga.sf.wkt.GeometryReader.readGeometry(wkt);
-			final byte[] wkb = geo2wkb(geo);
-			return wkb;
-		} catch (final SFException e) {
-			throw new IOException(e);
-		}
+		return new WKTParser(wkt).parse();
 	}
 
 	public static byte[] geo2wkb(final Geometry geo) throws IOException {
@@ -113,20 +120,17 @@ public static Geometry wkb2Geo(final byte[] wkb) throws IOException {
 		}
 	}
 
+	/**
+	 * Returns the {@link GeometryType} of the given WKB by only reading its header
+	 * instead of parsing the whole geometric object. The method does not validate
+	 * the rest of the WKB, use {@link #wkb2Geo(byte[])} for that.
+	 *
+	 * @param wkb the Well Known Binary
+	 * @return the {@link GeometryType}
+	 * @throws IOException if the header of the WKB is invalid
+	 */
 	public static GeometryType wkb2GeometryType(final byte[] wkb) throws IOException {
-		GeometryReader reader = null;
-		try {
-			reader = new GeometryReader(wkb);
-			final GeometryTypeInfo geo = reader.readGeometryType();
-			return geo.getGeometryType();
-
-		} catch (final SFException e) {
-			throw new IOException(e);
-		} finally {
-			if (reader != null) {
-				reader.close();
-			}
-		}
+		return WKBHeader.geometryType(wkb);
 	}
 
 }
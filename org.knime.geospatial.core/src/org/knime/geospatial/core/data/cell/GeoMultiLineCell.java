@@ -60,7 +60,7 @@
  *
  * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
  */
-public class GeoMultiLineCell extends AbstractGeoCell implements GeoMultiLineValue {
+public class GeoMultiLineCell extends AbstractEnvelopeGeoCell implements GeoMultiLineValue {
 
 	private static final long serialVersionUID = 1L;
 
@@ -72,13 +72,18 @@ public class GeoMultiLineCell extends AbstractGeoCell implements GeoMultiLineVal
     /**
      * Creates a new instance.
      *
-     * @param wkb the WKB
+     * @param wkb the canonical WKB
      * @param refCoord the Geo Reference System
      */
-	GeoMultiLineCell(final byte[] wkb, final GeoReferenceSystem refCoord) {
+	GeoMultiLineCell(final CanonicalWKB wkb, final GeoReferenceSystem refCoord) {
 		super(wkb, refCoord);
 	}
 
+	@Override
+	GeoMultiLineBlobCell toBlobCell() {
+		return new GeoMultiLineBlobCell(this);
+	}
+
 	/**
 	 * Factory for {@link GeoMultiLineCell}s.
 	 *
@@ -135,11 +140,43 @@ public CellSerializer() {
 	}
 
 	/**
-	 * {@link ValueFactory} implementation of this {@link DataCell} implementation.
+	 * {@link ValueFactory} implementation of this {@link DataCell} implementation
+	 * that only stores the WKB and the CRS. Only used to read tables that were
+	 * written before the {@link EnvelopeValueFactory} was introduced.
 	 *
 	 * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
 	 */
 	public static class ValueFactory extends GeoValueFactory<GeoMultiLineCell> {
 		// no data cell specific implementation needed
 	}
+
+	/**
+	 * {@link ValueFactory} implementation of this {@link DataCell} implementation
+	 * that stores the envelope next to the WKB and the CRS.
+	 *
+	 * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+	 */
+	public static class EnvelopeValueFactory extends GeoValueFactory<GeoMultiLineCell> {
+		/**
+		 * Constructor for class EnvelopeValueFactory.
+		 */
+		public EnvelopeValueFactory() {
+			super(true);
+		}
+	}
+
+	/**
+	 * Alternative {@link ValueFactory} implementation of this {@link DataCell}
+	 * implementation that stores the coordinates in the GeoArrow native layout.
+	 *
+	 * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+	 */
+	public static class NativeValueFactory extends GeoArrowValueFactory {
+		/**
+		 * Constructor for class NativeValueFactory.
+		 */
+		public NativeValueFactory() {
+			super(2);
+		}
+	}
 }
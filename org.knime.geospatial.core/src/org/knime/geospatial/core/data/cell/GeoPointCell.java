@@ -45,18 +45,30 @@
 
 package org.knime.geospatial.core.data.cell;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellSerializer;
 import org.knime.core.data.DataType;
+import org.knime.core.data.DataValue;
 import org.knime.core.data.convert.DataCellFactoryMethod;
+import org.knime.geospatial.core.data.GeoEnvelope;
 import org.knime.geospatial.core.data.GeoPointValue;
 import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
 
+import mil.nga.sf.GeometryType;
+
 /**
- * {@link DataCell} implementation that represents a geometric point.
+ * {@link DataCell} implementation that represents a geometric point. Points
+ * are stored as primitive coordinates instead of their WKB representation which
+ * is created on demand.
  *
  * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
  */
@@ -69,14 +81,329 @@ public class GeoPointCell extends AbstractGeoCell implements GeoPointValue {
 	 */
 	public static final DataType TYPE = DataType.getType(GeoPointCell.class);
 
+	/** Dimension flag of a point with a z coordinate. */
+	static final int Z_FLAG = 1;
+
+	/** Dimension flag of a point with a m coordinate. */
+	static final int M_FLAG = 2;
+
+	/** Dimension flags of points that are stored as WKB since they can not be stored as coordinates. */
+	private static final byte NO_COORDINATES = -1;
+
+	private final double m_x;
+
+	private final double m_y;
+
+	/** The z and/or m coordinate or <code>null</code> for two dimensional points. */
+	private final double[] m_zm;
+
+	private final byte m_dimFlags;
+
+	//lazily computed since cells are immutable, 0 if not yet computed
+	private transient int m_hashCode;
+
     /**
      * Creates a new instance.
      *
-     * @param wkb the WKB
+     * @param canonical the canonical WKB
      * @param refCoord the Geo Reference System
      */
-	GeoPointCell(final byte[] wkb, final GeoReferenceSystem refCoord) {
-		super(wkb, refCoord);
+	GeoPointCell(final CanonicalWKB canonical, final GeoReferenceSystem refCoord) {
+		this(canonical.getWKB(), refCoord);
+	}
+
+	private GeoPointCell(final byte[] wkb, final GeoReferenceSystem refCoord) {
+		super(coordinateDimFlags(wkb) == NO_COORDINATES ? wkb : null, refCoord);
+		m_dimFlags = coordinateDimFlags(wkb);
+		if (m_dimFlags == NO_COORDINATES) {
+			m_x = Double.NaN;
+			m_y = Double.NaN;
+			m_zm = null;
+			return;
+		}
+		final boolean littleEndian = wkb[0] == 1;
+		m_x = WKBHeader.readDouble(wkb, WKBHeader.SIZE, littleEndian);
+		m_y = WKBHeader.readDouble(wkb, WKBHeader.SIZE + Double.BYTES, littleEndian);
+		final int dims = dimensions(m_dimFlags);
+		if (dims > 2) {
+			m_zm = new double[dims - 2];
+			for (int i = 0; i < m_zm.length; i++) {
+				m_zm[i] = WKBHeader.readDouble(wkb, WKBHeader.SIZE + (i + 2) * Double.BYTES, littleEndian);
+			}
+		} else {
+			m_zm = null;
+		}
+	}
+
+	/**
+	 * Creates a new instance from the given coordinates.
+	 *
+	 * @param x        the x coordinate
+	 * @param y        the y coordinate
+	 * @param zm       the z and/or m coordinate or <code>null</code> if the point
+	 *                 is two dimensional
+	 * @param dimFlags the dimension flags see {@link #Z_FLAG} and {@link #M_FLAG}
+	 * @param refCoord the Geo Reference System
+	 */
+	GeoPointCell(final double x, final double y, final double[] zm, final int dimFlags,
+			final GeoReferenceSystem refCoord) {
+		super(null, refCoord);
+		m_x = x;
+		m_y = y;
+		m_zm = zm;
+		m_dimFlags = (byte) dimFlags;
+	}
+
+	/**
+	 * @param wkb the WKB
+	 * @return the dimension flags if the WKB is a plain point without SRID whose
+	 *         coordinates can be stored as primitives otherwise
+	 *         {@link #NO_COORDINATES}
+	 */
+	private static byte coordinateDimFlags(final byte[] wkb) {
+		if (wkb == null || wkb.length < WKBHeader.SIZE || (wkb[0] != 0 && wkb[0] != 1)) {
+			return NO_COORDINATES;
+		}
+		final int typeCode = WKBHeader.readInt(wkb, 1, wkb[0] == 1);
+		try {
+			if (WKBHeader.geometryType(typeCode) != GeometryType.POINT || WKBHeader.hasSRID(typeCode)) {
+				return NO_COORDINATES;
+			}
+		} catch (final IOException e) {
+			return NO_COORDINATES;
+		}
+		final int dimFlags = (WKBHeader.hasZ(typeCode) ? Z_FLAG : 0) | (WKBHeader.hasM(typeCode) ? M_FLAG : 0);
+		if (wkb.length != WKBHeader.SIZE + dimensions(dimFlags) * Double.BYTES) {
+			return NO_COORDINATES;
+		}
+		return (byte) dimFlags;
+	}
+
+	private static int dimensions(final int dimFlags) {
+		return 2 + (dimFlags & Z_FLAG) + (dimFlags >> 1);
+	}
+
+	/**
+	 * @return <code>true</code> if the point is stored as coordinates and not as
+	 *         WKB
+	 */
+	boolean hasCoordinates() {
+		return m_dimFlags != NO_COORDINATES;
+	}
+
+	/**
+	 * @return the dimension flags see {@link #Z_FLAG} and {@link #M_FLAG}
+	 */
+	int getDimFlags() {
+		return m_dimFlags;
+	}
+
+	/**
+	 * @return the x coordinate or {@link Double#NaN} for empty points
+	 */
+	double getX() {
+		return m_x;
+	}
+
+	/**
+	 * @return the y coordinate or {@link Double#NaN} for empty points
+	 */
+	double getY() {
+		return m_y;
+	}
+
+	/**
+	 * @return the z coordinate, only valid if the dimension flags contain the
+	 *         {@link #Z_FLAG}
+	 */
+	double getZ() {
+		return m_zm[0];
+	}
+
+	/**
+	 * @return the m coordinate, only valid if the dimension flags contain the
+	 *         {@link #M_FLAG}
+	 */
+	double getM() {
+		return m_zm[m_zm.length - 1];
+	}
+
+	@Override
+	public String getGeometryType() {
+		if (!hasCoordinates()) {
+			return super.getGeometryType();
+		}
+		return GeometryType.POINT.getName();
+	}
+
+	@Override
+	public byte[] getWKB() {
+		if (!hasCoordinates()) {
+			return super.getWKB();
+		}
+		final ByteBuffer buffer = ByteBuffer.allocate(getWKBLength());
+		getWKB(buffer);
+		return buffer.array();
+	}
+
+	@Override
+	public void getWKB(final ByteBuffer buffer) {
+		if (!hasCoordinates()) {
+			super.getWKB(buffer);
+			return;
+		}
+		final ByteOrder order = buffer.order();
+		// same encoding as the mil.nga.sf.wkb.GeometryWriter: big endian and ISO type code
+		buffer.order(ByteOrder.BIG_ENDIAN);
+		buffer.put((byte) 0);
+		buffer.putInt(1 + 1000 * m_dimFlags);
+		writeCoordinates(buffer);
+		buffer.order(order);
+	}
+
+	@Override
+	public int getWKBLength() {
+		if (!hasCoordinates()) {
+			return super.getWKBLength();
+		}
+		return WKBHeader.SIZE + dimensions(m_dimFlags) * Double.BYTES;
+	}
+
+	@Override
+	public GeoEnvelope getEnvelope() {
+		if (!hasCoordinates()) {
+			try {
+				return CanonicalWKB.of(super.getWKB()).getEnvelope();
+			} catch (final IOException e) {
+				throw new IllegalArgumentException("Exception reading WKB for details see log file", e);
+			}
+		}
+		// the envelope of a point is the point itself
+		return Double.isNaN(m_x) ? GeoEnvelope.EMPTY : new GeoEnvelope(m_x, m_y, m_x, m_y);
+	}
+
+	private void writeCoordinates(final ByteBuffer buffer) {
+		buffer.putDouble(m_x);
+		buffer.putDouble(m_y);
+		if (m_zm != null) {
+			for (final double value : m_zm) {
+				buffer.putDouble(value);
+			}
+		}
+	}
+
+	/**
+	 * Writes the coordinates of this point to the given output.
+	 *
+	 * @param output the {@link DataOutput} to write to
+	 * @throws IOException if the coordinates can not be written
+	 */
+	void writeCoordinates(final DataOutput output) throws IOException {
+		output.writeDouble(m_x);
+		output.writeDouble(m_y);
+		if (m_zm != null) {
+			for (final double value : m_zm) {
+				output.writeDouble(value);
+			}
+		}
+	}
+
+	/**
+	 * Reads the coordinates written by {@link #writeCoordinates(DataOutput)}.
+	 *
+	 * @param input    the {@link DataInput} to read from
+	 * @param dimFlags the dimension flags of the point
+	 * @param refCoord the Geo Reference System
+	 * @return the {@link GeoPointCell}
+	 * @throws IOException if the coordinates can not be read
+	 */
+	static GeoPointCell readCoordinates(final DataInput input, final int dimFlags,
+			final GeoReferenceSystem refCoord) throws IOException {
+		final double x = input.readDouble();
+		final double y = input.readDouble();
+		final int dims = dimensions(dimFlags);
+		double[] zm = null;
+		if (dims > 2) {
+			zm = new double[dims - 2];
+			for (int i = 0; i < zm.length; i++) {
+				zm[i] = input.readDouble();
+			}
+		}
+		return new GeoPointCell(x, y, zm, dimFlags, refCoord);
+	}
+
+	@Override
+	int wkbHashCode() {
+		if (!hasCoordinates()) {
+			return super.wkbHashCode();
+		}
+		// same hash as Arrays.hashCode of the WKB written by getWKB(ByteBuffer) that starts with the big endian byte 0
+		int hash = 31;
+		hash = hash(hash, 1 + 1000 * m_dimFlags);
+		hash = hash(hash, Double.doubleToRawLongBits(m_x));
+		hash = hash(hash, Double.doubleToRawLongBits(m_y));
+		if (m_zm != null) {
+			for (final double value : m_zm) {
+				hash = hash(hash, Double.doubleToRawLongBits(value));
+			}
+		}
+		return hash;
+	}
+
+	private static int hash(final int hash, final long value) {
+		return hash(hash(hash, (int) (value >>> 32)), (int) value);
+	}
+
+	private static int hash(final int hash, final int value) {
+		int result = hash;
+		for (int shift = 24; shift >= 0; shift -= 8) {
+			result = 31 * result + (byte) (value >>> shift);
+		}
+		return result;
+	}
+
+	@Override
+	protected boolean equalContent(final DataValue otherValue) {
+		if (otherValue instanceof GeoPointCell) {
+			return equalsDataCell((GeoPointCell) otherValue);
+		}
+		return super.equalContent(otherValue);
+	}
+
+	@Override
+	protected boolean equalsDataCell(final DataCell dc) {
+		final GeoPointCell other = (GeoPointCell) dc;
+		if (!hasCoordinates() || !other.hasCoordinates()) {
+			return super.equalsDataCell(dc);
+		}
+		if (m_hashCode != 0 && other.m_hashCode != 0 && m_hashCode != other.m_hashCode) {
+			return false;
+		}
+		// same semantic as comparing the canonical WKB
+		return m_dimFlags == other.m_dimFlags
+				&& Double.doubleToLongBits(m_x) == Double.doubleToLongBits(other.m_x)
+				&& Double.doubleToLongBits(m_y) == Double.doubleToLongBits(other.m_y)
+				&& Arrays.equals(m_zm, other.m_zm)
+				&& Objects.equals(getReferenceSystem(), other.getReferenceSystem());
+	}
+
+	@Override
+	public int hashCode() {
+		if (!hasCoordinates()) {
+			return super.hashCode();
+		}
+		int result = m_hashCode;
+		if (result == 0) {
+			final int prime = 31;
+			result = 1;
+			result = prime * result + Objects.hash(getReferenceSystem());
+			result = prime * result + m_dimFlags;
+			result = prime * result + Double.hashCode(m_x);
+			result = prime * result + Double.hashCode(m_y);
+			result = prime * result + Arrays.hashCode(m_zm);
+			m_hashCode = result;
+		}
+		return result;
 	}
 
 	/**
@@ -135,11 +462,23 @@ public CellSerializer() {
 	}
 
 	/**
-	 * {@link ValueFactory} implementation of this {@link DataCell} implementation.
+	 * {@link ValueFactory} implementation of this {@link DataCell} implementation
+	 * that stores the WKB. Only used to read tables that were written before the
+	 * {@link PrimitiveValueFactory} was introduced.
 	 *
 	 * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
 	 */
 	public static class ValueFactory extends GeoValueFactory<GeoPointCell> {
 		// no data cell specific implementation needed
 	}
+
+	/**
+	 * {@link ValueFactory} implementation of this {@link DataCell} implementation
+	 * that stores the coordinates in primitive double columns.
+	 *
+	 * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+	 */
+	public static class PrimitiveValueFactory extends GeoPointValueFactory {
+		// no data cell specific implementation needed
+	}
 }
@@ -0,0 +1,302 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.cell;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.v2.ReadValue;
+import org.knime.core.data.v2.ValueFactory;
+import org.knime.core.data.v2.WriteValue;
+import org.knime.core.table.access.DoubleAccess.DoubleReadAccess;
+import org.knime.core.table.access.DoubleAccess.DoubleWriteAccess;
+import org.knime.core.table.access.StringAccess.StringWriteAccess;
+import org.knime.core.table.access.StructAccess.StructReadAccess;
+import org.knime.core.table.access.StructAccess.StructWriteAccess;
+import org.knime.core.table.access.VarBinaryAccess.VarBinaryReadAccess;
+import org.knime.core.table.access.VarBinaryAccess.VarBinaryWriteAccess;
+import org.knime.core.table.schema.DataSpec;
+import org.knime.core.table.schema.StructDataSpec;
+import org.knime.core.table.schema.traits.DataTraits;
+import org.knime.core.table.schema.traits.DefaultDataTraits;
+import org.knime.core.table.schema.traits.DefaultStructDataTraits;
+import org.knime.geospatial.core.data.GeoEnvelope;
+import org.knime.geospatial.core.data.GeoPointValue;
+import org.knime.geospatial.core.data.GeoValue;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
+
+import mil.nga.sf.GeometryType;
+
+/**
+ * {@link ValueFactory} implementation for {@link GeoPointCell}s that stores the
+ * coordinates in primitive double columns instead of the WKB. The layout is
+ * <code>struct&lt;x, y, crs, zm&gt;</code> where empty points have NaN x and y
+ * coordinates. Most points are two dimensional which is why z and m values are
+ * not stored in their own columns. Instead points with z or m values
+ * additionally store their WKB in the zm column which is missing for all other
+ * points. Two dimensional points thus only store their two coordinates next to
+ * the dictionary encoded CRS and the empty zm column, which saves the WKB
+ * header of every point and allows vectorized access to the coordinates.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+class GeoPointValueFactory implements ValueFactory<StructReadAccess, StructWriteAccess> {
+
+	private static final int X = 0;
+
+	private static final int Y = 1;
+
+	private static final int CRS = 2;
+
+	private static final int ZM = 3;
+
+	@Override
+	public GeoPointWriteValue createWriteValue(final StructWriteAccess access) {
+		return new GeoPointWriteValue(access);
+	}
+
+	@Override
+	public GeoPointReadValue createReadValue(final StructReadAccess access) {
+		return new GeoPointReadValue(access);
+	}
+
+	@Override
+	public DataSpec getSpec() {
+		return new StructDataSpec(DataSpec.doubleSpec(), DataSpec.doubleSpec(), DataSpec.stringSpec(),
+				DataSpec.varBinarySpec());
+	}
+
+	@Override
+	public DataTraits getTraits() {
+		return DefaultStructDataTraits.builder()//
+				.addInnerTraits(DefaultDataTraits.EMPTY)//
+				.addInnerTraits(DefaultDataTraits.EMPTY)//
+				.addInnerTraits(GeoReferenceSystemReader.TRAITS) //
+				.addInnerTraits(DefaultDataTraits.EMPTY)//
+				.build();
+	}
+
+	/**
+	 * {@link ReadValue} for {@link GeoPointValue}s that are stored as primitive
+	 * coordinates.
+	 *
+	 * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+	 */
+	public static final class GeoPointReadValue implements ReadValue, GeoPointValue {
+
+		private final DoubleReadAccess m_x;
+
+		private final DoubleReadAccess m_y;
+
+		private final GeoReferenceSystemReader m_refSystem;
+
+		/** The WKB of points with z or m values, missing for two dimensional points. */
+		private final VarBinaryReadAccess m_zm;
+
+		GeoPointReadValue(final StructReadAccess structAccess) {
+			m_x = structAccess.getAccess(X);
+			m_y = structAccess.getAccess(Y);
+			m_refSystem = new GeoReferenceSystemReader(structAccess.getAccess(CRS));
+			m_zm = structAccess.getAccess(ZM);
+		}
+
+		/**
+		 * @return the x coordinate of the current row
+		 */
+		public double getX() {
+			return m_x.getDoubleValue();
+		}
+
+		/**
+		 * @return the y coordinate of the current row
+		 */
+		public double getY() {
+			return m_y.getDoubleValue();
+		}
+
+		@Override
+		public String getGeometryType() {
+			return GeometryType.POINT.getName();
+		}
+
+		@Override
+		public String getWKT() {
+			try {
+				return GeoConverter.wkb2wkt(getWKB());
+			} catch (final IOException e) {
+				// this should not happen since the WKB is created from the coordinates
+				throw new IllegalArgumentException("Exception converting WKB to WKT: " + e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public byte[] getWKB() {
+			if (!m_zm.isMissing()) {
+				return m_zm.getByteArray();
+			}
+			final ByteBuffer buffer = ByteBuffer.allocate(getWKBLength());
+			getWKB(buffer);
+			return buffer.array();
+		}
+
+		@Override
+		public int getWKBLength() {
+			if (!m_zm.isMissing()) {
+				return m_zm.getByteArray().length;
+			}
+			return WKBHeader.SIZE + 2 * Double.BYTES;
+		}
+
+		@Override
+		public void getWKB(final ByteBuffer buffer) {
+			if (!m_zm.isMissing()) {
+				buffer.put(m_zm.getByteArray());
+				return;
+			}
+			final ByteOrder order = buffer.order();
+			// same encoding as the GeoPointCell: big endian and ISO type code
+			buffer.order(ByteOrder.BIG_ENDIAN);
+			buffer.put((byte) 0);
+			buffer.putInt(1);
+			buffer.putDouble(getX());
+			buffer.putDouble(getY());
+			buffer.order(order);
+		}
+
+		@Override
+		public GeoEnvelope getEnvelope() {
+			final double x = getX();
+			final double y = getY();
+			// the envelope of a point is the point itself
+			return Double.isNaN(x) ? GeoEnvelope.EMPTY : new GeoEnvelope(x, y, x, y);
+		}
+
+		@Override
+		public GeoReferenceSystem getReferenceSystem() {
+			return m_refSystem.read();
+		}
+
+		@Override
+		public DataCell getDataCell() {
+			if (!m_zm.isMissing()) {
+				try {
+					return GeoCellFactory.createCell(m_zm.getByteArray(), getReferenceSystem());
+				} catch (final IOException e) {
+					// this should not happen since the GeoCell was already create via the factory
+					// before
+					throw new IllegalArgumentException("Exception creating GeoCell: " + e.getMessage(), e);
+				}
+			}
+			return new GeoPointCell(getX(), getY(), null, 0, getReferenceSystem());
+		}
+	}
+
+	/**
+	 * {@link WriteValue} for {@link GeoPointValue}s that are stored as primitive
+	 * coordinates.
+	 *
+	 * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+	 */
+	public static final class GeoPointWriteValue implements WriteValue<GeoValue> {
+
+		private final DoubleWriteAccess m_x;
+
+		private final DoubleWriteAccess m_y;
+
+		private final StringWriteAccess m_refSystem;
+
+		private final VarBinaryWriteAccess m_zm;
+
+		GeoPointWriteValue(final StructWriteAccess structAccess) {
+			m_x = structAccess.getWriteAccess(X);
+			m_y = structAccess.getWriteAccess(Y);
+			m_refSystem = structAccess.getWriteAccess(CRS);
+			m_zm = structAccess.getWriteAccess(ZM);
+		}
+
+		@Override
+		public void setValue(final GeoValue value) {
+			if (value instanceof GeoPointCell && ((GeoPointCell) value).hasCoordinates()) {
+				// avoid the creation of the WKB for the common case
+				final GeoPointCell cell = (GeoPointCell) value;
+				m_x.setDoubleValue(cell.getX());
+				m_y.setDoubleValue(cell.getY());
+				if (cell.getDimFlags() != 0) {
+					m_zm.setByteArray(cell.getWKB());
+				} else {
+					m_zm.setMissing();
+				}
+			} else {
+				setWKB(value.getWKB());
+			}
+			m_refSystem.setStringValue(value.getReferenceSystem().getCRS());
+		}
+
+		private void setWKB(final byte[] wkb) {
+			try {
+				// canonical WKB is always big endian and uses ISO type codes
+				final byte[] canonical = CanonicalWKB.of(wkb).getWKB();
+				final int typeCode = WKBHeader.readInt(canonical, 1, false);
+				if (WKBHeader.geometryType(typeCode) != GeometryType.POINT) {
+					throw new IllegalArgumentException(
+							"Geometry type " + WKBHeader.geometryType(typeCode).getName() + " is not a point");
+				}
+				m_x.setDoubleValue(WKBHeader.readDouble(canonical, WKBHeader.SIZE, false));
+				m_y.setDoubleValue(WKBHeader.readDouble(canonical, WKBHeader.SIZE + Double.BYTES, false));
+				if (WKBHeader.hasZ(typeCode) || WKBHeader.hasM(typeCode)) {
+					m_zm.setByteArray(canonical);
+				} else {
+					m_zm.setMissing();
+				}
+			} catch (final IOException e) {
+				// this should not happen since the GeoCell was already create via the factory
+				// before
+				throw new IllegalArgumentException("Exception reading WKB: " + e.getMessage(), e);
+			}
+		}
+	}
+}
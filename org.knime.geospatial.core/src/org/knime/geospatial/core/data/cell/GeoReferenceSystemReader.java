@@ -0,0 +1,116 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.cell;
+
+import java.io.IOException;
+
+import org.knime.core.table.access.StringAccess.StringReadAccess;
+import org.knime.core.table.schema.traits.DataTrait.DictEncodingTrait;
+import org.knime.core.table.schema.traits.DataTraits;
+import org.knime.core.table.schema.traits.DefaultDataTraits;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystemFactory;
+
+/**
+ * Reads the {@link GeoReferenceSystem} of the current row from the dictionary
+ * encoded CRS column of the columnar value factories. The resolved reference
+ * system of the last row is reused since it rarely changes between rows.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+final class GeoReferenceSystemReader {
+
+	/**
+	 * The traits of the CRS column. Most columns have a single reference system
+	 * which is why it is dictionary encoded and thus stored only once per batch.
+	 * The initial {@link GeoValueFactory} layout does not use these traits to be
+	 * able to read existing tables.
+	 */
+	static final DataTraits TRAITS = new DefaultDataTraits(new DictEncodingTrait());
+
+	private final StringReadAccess m_access;
+
+	/** The CRS string of the last row whose reference system was requested. */
+	private String m_lastCRS;
+
+	private GeoReferenceSystem m_lastRefSystem;
+
+	/**
+	 * @param access the {@link StringReadAccess} of the CRS column
+	 */
+	GeoReferenceSystemReader(final StringReadAccess access) {
+		m_access = access;
+	}
+
+	/**
+	 * @return the {@link StringReadAccess} of the CRS column
+	 */
+	StringReadAccess getAccess() {
+		return m_access;
+	}
+
+	/**
+	 * @return the {@link GeoReferenceSystem} of the current row or
+	 *         {@link GeoReferenceSystem#DEFAULT} if the CRS is missing
+	 */
+	GeoReferenceSystem read() {
+		if (m_access.isMissing()) {
+			// e.g. written on the Python side without a reference system
+			return GeoReferenceSystem.DEFAULT;
+		}
+		final String crs = m_access.getStringValue();
+		if (!crs.equals(m_lastCRS)) {
+			try {
+				m_lastRefSystem = GeoReferenceSystemFactory.create(crs);
+			} catch (final IOException e) {
+				// this should not happen since the GeoReferenceSystem was already create via
+				// the factory before
+				throw new IllegalArgumentException("Exception creating GeoReferenceSystem: " + e.getMessage(), e);
+			}
+			m_lastCRS = crs;
+		}
+		return m_lastRefSystem;
+	}
+}
@@ -45,14 +45,17 @@
 
 package org.knime.geospatial.core.data.cell;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.v2.ReadValue;
 import org.knime.core.data.v2.ValueFactory;
 import org.knime.core.data.v2.WriteValue;
-import org.knime.core.table.access.StringAccess.StringReadAccess;
+import org.knime.core.table.access.DoubleAccess.DoubleReadAccess;
+import org.knime.core.table.access.DoubleAccess.DoubleWriteAccess;
 import org.knime.core.table.access.StringAccess.StringWriteAccess;
 import org.knime.core.table.access.StructAccess.StructReadAccess;
 import org.knime.core.table.access.StructAccess.StructWriteAccess;
@@ -65,12 +68,17 @@
 import org.knime.core.table.schema.traits.DataTraits;
 import org.knime.core.table.schema.traits.DefaultDataTraits;
 import org.knime.core.table.schema.traits.DefaultStructDataTraits;
+import org.knime.geospatial.core.data.GeoEnvelope;
 import org.knime.geospatial.core.data.GeoValue;
 import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
-import org.knime.geospatial.core.data.reference.GeoReferenceSystemFactory;
+import org.knime.geospatial.core.data.util.GeoSortKey;
 
 /**
  * {@link ValueFactory} implementation of this {@link DataCell} implementation.
+ * Stores the WKB and the CRS. The envelope layout additionally stores the
+ * envelope as four double children (minX, minY, maxX, maxY) and dictionary
+ * encodes the CRS. The envelope allows to filter on the spatial extent by only
+ * reading the primitive children without touching the WKB.
  *
  * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
  * @param <G> the concrete implementation of the {@link DataCell} class
@@ -78,28 +86,62 @@
 class GeoValueFactory<G extends AbstractGeoCell>
 implements ValueFactory<StructReadAccess, StructWriteAccess> {
 
+	/** Index of the first of the four envelope children (minX, minY, maxX, maxY). */
+	private static final int ENVELOPE = 2;
+
+	private final boolean m_envelope;
+
+	/**
+	 * Creates a factory with the initial layout that only stores the WKB and the
+	 * CRS.
+	 */
+	GeoValueFactory() {
+		this(false);
+	}
+
+	/**
+	 * @param envelope <code>true</code> if the envelope should be stored next to
+	 *                 the WKB
+	 */
+	GeoValueFactory(final boolean envelope) {
+		m_envelope = envelope;
+	}
 
 	@Override
 	public GeoWriteValue createWriteValue(final StructWriteAccess access) {
-		return new GeoWriteValue(access);
+		return new GeoWriteValue(access, m_envelope);
 	}
 
 	@Override
 	public GeoReadValue<G> createReadValue(final StructReadAccess access) {
-		return new GeoReadValue<>(access);
+		return new GeoReadValue<>(access, m_envelope);
 	}
 
 	@Override
 	public DataSpec getSpec() {
+		if (m_envelope) {
+			return new StructDataSpec(DataSpec.varBinarySpec(), DataSpec.stringSpec(), DataSpec.doubleSpec(),
+					DataSpec.doubleSpec(), DataSpec.doubleSpec(), DataSpec.doubleSpec());
+		}
 		return new StructDataSpec(DataSpec.varBinarySpec(), DataSpec.stringSpec());
 	}
 
 	@Override
 	public DataTraits getTraits() {
-		return DefaultStructDataTraits.builder()//
+		if (!m_envelope) {
+			// the traits of the initial layout must not change to read existing tables
+			return DefaultStructDataTraits.builder()//
+					.addInnerTraits(DefaultDataTraits.EMPTY)//
+					.addInnerTraits(DefaultDataTraits.EMPTY) //
+					.build();
+		}
+		final DefaultStructDataTraits.Builder builder = DefaultStructDataTraits.builder()//
 				.addInnerTraits(DefaultDataTraits.EMPTY)//
-				.addInnerTraits(DefaultDataTraits.EMPTY) //
-				.build();
+				.addInnerTraits(GeoReferenceSystemReader.TRAITS);
+		for (int i = 0; i < 4; i++) {
+			builder.addInnerTraits(DefaultDataTraits.EMPTY);
+		}
+		return builder.build();
 	}
 
 	/**
@@ -109,34 +151,100 @@ public DataTraits getTraits() {
 	 * @param <G> the concrete implementation of the {@link DataCell} class
 	 */
 	public static class GeoReadValue<G extends AbstractGeoCell> implements ReadValue, GeoValue {
-		private static final ObjectDeserializer<byte[]> DESERIALIZER = in -> {
-			//TODO: Optimize (see AP-17643)
-			try (final ByteArrayOutputStream buffer = new ByteArrayOutputStream()) {
-				final byte[] cache = new byte[1024];
-				int n;
-				while ((n = in.read(cache, 0, cache.length)) != -1) {
-					buffer.write(cache, 0, n);
-					if (n < cache.length) {
-						break;
-					}
+		/** Initial size of the array that is reused to read the WKB of all rows. */
+		private static final int INITIAL_BUFFER_SIZE = 1024;
+
+		private final VarBinaryReadAccess m_wkb;
+
+		private final GeoReferenceSystemReader m_refSystem;
+
+		/** The accesses of minX, minY, maxX and maxY or <code>null</code> if the envelope is not stored. */
+		private final DoubleReadAccess[] m_envelope;
+
+		private byte[] m_buffer = new byte[INITIAL_BUFFER_SIZE];
+
+		private int m_bufferLength;
+
+		/** Reads the WKB of the current row into the reused buffer. */
+		private final ObjectDeserializer<byte[]> m_bufferDeserializer = in -> {
+			int length = 0;
+			int n;
+			// a short read does not mean that the end is reached which is why we read until nothing is left
+			while ((n = in.read(m_buffer, length, m_buffer.length - length)) > 0) {
+				length += n;
+				if (length == m_buffer.length) {
+					m_buffer = Arrays.copyOf(m_buffer, 2 * m_buffer.length);
 				}
-				return buffer.toByteArray();
 			}
+			m_bufferLength = length;
+			return m_buffer;
 		};
 
-		private final VarBinaryReadAccess m_wkb;
+		/** The array backed buffer the m_targetDeserializer reads the WKB of the current row into. */
+		private ByteBuffer m_target;
 
-		private final StringReadAccess m_refSystem;
+		/** Reads the WKB of the current row directly into the array of the m_target buffer. */
+		private final ObjectDeserializer<ByteBuffer> m_targetDeserializer = in -> {
+			final byte[] array = m_target.array();
+			final int offset = m_target.arrayOffset() + m_target.position();
+			final int remaining = m_target.remaining();
+			int length = 0;
+			int n;
+			while (length < remaining && (n = in.read(array, offset + length, remaining - length)) > 0) {
+				length += n;
+			}
+			if (in.skipBytes(1) > 0) {
+				throw new BufferOverflowException();
+			}
+			m_target.position(m_target.position() + length);
+			return m_target;
+		};
 
-		GeoReadValue(final StructReadAccess structAccess) {
+		private final byte[] m_header = new byte[WKBHeader.SIZE];
+
+		/**
+		 * Reads only the header of the WKB of the current row and stops
+		 * deserializing, returns <code>null</code> if the WKB is shorter than the
+		 * header.
+		 */
+		private final ObjectDeserializer<byte[]> m_headerDeserializer = in -> {
+			int length = 0;
+			int n;
+			while (length < m_header.length && (n = in.read(m_header, length, m_header.length - length)) > 0) {
+				length += n;
+			}
+			return length == m_header.length ? m_header : null;
+		};
+
+		GeoReadValue(final StructReadAccess structAccess, final boolean envelope) {
 			m_wkb = structAccess.getAccess(0);
-			m_refSystem = structAccess.getAccess(1);
+			m_refSystem = new GeoReferenceSystemReader(structAccess.getAccess(1));
+			if (envelope) {
+				m_envelope = new DoubleReadAccess[4];
+				for (int i = 0; i < m_envelope.length; i++) {
+					m_envelope[i] = structAccess.getAccess(ENVELOPE + i);
+				}
+			} else {
+				m_envelope = null;
+			}
+		}
+
+		/**
+		 * Reads the WKB of the current row into the reused buffer without
+		 * allocating a new array.
+		 *
+		 * @return the length of the WKB in the buffer
+		 */
+		private int readWKB() {
+			m_wkb.getObject(m_bufferDeserializer);
+			return m_bufferLength;
 		}
 
 		@Override
 		public String getGeometryType() {
 			try {
-				return GeoConverter.wkb2GeometryType(getWKB()).getName();
+				// the header is enough to determine the type
+				return WKBHeader.geometryType(m_wkb.getObject(m_headerDeserializer)).getName();
 			} catch (final IOException e) {
 				throw new IllegalArgumentException("Exception converting WKB to geometry for details see log file", e);
 			}
@@ -153,27 +261,89 @@ public String getWKT() {
 			}
 		}
 
+		/**
+		 * {@inheritDoc} The returned array is owned by the caller which is why
+		 * it is copied from the reused buffer. Use {@link #getWKB(ByteBuffer)}
+		 * to read the WKB without allocating an array per row.
+		 */
 		@Override
 		public byte[] getWKB() {
-			return m_wkb.getObject(DESERIALIZER);
+			return Arrays.copyOf(m_buffer, readWKB());
 		}
 
+		/**
+		 * {@inheritDoc} The read value is a view on the current row without any
+		 * notification when the row changes which is why the length can not be
+		 * cached. Instead the WKB is read into the reused buffer.
+		 */
 		@Override
-		public GeoReferenceSystem getReferenceSystem() {
+		public int getWKBLength() {
+			return readWKB();
+		}
+
+		@Override
+		public void getWKB(final ByteBuffer buffer) {
+			if (buffer.hasArray() && !buffer.isReadOnly()) {
+				// read directly into the array of the buffer to copy the bytes only once
+				m_target = buffer;
+				try {
+					m_wkb.getObject(m_targetDeserializer);
+				} finally {
+					m_target = null;
+				}
+			} else {
+				buffer.put(m_buffer, 0, readWKB());
+			}
+		}
+
+		@Override
+		public GeoEnvelope getEnvelope() {
+			// the envelope is missing if the value was not written by the GeoWriteValue e.g. on the Python side
+			if (m_envelope != null && !m_envelope[0].isMissing()) {
+				final double minX = m_envelope[0].getDoubleValue();
+				if (Double.isNaN(minX)) {
+					return GeoEnvelope.EMPTY;
+				}
+				return new GeoEnvelope(minX, m_envelope[1].getDoubleValue(), m_envelope[2].getDoubleValue(),
+						m_envelope[3].getDoubleValue());
+			}
+			// the read value is a view on the current row which is why the envelope can not be cached
+			try {
+				return CanonicalWKB.of(getWKB()).getEnvelope();
+			} catch (final IOException e) {
+				// this should not happen since the GeoCell was already create via the factory
+				// before
+				throw new IllegalArgumentException("Exception reading WKB: " + e.getMessage(), e);
+			}
+		}
+
+		/**
+		 * {@inheritDoc} The stored WKB is only canonical if it was written by the
+		 * GeoWriteValue and not e.g. on the Python side which is why its canonical
+		 * hash is computed on the reused buffer. This only allocates an array if
+		 * the stored WKB is not canonical.
+		 */
+		@Override
+		public byte[] getSortKey() {
+			final int wkbHash;
 			try {
-				return GeoReferenceSystemFactory.create(m_refSystem.getStringValue());
+				wkbHash = CanonicalWKB.hash(m_buffer, readWKB());
 			} catch (final IOException e) {
-				// this should not happen since the GeoReferenceSystem was already create via
-				// the factory before
-				throw new IllegalArgumentException("Exception creating GeoReferenceSystem: " + e.getMessage(), e);
+				throw new IllegalArgumentException("Exception reading WKB: " + e.getMessage(), e);
 			}
+			return GeoSortKey.create(getReferenceSystem().hashCode(), getHilbertIndex(), wkbHash);
+		}
+
+		@Override
+		public GeoReferenceSystem getReferenceSystem() {
+			return m_refSystem.read();
 		}
 
 		@Override
 		public DataCell getDataCell() {
 			try {
 				//				return m_factory.createGeoCell(getWKB(), getReferenceSystem());
-				return GeoCellFactory.create(getWKB(), getReferenceSystem());
+				return GeoCellFactory.createCell(getWKB(), getReferenceSystem());
 			} catch (final IOException e) {
 				// this should not happen since the GeoCell was already create via the factory
 				// before
@@ -195,15 +365,60 @@ public static final class GeoWriteValue implements WriteValue<GeoValue> {
 
 		private final StringWriteAccess m_refCoord;
 
-		GeoWriteValue(final StructWriteAccess structAccess) {
+		/** The accesses of minX, minY, maxX and maxY or <code>null</code> if the envelope is not stored. */
+		private final DoubleWriteAccess[] m_envelope;
+
+		GeoWriteValue(final StructWriteAccess structAccess, final boolean envelope) {
 			m_wkb = structAccess.getWriteAccess(0);
 			m_refCoord = structAccess.getWriteAccess(1);
+			if (envelope) {
+				m_envelope = new DoubleWriteAccess[4];
+				for (int i = 0; i < m_envelope.length; i++) {
+					m_envelope[i] = structAccess.getWriteAccess(ENVELOPE + i);
+				}
+			} else {
+				m_envelope = null;
+			}
 		}
 
 		@Override
 		public void setValue(final GeoValue value) {
+			if (value instanceof GeoReadValue) {
+				setFrom((GeoReadValue<?>) value);
+				return;
+			}
 			m_wkb.setObject(value.getWKB(), SERIALIZER);
 			m_refCoord.setStringValue(value.getReferenceSystem().getCRS());
+			if (m_envelope != null) {
+				// the envelope of the cells is collected when they are created which is why this is cheap
+				setEnvelope(value.getEnvelope());
+			}
+		}
+
+		/**
+		 * Copies the current row of the given read value access by access without
+		 * materializing the WKB e.g. if a node only passes the column through.
+		 */
+		private void setFrom(final GeoReadValue<?> value) {
+			m_wkb.setFrom(value.m_wkb);
+			m_refCoord.setFrom(value.m_refSystem.getAccess());
+			if (m_envelope != null) {
+				if (value.m_envelope != null) {
+					// a missing envelope is copied as well since the read value falls back to the WKB
+					for (int i = 0; i < m_envelope.length; i++) {
+						m_envelope[i].setFrom(value.m_envelope[i]);
+					}
+				} else {
+					setEnvelope(value.getEnvelope());
+				}
+			}
+		}
+
+		private void setEnvelope(final GeoEnvelope envelope) {
+			m_envelope[0].setDoubleValue(envelope.getMinX());
+			m_envelope[1].setDoubleValue(envelope.getMinY());
+			m_envelope[2].setDoubleValue(envelope.getMaxX());
+			m_envelope[3].setDoubleValue(envelope.getMaxY());
 		}
 	}
 }
\ No newline at end of file
@@ -45,8 +45,6 @@
 
 package org.knime.geospatial.core.data.cell;
 
-import java.io.IOException;
-
 import org.knime.core.data.DataCell;
 import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
 
@@ -59,15 +57,14 @@
 @FunctionalInterface
 interface InternalGeoCellFactory<G extends AbstractGeoCell> {
 	/**
-	 * Returns the concrete {@link DataCell} implementation for the given Well Known
-	 * Binary (wkb).
+	 * Returns the concrete {@link DataCell} implementation for the given canonical
+	 * Well Known Binary (wkb).
 	 *
-	 * @param wkb                          Well Known Binary representation of the
-	 *                                     geometric object
+	 * @param wkb                          canonical Well Known Binary
+	 *                                     representation of the geometric object
 	 * @param geoCoordinateReferenceSystem the {@link GeoReferenceSystem} of the
 	 *                                     geometric object
 	 * @return concrete {@link DataCell} implementation of the given wkb
-	 * @throws IOException if the wkb is invalid
 	 */
-	G createGeoCell(byte[] wkb, GeoReferenceSystem geoCoordinateReferenceSystem) throws IOException;
-}
\ No newline at end of file
+	G createGeoCell(CanonicalWKB wkb, GeoReferenceSystem geoCoordinateReferenceSystem);
+}
@@ -0,0 +1,237 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+
+package org.knime.geospatial.core.data.cell;
+
+import java.io.IOException;
+
+import mil.nga.sf.GeometryType;
+
+/**
+ * Utility class that reads the header of a Well Known Binary (WKB) geometry
+ * without parsing the whole geometric object. The header consists of the byte
+ * order flag followed by the 4 byte geometry type code. Both the ISO type codes
+ * (e.g. 1001 for POINT Z) and the extended WKB flags used by PostGIS are
+ * supported. The class also provides the primitive read methods that are used
+ * by the classes that directly work on the WKB bytes.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ * @see <a href=
+ *      "https://en.wikipedia.org/wiki/Well-known_text_representation_of_geometry#Well-known_binary">WKB</a>
+ */
+final class WKBHeader {
+
+	/** Number of bytes of the WKB header (byte order and geometry type code). */
+	static final int SIZE = 5;
+
+	private static final int EWKB_Z_FLAG = 0x80000000;
+
+	private static final int EWKB_M_FLAG = 0x40000000;
+
+	private static final int EWKB_SRID_FLAG = 0x20000000;
+
+	private static final int EWKB_FLAGS = EWKB_Z_FLAG | EWKB_M_FLAG | EWKB_SRID_FLAG;
+
+	private WKBHeader() {
+		// Avoid object creation
+	}
+
+	/**
+	 * Returns the {@link GeometryType} of the given WKB by only reading its
+	 * header.
+	 *
+	 * @param wkb the Well Known Binary
+	 * @return the {@link GeometryType} of the WKB
+	 * @throws IOException if the header is invalid
+	 */
+	static GeometryType geometryType(final byte[] wkb) throws IOException {
+		return geometryType(typeCode(wkb, 0));
+	}
+
+	/**
+	 * Returns the raw type code of the geometry that starts at the given offset
+	 * including all extended WKB flags.
+	 *
+	 * @param wkb    the Well Known Binary
+	 * @param offset the offset of the geometry header
+	 * @return the raw type code
+	 * @throws IOException if the header is invalid
+	 */
+	static int typeCode(final byte[] wkb, final int offset) throws IOException {
+		if (wkb == null || wkb.length - offset < SIZE) {
+			throw new IOException("Invalid WKB: header of geometry incomplete");
+		}
+		return readInt(wkb, offset + 1, isLittleEndian(wkb, offset));
+	}
+
+	/**
+	 * @param wkb    the Well Known Binary
+	 * @param offset the offset of the geometry header
+	 * @return <code>true</code> if the geometry that starts at the given offset is
+	 *         encoded in little endian (NDR) byte order
+	 * @throws IOException if the byte order flag is invalid
+	 */
+	static boolean isLittleEndian(final byte[] wkb, final int offset) throws IOException {
+		final byte byteOrder = wkb[offset];
+		if (byteOrder == 1) {
+			return true;
+		}
+		if (byteOrder == 0) {
+			return false;
+		}
+		throw new IOException("Invalid WKB: unknown byte order " + byteOrder);
+	}
+
+	/**
+	 * @param typeCode the raw type code
+	 * @return <code>true</code> if the type code contains a z coordinate
+	 */
+	static boolean hasZ(final int typeCode) {
+		final int dims = (typeCode & ~EWKB_FLAGS) / 1000;
+		return (typeCode & EWKB_Z_FLAG) != 0 || dims == 1 || dims == 3;
+	}
+
+	/**
+	 * @param typeCode the raw type code
+	 * @return <code>true</code> if the type code contains a m coordinate
+	 */
+	static boolean hasM(final int typeCode) {
+		final int dims = (typeCode & ~EWKB_FLAGS) / 1000;
+		return (typeCode & EWKB_M_FLAG) != 0 || dims == 2 || dims == 3;
+	}
+
+	/**
+	 * @param typeCode the raw type code
+	 * @return <code>true</code> if the extended WKB header is followed by a SRID
+	 */
+	static boolean hasSRID(final int typeCode) {
+		return (typeCode & EWKB_SRID_FLAG) != 0;
+	}
+
+	/**
+	 * Returns the ISO type code (e.g. 1001 for POINT Z) for the given raw type
+	 * code without any extended WKB flags.
+	 *
+	 * @param typeCode the raw type code
+	 * @return the ISO type code
+	 */
+	static int isoTypeCode(final int typeCode) {
+		final int baseCode = (typeCode & ~EWKB_FLAGS) % 1000;
+		return baseCode + (hasZ(typeCode) ? 1000 : 0) + (hasM(typeCode) ? 2000 : 0);
+	}
+
+	/**
+	 * Returns the {@link GeometryType} for the given raw type code.
+	 *
+	 * @param typeCode the raw type code
+	 * @return the {@link GeometryType}
+	 * @throws IOException if the type code is unknown
+	 */
+	static GeometryType geometryType(final int typeCode) throws IOException {
+		final int isoCode = typeCode & ~EWKB_FLAGS;
+		if (isoCode >= 4000) {
+			throw new IOException("Invalid WKB: unknown geometry type code " + typeCode);
+		}
+		switch (isoCode % 1000) {
+		case 0:
+			return GeometryType.GEOMETRY;
+		case 1:
+			return GeometryType.POINT;
+		case 2:
+			return GeometryType.LINESTRING;
+		case 3:
+			return GeometryType.POLYGON;
+		case 4:
+			return GeometryType.MULTIPOINT;
+		case 5:
+			return GeometryType.MULTILINESTRING;
+		case 6:
+			return GeometryType.MULTIPOLYGON;
+		case 7:
+			return GeometryType.GEOMETRYCOLLECTION;
+		case 8:
+			return GeometryType.CIRCULARSTRING;
+		case 9:
+			return GeometryType.COMPOUNDCURVE;
+		case 10:
+			return GeometryType.CURVEPOLYGON;
+		case 11:
+			return GeometryType.MULTICURVE;
+		case 12:
+			return GeometryType.MULTISURFACE;
+		case 13:
+			return GeometryType.CURVE;
+		case 14:
+			return GeometryType.SURFACE;
+		case 15:
+			return GeometryType.POLYHEDRALSURFACE;
+		case 16:
+			return GeometryType.TIN;
+		case 17:
+			return GeometryType.TRIANGLE;
+		default:
+			throw new IOException("Invalid WKB: unknown geometry type code " + typeCode);
+		}
+	}
+
+	static int readInt(final byte[] wkb, final int offset, final boolean littleEndian) {
+		if (littleEndian) {
+			return (wkb[offset] & 0xFF) | (wkb[offset + 1] & 0xFF) << 8 | (wkb[offset + 2] & 0xFF) << 16
+					| (wkb[offset + 3] & 0xFF) << 24;
+		}
+		return (wkb[offset] & 0xFF) << 24 | (wkb[offset + 1] & 0xFF) << 16 | (wkb[offset + 2] & 0xFF) << 8
+				| (wkb[offset + 3] & 0xFF);
+	}
+
+	static long readLong(final byte[] wkb, final int offset, final boolean littleEndian) {
+		final long first = readInt(wkb, offset, littleEndian) & 0xFFFFFFFFL;
+		final long second = readInt(wkb, offset + 4, littleEndian) & 0xFFFFFFFFL;
+		return littleEndian ? second << 32 | first : first << 32 | second;
+	}
+
+	static double readDouble(final byte[] wkb, final int offset, final boolean littleEndian) {
+		return Double.longBitsToDouble(readLong(wkb, offset, littleEndian));
+	}
+}
@@ -0,0 +1,507 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+
+package org.knime.geospatial.core.data.cell;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import mil.nga.sf.GeometryType;
+
+/**
+ * Parses a Well Known Text (WKT) and writes the Well Known Binary (WKB) while
+ * parsing without creating any intermediate geometric objects. The geometry
+ * type and the envelope are collected in the same pass (see
+ * {@link #parseCanonical()}). The produced WKB is identical to
+ * the one written by {@link mil.nga.sf.wkb.GeometryWriter} e.g. big endian byte
+ * order and ISO geometry type codes. Input that is not supported by the direct
+ * parser e.g. empty or curved geometries is parsed via the geometric objects.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+final class WKTParser {
+
+	/** Powers of ten that can be represented exactly as double. */
+	private static final double[] POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+			1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/** Largest mantissa that can be represented exactly as double. */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	private static final byte BIG_ENDIAN = 0;
+
+	private static final GeometryType[] SUPPORTED_TYPES = { GeometryType.POINT, GeometryType.LINESTRING,
+			GeometryType.POLYGON, GeometryType.MULTIPOINT, GeometryType.MULTILINESTRING, GeometryType.MULTIPOLYGON,
+			GeometryType.GEOMETRYCOLLECTION };
+
+	private final String m_wkt;
+
+	private int m_pos;
+
+	private byte[] m_buffer;
+
+	private int m_length;
+
+	private GeometryType m_geometryType;
+
+	private double m_minX;
+
+	private double m_minY;
+
+	private double m_maxX;
+
+	private double m_maxY;
+
+	/**
+	 * @param wkt the Well Known Text to parse
+	 */
+	WKTParser(final String wkt) {
+		m_wkt = wkt;
+	}
+
+	/**
+	 * Parses the WKT and returns its WKB representation.
+	 *
+	 * @return the Well Known Binary
+	 * @throws IOException if the WKT is invalid
+	 */
+	byte[] parse() throws IOException {
+		final byte[] wkb = parseDirect();
+		if (wkb != null) {
+			return wkb;
+		}
+		return GeoConverter.geo2wkb(GeoConverter.wkt2Geo(m_wkt));
+	}
+
+	/**
+	 * Parses the WKT and returns its canonical WKB together with the geometry type
+	 * and the envelope that are collected while parsing. Only WKT that is not
+	 * supported by the direct parser is converted via the geometric objects.
+	 *
+	 * @return the {@link CanonicalWKB}
+	 * @throws IOException if the WKT is invalid
+	 */
+	CanonicalWKB parseCanonical() throws IOException {
+		final byte[] wkb = parseDirect();
+		if (wkb != null) {
+			// the direct parser writes big endian, ISO type codes and no NaN which is the canonical encoding
+			return CanonicalWKB.ofCanonical(wkb, m_geometryType, m_minX, m_minY, m_maxX, m_maxY);
+		}
+		return CanonicalWKB.of(GeoConverter.geo2wkb(GeoConverter.wkt2Geo(m_wkt)));
+	}
+
+	/**
+	 * @return the WKB or <code>null</code> if the WKT is not supported by the
+	 *         direct parser
+	 */
+	private byte[] parseDirect() {
+		m_pos = 0;
+		m_length = 0;
+		m_minX = Double.POSITIVE_INFINITY;
+		m_minY = Double.POSITIVE_INFINITY;
+		m_maxX = Double.NEGATIVE_INFINITY;
+		m_maxY = Double.NEGATIVE_INFINITY;
+		skipWhitespace();
+		final GeometryType type = readGeometryType();
+		if (type == null) {
+			return null;
+		}
+		m_geometryType = type;
+		final int dimFlags = readDimensions();
+		if (dimFlags < 0) {
+			return null;
+		}
+		if (type == GeometryType.POINT) {
+			// fast path for the most common type which is written into a buffer of
+			// the exact size
+			m_buffer = new byte[WKBHeader.SIZE + Double.BYTES * dimensions(dimFlags)];
+		} else {
+			m_buffer = new byte[m_wkt.length() * 2 + WKBHeader.SIZE];
+		}
+		try {
+			if (!writeGeometry(type, dimFlags)) {
+				return null;
+			}
+		} catch (final NumberFormatException e) {
+			return null;
+		}
+		skipWhitespace();
+		if (m_pos != m_wkt.length()) {
+			return null;
+		}
+		return m_length == m_buffer.length ? m_buffer : Arrays.copyOf(m_buffer, m_length);
+	}
+
+	private boolean writeGeometry(final GeometryType type, final int dimFlags) {
+		writeHeader(type, dimFlags);
+		switch (type) {
+		case POINT:
+			return readPointText(dimFlags);
+		case LINESTRING:
+			return readLineStringText(dimFlags);
+		case POLYGON:
+			return readPolygonText(dimFlags);
+		case MULTIPOINT:
+			return readMultiPointText(dimFlags);
+		case MULTILINESTRING:
+		case MULTIPOLYGON:
+			return readMultiText(type == GeometryType.MULTILINESTRING ? GeometryType.LINESTRING
+					: GeometryType.POLYGON, dimFlags);
+		case GEOMETRYCOLLECTION:
+			return readCollectionText();
+		default:
+			return false;
+		}
+	}
+
+	private boolean readPointText(final int dimFlags) {
+		return consume('(') && readCoordinate(dimFlags) && consume(')');
+	}
+
+	private boolean readLineStringText(final int dimFlags) {
+		if (!consume('(')) {
+			return false;
+		}
+		final int countPos = reserveCount();
+		int count = 0;
+		do {
+			if (!readCoordinate(dimFlags)) {
+				return false;
+			}
+			count++;
+		} while (consume(','));
+		writeCount(countPos, count);
+		return consume(')');
+	}
+
+	private boolean readPolygonText(final int dimFlags) {
+		if (!consume('(')) {
+			return false;
+		}
+		final int countPos = reserveCount();
+		int count = 0;
+		do {
+			if (!readLineStringText(dimFlags)) {
+				return false;
+			}
+			count++;
+		} while (consume(','));
+		writeCount(countPos, count);
+		return consume(')');
+	}
+
+	private boolean readMultiPointText(final int dimFlags) {
+		if (!consume('(')) {
+			return false;
+		}
+		final int countPos = reserveCount();
+		int count = 0;
+		do {
+			writeHeader(GeometryType.POINT, dimFlags);
+			// the points might be enclosed in parentheses or not
+			final boolean enclosed = consume('(');
+			if (!readCoordinate(dimFlags) || (enclosed && !consume(')'))) {
+				return false;
+			}
+			count++;
+		} while (consume(','));
+		writeCount(countPos, count);
+		return consume(')');
+	}
+
+	private boolean readMultiText(final GeometryType memberType, final int dimFlags) {
+		if (!consume('(')) {
+			return false;
+		}
+		final int countPos = reserveCount();
+		int count = 0;
+		do {
+			writeHeader(memberType, dimFlags);
+			final boolean valid = memberType == GeometryType.LINESTRING ? readLineStringText(dimFlags)
+					: readPolygonText(dimFlags);
+			if (!valid) {
+				return false;
+			}
+			count++;
+		} while (consume(','));
+		writeCount(countPos, count);
+		return consume(')');
+	}
+
+	private boolean readCollectionText() {
+		if (!consume('(')) {
+			return false;
+		}
+		final int countPos = reserveCount();
+		int count = 0;
+		do {
+			skipWhitespace();
+			final GeometryType type = readGeometryType();
+			if (type == null) {
+				return false;
+			}
+			final int dimFlags = readDimensions();
+			if (dimFlags < 0 || !writeGeometry(type, dimFlags)) {
+				return false;
+			}
+			count++;
+		} while (consume(','));
+		writeCount(countPos, count);
+		return consume(')');
+	}
+
+	private boolean readCoordinate(final int dimFlags) {
+		final int dims = dimensions(dimFlags);
+		for (int d = 0; d < dims; d++) {
+			skipWhitespace();
+			if (d > 0 && !Character.isWhitespace(m_wkt.charAt(m_pos - 1))) {
+				// numbers must be separated by whitespace
+				return false;
+			}
+			final int start = m_pos;
+			final double value = readNumber();
+			if (m_pos == start) {
+				return false;
+			}
+			if (d == 0) {
+				m_minX = Math.min(m_minX, value);
+				m_maxX = Math.max(m_maxX, value);
+			} else if (d == 1) {
+				m_minY = Math.min(m_minY, value);
+				m_maxY = Math.max(m_maxY, value);
+			}
+			writeLong(Double.doubleToRawLongBits(value));
+		}
+		return true;
+	}
+
+	/**
+	 * Reads a decimal number. Numbers with up to 15 significant digits and a small
+	 * exponent are converted without creating a {@link String} since they can be
+	 * converted exactly.
+	 */
+	private double readNumber() {
+		final int start = m_pos;
+		final int end = m_wkt.length();
+		boolean negative = false;
+		if (m_pos < end && (m_wkt.charAt(m_pos) == '-' || m_wkt.charAt(m_pos) == '+')) {
+			negative = m_wkt.charAt(m_pos) == '-';
+			m_pos++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean exact = true;
+		boolean fraction = false;
+		for (; m_pos < end; m_pos++) {
+			final char c = m_wkt.charAt(m_pos);
+			if (c >= '0' && c <= '9') {
+				if (mantissa < MAX_EXACT_MANTISSA / 10) {
+					mantissa = mantissa * 10 + (c - '0');
+				} else {
+					exact = false;
+				}
+				if (fraction) {
+					scale--;
+				}
+				digits++;
+			} else if (c == '.' && !fraction) {
+				fraction = true;
+			} else {
+				break;
+			}
+		}
+		if (digits == 0) {
+			m_pos = start;
+			return Double.NaN;
+		}
+		if (m_pos < end && (m_wkt.charAt(m_pos) == 'e' || m_wkt.charAt(m_pos) == 'E')) {
+			m_pos++;
+			boolean negativeExponent = false;
+			if (m_pos < end && (m_wkt.charAt(m_pos) == '-' || m_wkt.charAt(m_pos) == '+')) {
+				negativeExponent = m_wkt.charAt(m_pos) == '-';
+				m_pos++;
+			}
+			int exponent = 0;
+			final int exponentStart = m_pos;
+			for (; m_pos < end && m_wkt.charAt(m_pos) >= '0' && m_wkt.charAt(m_pos) <= '9'; m_pos++) {
+				if (exponent < 10000) {
+					exponent = exponent * 10 + (m_wkt.charAt(m_pos) - '0');
+				}
+			}
+			if (m_pos == exponentStart) {
+				throw new NumberFormatException("Missing exponent");
+			}
+			scale += negativeExponent ? -exponent : exponent;
+		}
+		if (!exact || scale < -22 || scale > 22) {
+			return Double.parseDouble(m_wkt.substring(start, m_pos));
+		}
+		final double value = scale < 0 ? mantissa / POW10[-scale] : mantissa * POW10[scale];
+		return negative ? -value : value;
+	}
+
+	/**
+	 * @return the {@link GeometryType} or <code>null</code> if the type is not
+	 *         supported by the direct parser
+	 */
+	private GeometryType readGeometryType() {
+		final int start = m_pos;
+		while (m_pos < m_wkt.length() && Character.isLetter(m_wkt.charAt(m_pos))) {
+			m_pos++;
+		}
+		final int length = m_pos - start;
+		for (final GeometryType type : SUPPORTED_TYPES) {
+			final String name = type.name();
+			if (name.length() == length && m_wkt.regionMatches(true, start, name, 0, length)) {
+				return type;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the dimension flags (1 for Z, 2 for M) or -1 if the dimensions are
+	 *         invalid or the geometry is empty
+	 */
+	private int readDimensions() {
+		skipWhitespace();
+		final int start = m_pos;
+		while (m_pos < m_wkt.length() && Character.isLetter(m_wkt.charAt(m_pos))) {
+			m_pos++;
+		}
+		final int length = m_pos - start;
+		if (length == 0) {
+			return 0;
+		}
+		if (length == 1 && m_wkt.regionMatches(true, start, "Z", 0, 1)) {
+			return 1;
+		}
+		if (length == 1 && m_wkt.regionMatches(true, start, "M", 0, 1)) {
+			return 2;
+		}
+		if (length == 2 && m_wkt.regionMatches(true, start, "ZM", 0, 2)) {
+			return 3;
+		}
+		// e.g. EMPTY
+		return -1;
+	}
+
+	private static int dimensions(final int dimFlags) {
+		return 2 + (dimFlags & 1) + (dimFlags >> 1);
+	}
+
+	private boolean consume(final char c) {
+		skipWhitespace();
+		if (m_pos < m_wkt.length() && m_wkt.charAt(m_pos) == c) {
+			m_pos++;
+			return true;
+		}
+		return false;
+	}
+
+	private void skipWhitespace() {
+		while (m_pos < m_wkt.length() && Character.isWhitespace(m_wkt.charAt(m_pos))) {
+			m_pos++;
+		}
+	}
+
+	private void writeHeader(final GeometryType type, final int dimFlags) {
+		ensureCapacity(WKBHeader.SIZE);
+		m_buffer[m_length++] = BIG_ENDIAN;
+		writeInt(isoCode(type) + 1000 * dimFlags);
+	}
+
+	private static int isoCode(final GeometryType type) {
+		switch (type) {
+		case POINT:
+			return 1;
+		case LINESTRING:
+			return 2;
+		case POLYGON:
+			return 3;
+		case MULTIPOINT:
+			return 4;
+		case MULTILINESTRING:
+			return 5;
+		case MULTIPOLYGON:
+			return 6;
+		default:
+			return 7;
+		}
+	}
+
+	private int reserveCount() {
+		final int pos = m_length;
+		writeInt(0);
+		return pos;
+	}
+
+	private void writeCount(final int pos, final int count) {
+		final int length = m_length;
+		m_length = pos;
+		writeInt(count);
+		m_length = length;
+	}
+
+	private void writeInt(final int value) {
+		ensureCapacity(Integer.BYTES);
+		m_buffer[m_length++] = (byte) (value >>> 24);
+		m_buffer[m_length++] = (byte) (value >>> 16);
+		m_buffer[m_length++] = (byte) (value >>> 8);
+		m_buffer[m_length++] = (byte) value;
+	}
+
+	private void writeLong(final long value) {
+		writeInt((int) (value >>> 32));
+		writeInt((int) value);
+	}
+
+	private void ensureCapacity(final int additional) {
+		if (m_length + additional > m_buffer.length) {
+			m_buffer = Arrays.copyOf(m_buffer, Math.max(m_buffer.length * 2, m_length + additional));
+		}
+	}
+}
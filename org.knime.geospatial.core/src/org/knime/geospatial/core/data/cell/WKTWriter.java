@@ -0,0 +1,251 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+
+package org.knime.geospatial.core.data.cell;
+
+import java.io.IOException;
+
+import mil.nga.sf.GeometryType;
+import mil.nga.sf.util.SFException;
+
+/**
+ * Writes the Well Known Text (WKT) representation of a Well Known Binary (WKB)
+ * by walking the WKB bytes once without creating any intermediate geometric
+ * objects. The output is identical to the one of
+ * {@link mil.nga.sf.wkt.GeometryWriter}. Geometries that are not supported by
+ * the direct transcoding e.g. empty or curved geometries are written via the
+ * geometric objects.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+final class WKTWriter {
+
+	/** Returned by the write methods if the geometry can not be transcoded directly. */
+	private static final int UNSUPPORTED = -1;
+
+	private WKTWriter() {
+		// Avoid object creation
+	}
+
+	/**
+	 * Appends the WKT representation of the given WKB to the given
+	 * {@link StringBuilder}.
+	 *
+	 * @param wkb the Well Known Binary
+	 * @param sb  the {@link StringBuilder} to append to
+	 * @throws IOException if the WKB is invalid
+	 */
+	static void write(final byte[] wkb, final StringBuilder sb) throws IOException {
+		final int start = sb.length();
+		final int end;
+		try {
+			end = writeGeometry(wkb, 0, sb);
+		} catch (final ArrayIndexOutOfBoundsException e) {
+			throw new IOException("Invalid WKB: geometry incomplete", e);
+		}
+		if (end == UNSUPPORTED) {
+			sb.setLength(start);
+			try {
+				sb.append(mil.nga.sf.wkt.GeometryWriter.writeGeometry(GeoConverter.wkb2Geo(wkb)));
+			} catch (final SFException e) {
+				throw new IOException(e);
+			}
+		}
+	}
+
+	private static int writeGeometry(final byte[] wkb, final int offset, final StringBuilder sb)
+			throws IOException {
+		final int typeCode = WKBHeader.typeCode(wkb, offset);
+		if (WKBHeader.hasSRID(typeCode)) {
+			return UNSUPPORTED;
+		}
+		final boolean littleEndian = WKBHeader.isLittleEndian(wkb, offset);
+		final GeometryType type = WKBHeader.geometryType(typeCode);
+		final boolean hasZ = WKBHeader.hasZ(typeCode);
+		final boolean hasM = WKBHeader.hasM(typeCode);
+		final int dims = 2 + (hasZ ? 1 : 0) + (hasM ? 1 : 0);
+		sb.append(type.name()).append(' ');
+		if (hasZ || hasM) {
+			if (hasZ) {
+				sb.append('Z');
+			}
+			if (hasM) {
+				sb.append('M');
+			}
+			sb.append(' ');
+		}
+		final int pos = offset + WKBHeader.SIZE;
+		switch (type) {
+		case POINT:
+			return writePoint(wkb, pos, littleEndian, dims, sb);
+		case LINESTRING:
+			return writeLineString(wkb, pos, littleEndian, dims, sb);
+		case POLYGON:
+			return writePolygon(wkb, pos, littleEndian, dims, sb);
+		case MULTIPOINT:
+			return writeCollection(wkb, pos, littleEndian, GeometryType.POINT, sb);
+		case MULTILINESTRING:
+			return writeCollection(wkb, pos, littleEndian, GeometryType.LINESTRING, sb);
+		case MULTIPOLYGON:
+			return writeCollection(wkb, pos, littleEndian, GeometryType.POLYGON, sb);
+		case GEOMETRYCOLLECTION:
+			return writeCollection(wkb, pos, littleEndian, null, sb);
+		default:
+			return UNSUPPORTED;
+		}
+	}
+
+	private static int writePoint(final byte[] wkb, final int offset, final boolean littleEndian, final int dims,
+			final StringBuilder sb) {
+		if (Double.isNaN(WKBHeader.readDouble(wkb, offset, littleEndian))
+				&& Double.isNaN(WKBHeader.readDouble(wkb, offset + Double.BYTES, littleEndian))) {
+			// empty point
+			return UNSUPPORTED;
+		}
+		sb.append('(');
+		final int end = writeCoordinate(wkb, offset, littleEndian, dims, sb);
+		sb.append(')');
+		return end;
+	}
+
+	private static int writeLineString(final byte[] wkb, final int offset, final boolean littleEndian,
+			final int dims, final StringBuilder sb) {
+		final int numPoints = WKBHeader.readInt(wkb, offset, littleEndian);
+		if (numPoints <= 0) {
+			return UNSUPPORTED;
+		}
+		int pos = offset + Integer.BYTES;
+		sb.append('(');
+		for (int i = 0; i < numPoints; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			pos = writeCoordinate(wkb, pos, littleEndian, dims, sb);
+		}
+		sb.append(')');
+		return pos;
+	}
+
+	private static int writePolygon(final byte[] wkb, final int offset, final boolean littleEndian, final int dims,
+			final StringBuilder sb) {
+		final int numRings = WKBHeader.readInt(wkb, offset, littleEndian);
+		if (numRings <= 0) {
+			return UNSUPPORTED;
+		}
+		int pos = offset + Integer.BYTES;
+		sb.append('(');
+		for (int i = 0; i < numRings; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			pos = writeLineString(wkb, pos, littleEndian, dims, sb);
+			if (pos == UNSUPPORTED) {
+				return UNSUPPORTED;
+			}
+		}
+		sb.append(')');
+		return pos;
+	}
+
+	/**
+	 * Writes the members of a multi geometry or geometry collection.
+	 *
+	 * @param memberType the expected {@link GeometryType} of the members whose
+	 *                   type name is not written or <code>null</code> if the
+	 *                   members are written including their type name
+	 */
+	private static int writeCollection(final byte[] wkb, final int offset, final boolean littleEndian,
+			final GeometryType memberType, final StringBuilder sb) throws IOException {
+		final int numGeometries = WKBHeader.readInt(wkb, offset, littleEndian);
+		if (numGeometries <= 0) {
+			return UNSUPPORTED;
+		}
+		int pos = offset + Integer.BYTES;
+		sb.append('(');
+		for (int i = 0; i < numGeometries; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			pos = memberType == null ? writeGeometry(wkb, pos, sb) : writeMember(wkb, pos, memberType, sb);
+			if (pos == UNSUPPORTED) {
+				return UNSUPPORTED;
+			}
+		}
+		sb.append(')');
+		return pos;
+	}
+
+	private static int writeMember(final byte[] wkb, final int offset, final GeometryType memberType,
+			final StringBuilder sb) throws IOException {
+		final int typeCode = WKBHeader.typeCode(wkb, offset);
+		if (WKBHeader.hasSRID(typeCode) || WKBHeader.geometryType(typeCode) != memberType) {
+			return UNSUPPORTED;
+		}
+		final boolean littleEndian = WKBHeader.isLittleEndian(wkb, offset);
+		final int dims = 2 + (WKBHeader.hasZ(typeCode) ? 1 : 0) + (WKBHeader.hasM(typeCode) ? 1 : 0);
+		final int pos = offset + WKBHeader.SIZE;
+		switch (memberType) {
+		case POINT:
+			return writePoint(wkb, pos, littleEndian, dims, sb);
+		case LINESTRING:
+			return writeLineString(wkb, pos, littleEndian, dims, sb);
+		default:
+			return writePolygon(wkb, pos, littleEndian, dims, sb);
+		}
+	}
+
+	private static int writeCoordinate(final byte[] wkb, final int offset, final boolean littleEndian,
+			final int dims, final StringBuilder sb) {
+		int pos = offset;
+		for (int d = 0; d < dims; d++) {
+			if (d > 0) {
+				sb.append(' ');
+			}
+			sb.append(WKBHeader.readDouble(wkb, pos, littleEndian));
+			pos += Double.BYTES;
+		}
+		return pos;
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.metadata;
+
+import java.util.Arrays;
+
+import org.knime.geospatial.core.data.GeoEnvelope;
+
+/**
+ * Coarse density histogram of a geo column that counts the geometric objects
+ * per cell of a regular grid over the extent of the column. Each geometric
+ * object is counted in the cell that contains the center of its envelope.
+ * Nodes can use the histogram to estimate the selectivity of a spatial filter
+ * or join and to choose a partitioning strategy for skewed data without
+ * reading the data.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ * @noreference non-public API
+ * @noinstantiate non-public API
+ */
+public final class GeoHistogram {
+
+	private final GeoEnvelope m_extent;
+
+	private final int m_resolution;
+
+	/** Row major counts, the first row has the smallest y coordinates. */
+	private final long[] m_counts;
+
+	/**
+	 * @param extent     the extent of the grid
+	 * @param resolution the number of cells per dimension
+	 * @param counts     the row major counts of the resolution x resolution cells
+	 *                   which is not copied
+	 */
+	GeoHistogram(final GeoEnvelope extent, final int resolution, final long[] counts) {
+		m_extent = extent;
+		m_resolution = resolution;
+		m_counts = counts;
+	}
+
+	/**
+	 * @return the extent of the grid which contains the envelope centers of all
+	 *         geometric objects
+	 */
+	public GeoEnvelope getExtent() {
+		return m_extent;
+	}
+
+	/**
+	 * @return the number of cells per dimension
+	 */
+	public int getResolution() {
+		return m_resolution;
+	}
+
+	/**
+	 * @param column the column index of the cell from 0 (minimum x) to
+	 *               {@link #getResolution()} - 1
+	 * @param row    the row index of the cell from 0 (minimum y) to
+	 *               {@link #getResolution()} - 1
+	 * @return the number of geometric objects whose envelope center lies in the
+	 *         cell
+	 */
+	public long getCount(final int column, final int row) {
+		return m_counts[row * m_resolution + column];
+	}
+
+	/**
+	 * @return the number of geometric objects of the histogram
+	 */
+	public long getTotalCount() {
+		long total = 0;
+		for (final long count : m_counts) {
+			total += count;
+		}
+		return total;
+	}
+
+	/**
+	 * Estimates the number of geometric objects whose envelope center lies in the
+	 * given window assuming that the objects are uniformly distributed within each
+	 * cell.
+	 *
+	 * @param window the spatial window
+	 * @return the estimated number of geometric objects in the window
+	 */
+	public double estimateCount(final GeoEnvelope window) {
+		if (!m_extent.intersects(window)) {
+			return 0;
+		}
+		final double cellWidth = (m_extent.getMaxX() - m_extent.getMinX()) / m_resolution;
+		final double cellHeight = (m_extent.getMaxY() - m_extent.getMinY()) / m_resolution;
+		final int minCol = cellIndex(window.getMinX(), m_extent.getMinX(), cellWidth);
+		final int maxCol = cellIndex(window.getMaxX(), m_extent.getMinX(), cellWidth);
+		final int minRow = cellIndex(window.getMinY(), m_extent.getMinY(), cellHeight);
+		final int maxRow = cellIndex(window.getMaxY(), m_extent.getMinY(), cellHeight);
+		double estimate = 0;
+		for (int row = minRow; row <= maxRow; row++) {
+			final double cellMinY = m_extent.getMinY() + row * cellHeight;
+			final double fractionY = overlap(cellMinY, cellMinY + cellHeight, window.getMinY(), window.getMaxY())
+					/ cellHeight;
+			for (int col = minCol; col <= maxCol; col++) {
+				final long count = m_counts[row * m_resolution + col];
+				if (count > 0) {
+					final double cellMinX = m_extent.getMinX() + col * cellWidth;
+					final double fractionX = overlap(cellMinX, cellMinX + cellWidth, window.getMinX(),
+							window.getMaxX()) / cellWidth;
+					estimate += count * fractionX * fractionY;
+				}
+			}
+		}
+		return estimate;
+	}
+
+	/**
+	 * @param window the spatial window
+	 * @return the estimated fraction of the geometric objects in the window
+	 *         between 0 and 1
+	 */
+	public double estimateSelectivity(final GeoEnvelope window) {
+		final long total = getTotalCount();
+		return total == 0 ? 0 : Math.min(1, estimateCount(window) / total);
+	}
+
+	private int cellIndex(final double value, final double min, final double cellSize) {
+		final int index = (int) Math.floor((value - min) / cellSize);
+		return Math.max(0, Math.min(m_resolution - 1, index));
+	}
+
+	private static double overlap(final double min1, final double max1, final double min2, final double max2) {
+		return Math.max(0, Math.min(max1, max2) - Math.max(min1, min2));
+	}
+
+	/**
+	 * @return the row major counts which must not be changed
+	 */
+	long[] getCounts() {
+		return m_counts;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof GeoHistogram)) {
+			return false;
+		}
+		final GeoHistogram other = (GeoHistogram) obj;
+		return m_resolution == other.m_resolution && m_extent.equals(other.m_extent)
+				&& Arrays.equals(m_counts, other.m_counts);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + m_extent.hashCode();
+		result = prime * result + m_resolution;
+		result = prime * result + Arrays.hashCode(m_counts);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return m_resolution + "x" + m_resolution + " histogram " + m_extent;
+	}
+}
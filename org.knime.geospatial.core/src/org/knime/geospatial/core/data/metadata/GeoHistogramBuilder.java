@@ -0,0 +1,232 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.metadata;
+
+import org.knime.geospatial.core.data.GeoEnvelope;
+
+/**
+ * Incrementally builds a {@link GeoHistogram} without knowing the extent of the
+ * column in advance. The grid starts at the envelope of the first geometric
+ * object and doubles its width or height whenever an envelope center lies
+ * outside of it. Doubling merges two neighboring cells into one which is why
+ * the counts stay exact and the costs only depend on the number of doublings.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+final class GeoHistogramBuilder {
+
+	/**
+	 * Number of cells per dimension which is kept small since the histogram is
+	 * stored in the spec of each geo column.
+	 */
+	static final int RESOLUTION = 16;
+
+	/** Relative minimum extent of the initial grid e.g. for single points. */
+	private static final double MIN_RELATIVE_SIZE = 1e-6;
+
+	private double m_minX;
+
+	private double m_minY;
+
+	private double m_width;
+
+	private double m_height;
+
+	/** <code>null</code> as long as no geometric object was added. */
+	private long[] m_counts;
+
+	GeoHistogramBuilder() {
+		// the grid is initialized by the first geometric object
+	}
+
+	GeoHistogramBuilder(final GeoHistogramBuilder toCopy) {
+		m_minX = toCopy.m_minX;
+		m_minY = toCopy.m_minY;
+		m_width = toCopy.m_width;
+		m_height = toCopy.m_height;
+		m_counts = toCopy.m_counts == null ? null : toCopy.m_counts.clone();
+	}
+
+	/**
+	 * @param envelope the envelope of the geometric object to count
+	 */
+	void add(final GeoEnvelope envelope) {
+		if (envelope.isEmpty()) {
+			return;
+		}
+		final double x = (envelope.getMinX() + envelope.getMaxX()) / 2;
+		final double y = (envelope.getMinY() + envelope.getMaxY()) / 2;
+		if (m_counts == null) {
+			m_minX = envelope.getMinX();
+			m_minY = envelope.getMinY();
+			m_width = envelope.getMaxX() - envelope.getMinX();
+			m_height = envelope.getMaxY() - envelope.getMinY();
+			initSize(x, y);
+		}
+		add(x, y, 1);
+	}
+
+	/**
+	 * @param histogram the histogram of other geometric objects whose counts to
+	 *                  add
+	 */
+	void add(final GeoHistogram histogram) {
+		final GeoEnvelope extent = histogram.getExtent();
+		final long[] counts = histogram.getCounts();
+		final int resolution = histogram.getResolution();
+		if (m_counts == null && resolution == RESOLUTION) {
+			m_minX = extent.getMinX();
+			m_minY = extent.getMinY();
+			m_width = extent.getMaxX() - extent.getMinX();
+			m_height = extent.getMaxY() - extent.getMinY();
+			m_counts = counts.clone();
+			return;
+		}
+		final double cellWidth = (extent.getMaxX() - extent.getMinX()) / resolution;
+		final double cellHeight = (extent.getMaxY() - extent.getMinY()) / resolution;
+		for (int row = 0; row < resolution; row++) {
+			for (int col = 0; col < resolution; col++) {
+				final long count = counts[row * resolution + col];
+				if (count > 0) {
+					// the grids are not aligned which is why the counts are moved to the cell centers
+					final double x = extent.getMinX() + (col + 0.5) * cellWidth;
+					final double y = extent.getMinY() + (row + 0.5) * cellHeight;
+					if (m_counts == null) {
+						m_minX = x;
+						m_minY = y;
+						m_width = 0;
+						m_height = 0;
+						initSize(x, y);
+					}
+					add(x, y, count);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param other the builder whose counts to add
+	 */
+	void add(final GeoHistogramBuilder other) {
+		final GeoHistogram histogram = other.build();
+		if (histogram != null) {
+			add(histogram);
+		}
+	}
+
+	/**
+	 * @return the {@link GeoHistogram} or <code>null</code> if no geometric object
+	 *         was added
+	 */
+	GeoHistogram build() {
+		if (m_counts == null) {
+			return null;
+		}
+		return new GeoHistogram(new GeoEnvelope(m_minX, m_minY, m_minX + m_width, m_minY + m_height), RESOLUTION,
+				m_counts.clone());
+	}
+
+	private void initSize(final double x, final double y) {
+		final double minWidth = Math.max(Math.abs(x), 1) * MIN_RELATIVE_SIZE;
+		if (!(m_width >= minWidth)) {
+			m_minX = x - minWidth / 2;
+			m_width = minWidth;
+		}
+		final double minHeight = Math.max(Math.abs(y), 1) * MIN_RELATIVE_SIZE;
+		if (!(m_height >= minHeight)) {
+			m_minY = y - minHeight / 2;
+			m_height = minHeight;
+		}
+		m_counts = new long[RESOLUTION * RESOLUTION];
+	}
+
+	private void add(final double x, final double y, final long count) {
+		if (!Double.isFinite(x) || !Double.isFinite(y)) {
+			return;
+		}
+		while (x < m_minX) {
+			// the old grid becomes the right half
+			m_minX -= m_width;
+			doubleWidth(RESOLUTION);
+		}
+		while (x > m_minX + m_width) {
+			doubleWidth(0);
+		}
+		while (y < m_minY) {
+			// the old grid becomes the upper half
+			m_minY -= m_height;
+			doubleHeight(RESOLUTION);
+		}
+		while (y > m_minY + m_height) {
+			doubleHeight(0);
+		}
+		final int col = Math.min(RESOLUTION - 1, (int) ((x - m_minX) / m_width * RESOLUTION));
+		final int row = Math.min(RESOLUTION - 1, (int) ((y - m_minY) / m_height * RESOLUTION));
+		m_counts[row * RESOLUTION + col] += count;
+	}
+
+	private void doubleWidth(final int offset) {
+		m_width *= 2;
+		final long[] counts = new long[m_counts.length];
+		for (int row = 0; row < RESOLUTION; row++) {
+			for (int col = 0; col < RESOLUTION; col++) {
+				counts[row * RESOLUTION + (offset + col) / 2] += m_counts[row * RESOLUTION + col];
+			}
+		}
+		m_counts = counts;
+	}
+
+	private void doubleHeight(final int offset) {
+		m_height *= 2;
+		final long[] counts = new long[m_counts.length];
+		for (int row = 0; row < RESOLUTION; row++) {
+			final int newRow = (offset + row) / 2;
+			for (int col = 0; col < RESOLUTION; col++) {
+				counts[newRow * RESOLUTION + col] += m_counts[row * RESOLUTION + col];
+			}
+		}
+		m_counts = counts;
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.metadata;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.knime.geospatial.core.data.GeoEnvelope;
+import org.knime.geospatial.core.data.GeoValue;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
+
+/**
+ * Statistics of all geometric objects of a geo column that consist of the
+ * extent per {@link GeoReferenceSystem}, the number of geometric objects per
+ * geometry type, the total number of coordinates and the minimum and maximum
+ * WKB length. Nodes can use the statistics during configure e.g. to size
+ * buffers, to choose index parameters or to reject spatial filters outside of
+ * the extent without reading the data. The counts describe the geometric
+ * objects of the column whereas the extents and the WKB length range are
+ * bounds that can be wider e.g. if the domain of the column was initialized
+ * from the column it was derived from.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ * @noreference non-public API
+ * @noinstantiate non-public API
+ */
+public final class GeoStatistics {
+
+	private final Map<GeoReferenceSystem, GeoEnvelope> m_extents;
+
+	private final Map<String, Long> m_typeCounts;
+
+	private final long m_coordinateCount;
+
+	private final int m_minWKBLength;
+
+	private final int m_maxWKBLength;
+
+	/**
+	 * @param extents         the combined {@link GeoEnvelope} per
+	 *                        {@link GeoReferenceSystem}
+	 * @param typeCounts      the number of geometric objects per geometry type see
+	 *                        {@link GeoValue#getGeometryType()}
+	 * @param coordinateCount the total number of coordinates
+	 * @param minWKBLength    the minimum WKB length or 0 if there are no geometric
+	 *                        objects
+	 * @param maxWKBLength    the maximum WKB length or 0 if there are no geometric
+	 *                        objects
+	 */
+	GeoStatistics(final Map<GeoReferenceSystem, GeoEnvelope> extents, final Map<String, Long> typeCounts,
+			final long coordinateCount, final int minWKBLength, final int maxWKBLength) {
+		m_extents = Collections.unmodifiableMap(new HashMap<>(extents));
+		m_typeCounts = Collections.unmodifiableMap(new TreeMap<>(typeCounts));
+		m_coordinateCount = coordinateCount;
+		m_minWKBLength = minWKBLength;
+		m_maxWKBLength = maxWKBLength;
+	}
+
+	/**
+	 * @return the {@link GeoReferenceSystem}s of all geometric objects
+	 */
+	public Set<GeoReferenceSystem> getReferenceSystems() {
+		return m_extents.keySet();
+	}
+
+	/**
+	 * @param refSystem the {@link GeoReferenceSystem}
+	 * @return the combined {@link GeoEnvelope} of all geometric objects with the
+	 *         given reference system which is {@link GeoEnvelope#EMPTY} if there
+	 *         are none
+	 */
+	public GeoEnvelope getExtent(final GeoReferenceSystem refSystem) {
+		return m_extents.getOrDefault(refSystem, GeoEnvelope.EMPTY);
+	}
+
+	/**
+	 * @return the number of geometric objects per geometry type see
+	 *         {@link GeoValue#getGeometryType()}
+	 */
+	public Map<String, Long> getGeometryTypeCounts() {
+		return m_typeCounts;
+	}
+
+	/**
+	 * @return the number of geometric objects which excludes missing values
+	 */
+	public long getGeometryCount() {
+		long count = 0;
+		for (final long typeCount : m_typeCounts.values()) {
+			count += typeCount;
+		}
+		return count;
+	}
+
+	/**
+	 * @return the total number of coordinates of all geometric objects
+	 */
+	public long getCoordinateCount() {
+		return m_coordinateCount;
+	}
+
+	/**
+	 * @return the minimum WKB length in bytes or 0 if there are no geometric
+	 *         objects
+	 */
+	public int getMinWKBLength() {
+		return m_minWKBLength;
+	}
+
+	/**
+	 * @return the maximum WKB length in bytes or 0 if there are no geometric
+	 *         objects
+	 */
+	public int getMaxWKBLength() {
+		return m_maxWKBLength;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof GeoStatistics)) {
+			return false;
+		}
+		final GeoStatistics other = (GeoStatistics) obj;
+		return m_coordinateCount == other.m_coordinateCount && m_minWKBLength == other.m_minWKBLength
+				&& m_maxWKBLength == other.m_maxWKBLength && m_extents.equals(other.m_extents)
+				&& m_typeCounts.equals(other.m_typeCounts);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + m_extents.hashCode();
+		result = prime * result + m_typeCounts.hashCode();
+		result = prime * result + Long.hashCode(m_coordinateCount);
+		result = prime * result + m_minWKBLength;
+		result = prime * result + m_maxWKBLength;
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return m_typeCounts + " " + m_coordinateCount + " coordinates " + m_extents;
+	}
+}
@@ -45,8 +45,16 @@
 package org.knime.geospatial.core.data.metadata;
 
 import java.io.IOException;
-import java.util.Enumeration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 
 import org.knime.core.data.DataColumnSpec;
@@ -61,12 +69,15 @@
 import org.knime.core.node.config.ConfigRO;
 import org.knime.core.node.config.ConfigWO;
 import org.knime.core.node.util.CheckUtils;
+import org.knime.geospatial.core.data.GeoEnvelope;
 import org.knime.geospatial.core.data.GeoValue;
 import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
 import org.knime.geospatial.core.data.reference.GeoReferenceSystemFactory;
 
 /**
- * Holds the information about the {@link GeoReferenceSystem}s.
+ * Holds the information about the {@link GeoReferenceSystem}s, the zone map
+ * (see {@link GeoZone}), the {@link GeoStatistics} and the
+ * {@link GeoHistogram} of a geo column.
  *
  * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
  * @noreference non-public API
@@ -76,6 +87,14 @@ public final class GeoValueMetaData implements DataColumnMetaData {
 
 	private final Set<GeoReferenceSystem> m_refSystem;
 
+	private final List<GeoZone> m_zones;
+
+	/** <code>null</code> if the statistics are unknown. */
+	private final GeoStatistics m_statistics;
+
+	/** <code>null</code> if the histogram is unknown. */
+	private final GeoHistogram m_histogram;
+
 	/**
 	 * Extracts the {@link GeoValueMetaData} from the given {@link DataColumnSpec
 	 * columnSpec} and throws an {@link IllegalStateException} exception if no meta
@@ -136,9 +155,18 @@ public static DataColumnSpec replaceColumnDataType(final DataColumnSpec origSpec
 	 * Creates a {@link GeoValueMetaData} instance.
 	 *
 	 * @param refCoords the set of reference coordinate systems
+	 * @param zones      the zones of consecutive rows in row order
+	 * @param statistics the {@link GeoStatistics} of the column or
+	 *                   <code>null</code> if they are unknown
+	 * @param histogram  the {@link GeoHistogram} of the column or
+	 *                   <code>null</code> if it is unknown
 	 */
-	GeoValueMetaData(final Set<GeoReferenceSystem> refCoords) {
+	GeoValueMetaData(final Set<GeoReferenceSystem> refCoords, final List<GeoZone> zones,
+			final GeoStatistics statistics, final GeoHistogram histogram) {
 		m_refSystem = new HashSet<>(refCoords);
+		m_zones = Collections.unmodifiableList(new ArrayList<>(zones));
+		m_statistics = statistics;
+		m_histogram = histogram;
 	}
 
 	/**
@@ -151,6 +179,62 @@ public Set<GeoReferenceSystem> getReferenceSystem() {
 		return m_refSystem;
 	}
 
+	/**
+	 * Returns the zone map of the column that consists of the statistics of
+	 * consecutive row ranges in row order. The first zone starts at the first row
+	 * and each following zone directly after the rows of its predecessor. The
+	 * list is empty if the zones are unknown e.g. for tables that were written
+	 * before the zone map was introduced.
+	 * <p>
+	 * The zones are bound to the rows they were collected from but the meta data
+	 * is part of the column spec which can also be passed on to a table with
+	 * other rows. The zones are therefore only returned if they cover exactly the
+	 * given number of rows e.g. the rows of the table that is read.
+	 * </p>
+	 *
+	 * @param rowCount the number of rows of the table the zones are used for
+	 * @return the {@link GeoZone}s in row order or an empty list if they are
+	 *         unknown or do not cover the given number of rows
+	 */
+	public List<GeoZone> getZones(final long rowCount) {
+		long zoneRowCount = 0;
+		for (final GeoZone zone : m_zones) {
+			zoneRowCount += zone.getRowCount();
+		}
+		return zoneRowCount == rowCount ? m_zones : Collections.emptyList();
+	}
+
+	/**
+	 * @return all {@link GeoZone}s in row order without checking the rows they
+	 *         cover
+	 */
+	List<GeoZone> getZones() {
+		return m_zones;
+	}
+
+	/**
+	 * Returns the statistics of all geometric objects of the column. The
+	 * statistics are empty if they are unknown e.g. for tables that were written
+	 * before the statistics were introduced.
+	 *
+	 * @return the {@link GeoStatistics} of the column
+	 */
+	public Optional<GeoStatistics> getStatistics() {
+		return Optional.ofNullable(m_statistics);
+	}
+
+	/**
+	 * Returns the density histogram of the column. The histogram is empty if the
+	 * column contains no geometric objects, geometric objects with different
+	 * reference systems whose coordinates can not be compared or if it is unknown
+	 * e.g. for tables that were written before the histogram was introduced.
+	 *
+	 * @return the {@link GeoHistogram} of the column
+	 */
+	public Optional<GeoHistogram> getHistogram() {
+		return Optional.ofNullable(m_histogram);
+	}
+
 	@Override
 	public boolean equals(final Object o) {
 		if (o == this) {
@@ -158,14 +242,16 @@ public boolean equals(final Object o) {
 		}
 		if (o instanceof GeoValueMetaData) {
 			final GeoValueMetaData other = (GeoValueMetaData) o;
-			return m_refSystem.equals(other.m_refSystem);
+			return m_refSystem.equals(other.m_refSystem) && m_zones.equals(other.m_zones)
+					&& Objects.equals(m_statistics, other.m_statistics)
+					&& Objects.equals(m_histogram, other.m_histogram);
 		}
 		return false;
 	}
 
 	@Override
 	public int hashCode() {
-		return m_refSystem.hashCode();
+		return Objects.hash(m_refSystem, m_zones, m_statistics, m_histogram);
 	}
 
 	/**
@@ -184,6 +270,44 @@ public Class<GeoValueMetaData> getMetaDataClass() {
 
 		private static final String CFG_REF_SYSTEM = "reference_system";
 
+		private static final String CFG_ZONES = "zones";
+
+		private static final String CFG_ROW_COUNTS = "row_counts";
+
+		private static final String CFG_MIN_X = "min_x";
+
+		private static final String CFG_MIN_Y = "min_y";
+
+		private static final String CFG_MAX_X = "max_x";
+
+		private static final String CFG_MAX_Y = "max_y";
+
+		private static final String CFG_GEOMETRY_TYPES = "geometry_types";
+
+		private static final String TYPE_SEPARATOR = ",";
+
+		private static final String CFG_STATISTICS = "statistics";
+
+		private static final String CFG_EXTENT_REF_SYSTEMS = "extent_reference_systems";
+
+		private static final String CFG_TYPE_NAMES = "type_names";
+
+		private static final String CFG_TYPE_COUNTS = "type_counts";
+
+		private static final String CFG_COORDINATE_COUNT = "coordinate_count";
+
+		private static final String CFG_MIN_WKB_LENGTH = "min_wkb_length";
+
+		private static final String CFG_MAX_WKB_LENGTH = "max_wkb_length";
+
+		private static final String CFG_HISTOGRAM = "histogram";
+
+		private static final String CFG_RESOLUTION = "resolution";
+
+		private static final String CFG_CELLS = "cells";
+
+		private static final String CFG_COUNTS = "counts";
+
 		/**
 		 * Serializes the given {@link GeoValueMetaData} to the given {@link ConfigWO}.
 		 *
@@ -200,6 +324,108 @@ public void save(final GeoValueMetaData geoValueMetaData, final ConfigWO config)
 				subConfig.addString(CFG_REF_SYSTEM, spec.getCRS());
 				idx++;
 			}
+			saveZones(geoValueMetaData.getZones(), config.addConfig(CFG_ZONES));
+			final Optional<GeoStatistics> statistics = geoValueMetaData.getStatistics();
+			if (statistics.isPresent()) {
+				saveStatistics(statistics.get(), config.addConfig(CFG_STATISTICS));
+			}
+			final Optional<GeoHistogram> histogram = geoValueMetaData.getHistogram();
+			if (histogram.isPresent()) {
+				saveHistogram(histogram.get(), config.addConfig(CFG_HISTOGRAM));
+			}
+		}
+
+		private static void saveHistogram(final GeoHistogram histogram, final ConfigWO config) {
+			final GeoEnvelope extent = histogram.getExtent();
+			config.addDouble(CFG_MIN_X, extent.getMinX());
+			config.addDouble(CFG_MIN_Y, extent.getMinY());
+			config.addDouble(CFG_MAX_X, extent.getMaxX());
+			config.addDouble(CFG_MAX_Y, extent.getMaxY());
+			config.addInt(CFG_RESOLUTION, histogram.getResolution());
+			// only the non empty cells are stored since most cells of skewed data are empty
+			final long[] counts = histogram.getCounts();
+			int size = 0;
+			for (final long count : counts) {
+				if (count > 0) {
+					size++;
+				}
+			}
+			final int[] cells = new int[size];
+			final long[] cellCounts = new long[size];
+			int idx = 0;
+			for (int i = 0; i < counts.length; i++) {
+				if (counts[i] > 0) {
+					cells[idx] = i;
+					cellCounts[idx] = counts[i];
+					idx++;
+				}
+			}
+			config.addIntArray(CFG_CELLS, cells);
+			config.addLongArray(CFG_COUNTS, cellCounts);
+		}
+
+		private static void saveStatistics(final GeoStatistics statistics, final ConfigWO config) {
+			final Set<GeoReferenceSystem> refSystems = statistics.getReferenceSystems();
+			final String[] crs = new String[refSystems.size()];
+			final double[] minX = new double[crs.length];
+			final double[] minY = new double[crs.length];
+			final double[] maxX = new double[crs.length];
+			final double[] maxY = new double[crs.length];
+			int i = 0;
+			for (final GeoReferenceSystem refSystem : refSystems) {
+				final GeoEnvelope extent = statistics.getExtent(refSystem);
+				crs[i] = refSystem.getCRS();
+				minX[i] = extent.getMinX();
+				minY[i] = extent.getMinY();
+				maxX[i] = extent.getMaxX();
+				maxY[i] = extent.getMaxY();
+				i++;
+			}
+			config.addStringArray(CFG_EXTENT_REF_SYSTEMS, crs);
+			config.addDoubleArray(CFG_MIN_X, minX);
+			config.addDoubleArray(CFG_MIN_Y, minY);
+			config.addDoubleArray(CFG_MAX_X, maxX);
+			config.addDoubleArray(CFG_MAX_Y, maxY);
+			final Map<String, Long> typeCounts = statistics.getGeometryTypeCounts();
+			final String[] typeNames = new String[typeCounts.size()];
+			final long[] counts = new long[typeNames.length];
+			i = 0;
+			for (final Entry<String, Long> entry : typeCounts.entrySet()) {
+				typeNames[i] = entry.getKey();
+				counts[i] = entry.getValue();
+				i++;
+			}
+			config.addStringArray(CFG_TYPE_NAMES, typeNames);
+			config.addLongArray(CFG_TYPE_COUNTS, counts);
+			config.addLong(CFG_COORDINATE_COUNT, statistics.getCoordinateCount());
+			config.addInt(CFG_MIN_WKB_LENGTH, statistics.getMinWKBLength());
+			config.addInt(CFG_MAX_WKB_LENGTH, statistics.getMaxWKBLength());
+		}
+
+		private static void saveZones(final List<GeoZone> zones, final ConfigWO config) {
+			// stored as arrays since a column can have many zones
+			final int size = zones.size();
+			final long[] rowCounts = new long[size];
+			final double[] minX = new double[size];
+			final double[] minY = new double[size];
+			final double[] maxX = new double[size];
+			final double[] maxY = new double[size];
+			final String[] types = new String[size];
+			for (int i = 0; i < size; i++) {
+				final GeoZone zone = zones.get(i);
+				rowCounts[i] = zone.getRowCount();
+				minX[i] = zone.getEnvelope().getMinX();
+				minY[i] = zone.getEnvelope().getMinY();
+				maxX[i] = zone.getEnvelope().getMaxX();
+				maxY[i] = zone.getEnvelope().getMaxY();
+				types[i] = String.join(TYPE_SEPARATOR, zone.getGeometryTypes());
+			}
+			config.addLongArray(CFG_ROW_COUNTS, rowCounts);
+			config.addDoubleArray(CFG_MIN_X, minX);
+			config.addDoubleArray(CFG_MIN_Y, minY);
+			config.addDoubleArray(CFG_MAX_X, maxX);
+			config.addDoubleArray(CFG_MAX_Y, maxY);
+			config.addStringArray(CFG_GEOMETRY_TYPES, types);
 		}
 
 		/**
@@ -218,19 +444,82 @@ public GeoValueMetaData load(final ConfigRO config) throws InvalidSettingsExcept
 			if (config.containsKey(CFG_REF_SYSTEM)) {
 				set.add(loadRefSystem(config));
 			} else {
-				@SuppressWarnings("unchecked")
-				final Enumeration<ConfigRO> children = (Enumeration<ConfigRO>) config.children();
-				while (children.hasMoreElements()) {
-					final ConfigRO subConfig = children.nextElement();
-					set.add(loadRefSystem(subConfig));
+				for (final String key : config.keySet()) {
+					if (key.startsWith(CFG_ENTRY)) {
+						set.add(loadRefSystem(config.getConfig(key)));
+					}
 				}
 			}
-			return new GeoValueMetaData(set);
+			final List<GeoZone> zones = config.containsKey(CFG_ZONES) ? loadZones(config.getConfig(CFG_ZONES))
+					: Collections.emptyList();
+			final GeoStatistics statistics = config.containsKey(CFG_STATISTICS)
+					? loadStatistics(config.getConfig(CFG_STATISTICS))
+					: null;
+			final GeoHistogram histogram = config.containsKey(CFG_HISTOGRAM)
+					? loadHistogram(config.getConfig(CFG_HISTOGRAM))
+					: null;
+			return new GeoValueMetaData(set, zones, statistics, histogram);
+		}
+
+		private static GeoHistogram loadHistogram(final ConfigRO config) throws InvalidSettingsException {
+			final GeoEnvelope extent = new GeoEnvelope(config.getDouble(CFG_MIN_X), config.getDouble(CFG_MIN_Y),
+					config.getDouble(CFG_MAX_X), config.getDouble(CFG_MAX_Y));
+			final int resolution = config.getInt(CFG_RESOLUTION);
+			final int[] cells = config.getIntArray(CFG_CELLS);
+			final long[] cellCounts = config.getLongArray(CFG_COUNTS);
+			final long[] counts = new long[resolution * resolution];
+			for (int i = 0; i < cells.length; i++) {
+				counts[cells[i]] = cellCounts[i];
+			}
+			return new GeoHistogram(extent, resolution, counts);
+		}
+
+		private static GeoStatistics loadStatistics(final ConfigRO config) throws InvalidSettingsException {
+			final String[] crs = config.getStringArray(CFG_EXTENT_REF_SYSTEMS);
+			final double[] minX = config.getDoubleArray(CFG_MIN_X);
+			final double[] minY = config.getDoubleArray(CFG_MIN_Y);
+			final double[] maxX = config.getDoubleArray(CFG_MAX_X);
+			final double[] maxY = config.getDoubleArray(CFG_MAX_Y);
+			final Map<GeoReferenceSystem, GeoEnvelope> extents = new HashMap<>();
+			for (int i = 0; i < crs.length; i++) {
+				final GeoEnvelope extent = Double.isNaN(minX[i]) ? GeoEnvelope.EMPTY
+						: new GeoEnvelope(minX[i], minY[i], maxX[i], maxY[i]);
+				extents.put(createRefSystem(crs[i]), extent);
+			}
+			final String[] typeNames = config.getStringArray(CFG_TYPE_NAMES);
+			final long[] counts = config.getLongArray(CFG_TYPE_COUNTS);
+			final Map<String, Long> typeCounts = new HashMap<>();
+			for (int i = 0; i < typeNames.length; i++) {
+				typeCounts.put(typeNames[i], counts[i]);
+			}
+			return new GeoStatistics(extents, typeCounts, config.getLong(CFG_COORDINATE_COUNT),
+					config.getInt(CFG_MIN_WKB_LENGTH), config.getInt(CFG_MAX_WKB_LENGTH));
+		}
+
+		private static List<GeoZone> loadZones(final ConfigRO config) throws InvalidSettingsException {
+			final long[] rowCounts = config.getLongArray(CFG_ROW_COUNTS);
+			final double[] minX = config.getDoubleArray(CFG_MIN_X);
+			final double[] minY = config.getDoubleArray(CFG_MIN_Y);
+			final double[] maxX = config.getDoubleArray(CFG_MAX_X);
+			final double[] maxY = config.getDoubleArray(CFG_MAX_Y);
+			final String[] types = config.getStringArray(CFG_GEOMETRY_TYPES);
+			final List<GeoZone> zones = new ArrayList<>(rowCounts.length);
+			for (int i = 0; i < rowCounts.length; i++) {
+				final Set<String> zoneTypes = types[i].isEmpty() ? Collections.emptySet()
+						: new HashSet<>(Arrays.asList(types[i].split(TYPE_SEPARATOR)));
+				final GeoEnvelope envelope = Double.isNaN(minX[i]) ? GeoEnvelope.EMPTY
+						: new GeoEnvelope(minX[i], minY[i], maxX[i], maxY[i]);
+				zones.add(new GeoZone(rowCounts[i], envelope, zoneTypes));
+			}
+			return zones;
 		}
 
 		private static GeoReferenceSystem loadRefSystem(final ConfigRO config) throws InvalidSettingsException {
+			return createRefSystem(config.getString(CFG_REF_SYSTEM));
+		}
+
+		private static GeoReferenceSystem createRefSystem(final String refSystem) throws InvalidSettingsException {
 			try {
-				final String refSystem = config.getString(CFG_REF_SYSTEM);
 				return GeoReferenceSystemFactory.create(refSystem);
 			} catch (final IOException e) {
 				// this should not happen since the GeoReferenceSystem was already create via
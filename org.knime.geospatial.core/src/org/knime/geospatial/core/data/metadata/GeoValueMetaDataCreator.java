@@ -44,17 +44,39 @@
  */
 package org.knime.geospatial.core.data.metadata;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Set;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.meta.DataColumnMetaDataCreator;
 import org.knime.core.node.util.CheckUtils;
+import org.knime.geospatial.core.data.GeoEnvelope;
 import org.knime.geospatial.core.data.GeoValue;
 import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
 
 /**
- * {@link DataColumnMetaDataCreator} for {@link GeoValueMetaData}.
+ * {@link DataColumnMetaDataCreator} for {@link GeoValueMetaData}. Besides the
+ * reference systems the creator collects the zone map of the column (see
+ * {@link GeoZone}), the {@link GeoStatistics} and the {@link GeoHistogram}. A
+ * zone is closed after {@link #ZONE_SIZE} rows and when creators are merged.
+ * The number of zones is limited by merging neighboring zones. The reference
+ * systems are collected by their CRS string which is cheaper to hash and
+ * compare than the reference systems itself.
+ * <p>
+ * Merged {@link GeoValueMetaData} is kept apart from the updated rows. It is
+ * returned as is by {@link #create()} if no rows were added e.g. when a column
+ * spec is copied. If rows were added e.g. by a container that initializes its
+ * domain from the input spec, the zones, the counts of the statistics and the
+ * histogram only describe the added rows, whereas the reference systems, the
+ * extents and the WKB length range also include the merged meta data.
+ * </p>
  *
  * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
  * @noreference non-public API
@@ -62,33 +84,247 @@
  */
 public final class GeoValueMetaDataCreator implements DataColumnMetaDataCreator<GeoValueMetaData> {
 
-	private final Set<GeoReferenceSystem> m_refs;
+	/** Initial maximum number of rows of a zone. */
+	static final long ZONE_SIZE = 1 << 16;
+
+	/**
+	 * Maximum number of zones, neighboring zones are merged if exceeded. The zones
+	 * are stored in the spec of the column which is why their number is limited.
+	 */
+	static final int MAX_ZONES = 128;
+
+	/** The reference systems by their CRS string. */
+	private final Map<String, GeoReferenceSystem> m_refs;
+
+	/** The closed zones in row order. */
+	private final List<GeoZone> m_zones;
+
+	private long m_zoneSize;
+
+	private long m_rowCount;
+
+	private GeoEnvelope m_envelope;
+
+	private final Set<String> m_types;
+
+	/** The extents by the CRS string of their reference system. */
+	private final Map<String, GeoEnvelope> m_extents;
+
+	private final Map<String, Long> m_typeCounts;
+
+	private long m_coordinateCount;
+
+	private int m_minWKBLength = Integer.MAX_VALUE;
+
+	private int m_maxWKBLength;
+
+	/** <code>false</code> if merged with meta data without statistics. */
+	private boolean m_hasStatistics = true;
+
+	private final GeoHistogramBuilder m_histogram;
+
+	/** <code>false</code> if merged with meta data without histogram. */
+	private boolean m_hasHistogram = true;
+
+	/** Reused to count the coordinates without creating a WKB array per row. */
+	private ByteBuffer m_buffer;
+
+	/**
+	 * The merged meta data or <code>null</code> if none was merged. The seed is
+	 * never changed once it was created and thus shared by copies.
+	 */
+	private GeoValueMetaDataCreator m_seed;
 
 	GeoValueMetaDataCreator() {
-		this(new HashSet<>());
+		m_refs = new HashMap<>();
+		m_zones = new ArrayList<>();
+		m_zoneSize = ZONE_SIZE;
+		m_envelope = GeoEnvelope.EMPTY;
+		m_types = new HashSet<>();
+		m_extents = new HashMap<>();
+		m_typeCounts = new HashMap<>();
+		m_histogram = new GeoHistogramBuilder();
 	}
 
-	private GeoValueMetaDataCreator(final Set<GeoReferenceSystem> refSystems) {
-		m_refs = new HashSet<>(refSystems);
+	private GeoValueMetaDataCreator(final GeoValueMetaDataCreator toCopy) {
+		m_refs = new HashMap<>(toCopy.m_refs);
+		m_zones = new ArrayList<>(toCopy.m_zones);
+		m_zoneSize = toCopy.m_zoneSize;
+		m_rowCount = toCopy.m_rowCount;
+		m_envelope = toCopy.m_envelope;
+		m_types = new HashSet<>(toCopy.m_types);
+		m_extents = new HashMap<>(toCopy.m_extents);
+		m_typeCounts = new HashMap<>(toCopy.m_typeCounts);
+		m_coordinateCount = toCopy.m_coordinateCount;
+		m_minWKBLength = toCopy.m_minWKBLength;
+		m_maxWKBLength = toCopy.m_maxWKBLength;
+		m_hasStatistics = toCopy.m_hasStatistics;
+		m_histogram = new GeoHistogramBuilder(toCopy.m_histogram);
+		m_hasHistogram = toCopy.m_hasHistogram;
+		m_seed = toCopy.m_seed;
 	}
 
 	@Override
 	public void update(final DataCell cell) {
-		if (cell.isMissing() || !(cell instanceof GeoValue)) {
+		// missing values are counted since the zones have to cover all rows
+		m_rowCount++;
+		if (!cell.isMissing() && cell instanceof GeoValue) {
+			final GeoValue value = (GeoValue) cell;
+			final GeoReferenceSystem refSystem = value.getReferenceSystem();
+			final GeoEnvelope envelope = value.getEnvelope();
+			final String type = value.getGeometryType();
+			final String crs = refSystem.getCRS();
+			m_refs.putIfAbsent(crs, refSystem);
+			m_envelope = m_envelope.union(envelope);
+			m_types.add(type);
+			m_extents.merge(crs, envelope, GeoEnvelope::union);
+			m_histogram.add(envelope);
+			m_typeCounts.merge(type, 1L, Long::sum);
+			final int wkbLength = value.getWKBLength();
+			m_minWKBLength = Math.min(m_minWKBLength, wkbLength);
+			m_maxWKBLength = Math.max(m_maxWKBLength, wkbLength);
+			m_coordinateCount += countCoordinates(value, wkbLength);
+		}
+		if (m_rowCount >= m_zoneSize) {
+			closeZone();
+		}
+	}
+
+	private long countCoordinates(final GeoValue value, final int wkbLength) {
+		if (m_buffer == null || m_buffer.capacity() < wkbLength) {
+			m_buffer = ByteBuffer.allocate(Math.max(wkbLength, 1024));
+		}
+		m_buffer.clear();
+		value.getWKB(m_buffer);
+		m_buffer.flip();
+		return WKBCoordinateCounter.count(m_buffer);
+	}
+
+	private GeoStatistics createStatistics() {
+		if (!m_hasStatistics) {
+			return null;
+		}
+		// different CRS strings can describe the same reference system
+		final Map<GeoReferenceSystem, GeoEnvelope> extents = new HashMap<>();
+		for (final Entry<String, GeoEnvelope> entry : m_extents.entrySet()) {
+			extents.merge(m_refs.get(entry.getKey()), entry.getValue(), GeoEnvelope::union);
+		}
+		final boolean empty = m_minWKBLength > m_maxWKBLength;
+		return new GeoStatistics(extents, m_typeCounts, m_coordinateCount, empty ? 0 : m_minWKBLength,
+				empty ? 0 : m_maxWKBLength);
+	}
+
+	private GeoHistogram createHistogram(final Set<GeoReferenceSystem> refs) {
+		// the coordinates of different reference systems can not be compared
+		return m_hasHistogram && refs.size() == 1 ? m_histogram.build() : null;
+	}
+
+	/**
+	 * Widens the reference systems, the extents and the WKB length range by the
+	 * ones of the given seed. The counts are not added since the seed does not
+	 * describe the rows of this creator.
+	 *
+	 * @param seed the merged meta data
+	 */
+	private void addBounds(final GeoValueMetaDataCreator seed) {
+		seed.m_refs.forEach(m_refs::putIfAbsent);
+		seed.m_extents.forEach((crs, extent) -> m_extents.merge(crs, extent, GeoEnvelope::union));
+		m_minWKBLength = Math.min(m_minWKBLength, seed.m_minWKBLength);
+		m_maxWKBLength = Math.max(m_maxWKBLength, seed.m_maxWKBLength);
+	}
+
+	/**
+	 * Adds the given meta data as if its rows followed the rows of this creator.
+	 *
+	 * @param metaData the meta data to add
+	 */
+	private void add(final GeoValueMetaData metaData) {
+		for (final GeoReferenceSystem refSystem : metaData.getReferenceSystem()) {
+			m_refs.putIfAbsent(refSystem.getCRS(), refSystem);
+		}
+		closeZone();
+		for (final GeoZone zone : metaData.getZones()) {
+			addZone(zone);
+		}
+		addStatistics(metaData.getStatistics().orElse(null));
+		final Optional<GeoHistogram> histogram = metaData.getHistogram();
+		if (histogram.isPresent()) {
+			m_histogram.add(histogram.get());
+		} else {
+			m_hasHistogram = false;
+		}
+	}
+
+	/**
+	 * @param statistics the statistics to add or <code>null</code> if they are
+	 *                   unknown which makes the combined statistics unknown
+	 */
+	private void addStatistics(final GeoStatistics statistics) {
+		if (statistics == null) {
+			m_hasStatistics = false;
 			return;
 		}
-		final GeoValue value = (GeoValue) cell;
-		m_refs.add(value.getReferenceSystem());
+		for (final GeoReferenceSystem refSystem : statistics.getReferenceSystems()) {
+			m_refs.putIfAbsent(refSystem.getCRS(), refSystem);
+			m_extents.merge(refSystem.getCRS(), statistics.getExtent(refSystem), GeoEnvelope::union);
+		}
+		statistics.getGeometryTypeCounts().forEach((type, count) -> m_typeCounts.merge(type, count, Long::sum));
+		m_coordinateCount += statistics.getCoordinateCount();
+		if (statistics.getMaxWKBLength() > 0) {
+			m_minWKBLength = Math.min(m_minWKBLength, statistics.getMinWKBLength());
+			m_maxWKBLength = Math.max(m_maxWKBLength, statistics.getMaxWKBLength());
+		}
+	}
+
+	private void closeZone() {
+		if (m_rowCount > 0) {
+			addZone(new GeoZone(m_rowCount, m_envelope, m_types));
+			m_rowCount = 0;
+			m_envelope = GeoEnvelope.EMPTY;
+			m_types.clear();
+		}
+	}
+
+	private void addZone(final GeoZone zone) {
+		m_zones.add(zone);
+		if (m_zones.size() > MAX_ZONES) {
+			// halve the resolution of the zone map by merging neighboring zones
+			final List<GeoZone> merged = new ArrayList<>(m_zones.size() / 2 + 1);
+			for (int i = 0; i < m_zones.size(); i += 2) {
+				merged.add(i + 1 < m_zones.size() ? m_zones.get(i).merge(m_zones.get(i + 1)) : m_zones.get(i));
+			}
+			m_zones.clear();
+			m_zones.addAll(merged);
+			m_zoneSize *= 2;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if rows were added by {@link #update(DataCell)}
+	 *         or by merged creators
+	 */
+	private boolean hasRows() {
+		return m_rowCount > 0 || !m_zones.isEmpty();
 	}
 
 	@Override
 	public GeoValueMetaData create() {
-		return new GeoValueMetaData(m_refs);
+		if (m_seed != null && !hasRows()) {
+			// e.g. a copied column spec
+			return m_seed.create();
+		}
+		final GeoValueMetaDataCreator copy = copy();
+		copy.closeZone();
+		if (m_seed != null) {
+			copy.addBounds(m_seed);
+		}
+		final Set<GeoReferenceSystem> refs = new HashSet<>(copy.m_refs.values());
+		return new GeoValueMetaData(refs, copy.m_zones, copy.createStatistics(), copy.createHistogram(refs));
 	}
 
 	@Override
 	public GeoValueMetaDataCreator copy() {
-		return new GeoValueMetaDataCreator(m_refs);
+		return new GeoValueMetaDataCreator(this);
 	}
 
 	@Override
@@ -97,13 +333,36 @@ public GeoValueMetaDataCreator merge(final DataColumnMetaDataCreator<GeoValueMet
 				"Can only merge with GeoValueMetaDataCreator but received object of type %s.",
 				other.getClass().getName());
 		final GeoValueMetaDataCreator otherCreator = (GeoValueMetaDataCreator)other;
-		m_refs.addAll(otherCreator.m_refs);
+		otherCreator.m_refs.forEach(m_refs::putIfAbsent);
+		otherCreator.m_extents.forEach((crs, extent) -> m_extents.merge(crs, extent, GeoEnvelope::union));
+		otherCreator.m_typeCounts.forEach((type, count) -> m_typeCounts.merge(type, count, Long::sum));
+		m_coordinateCount += otherCreator.m_coordinateCount;
+		m_minWKBLength = Math.min(m_minWKBLength, otherCreator.m_minWKBLength);
+		m_maxWKBLength = Math.max(m_maxWKBLength, otherCreator.m_maxWKBLength);
+		m_hasStatistics &= otherCreator.m_hasStatistics;
+		m_histogram.add(otherCreator.m_histogram);
+		m_hasHistogram &= otherCreator.m_hasHistogram;
+		// the rows of the other creator follow the rows of this creator
+		closeZone();
+		for (final GeoZone zone : otherCreator.m_zones) {
+			addZone(zone);
+		}
+		if (otherCreator.m_rowCount > 0) {
+			addZone(new GeoZone(otherCreator.m_rowCount, otherCreator.m_envelope, otherCreator.m_types));
+		}
+		// copies of the same creator share their seed which must only be kept once
+		if (otherCreator.m_seed != null && otherCreator.m_seed != m_seed) {
+			m_seed = m_seed == null ? otherCreator.m_seed : m_seed.copy().merge(otherCreator.m_seed);
+		}
 		return this;
 	}
 
 	@Override
 	public GeoValueMetaDataCreator merge(final GeoValueMetaData other) {
-		m_refs.addAll(other.getReferenceSystem());
+		// the seed is shared by copies and thus replaced instead of changed
+		final GeoValueMetaDataCreator seed = m_seed == null ? new GeoValueMetaDataCreator() : m_seed.copy();
+		seed.add(other);
+		m_seed = seed;
 		return this;
 	}
 
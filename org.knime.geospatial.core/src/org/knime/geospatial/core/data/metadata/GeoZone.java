@@ -0,0 +1,161 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.metadata;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.knime.geospatial.core.data.GeoEnvelope;
+import org.knime.geospatial.core.data.GeoValue;
+
+/**
+ * Statistics of a consecutive range of rows of a geo column (a zone of the zone
+ * map) that consist of the number of rows, the combined envelope and the
+ * geometry types of the range. Readers can use the zones to skip row ranges
+ * that can not contain any geometric object of a spatial window or of a
+ * geometry type without reading the geometric objects.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ * @noreference non-public API
+ * @noinstantiate non-public API
+ */
+public final class GeoZone {
+
+	private final long m_rowCount;
+
+	private final GeoEnvelope m_envelope;
+
+	private final Set<String> m_geometryTypes;
+
+	/**
+	 * @param rowCount      the number of rows of the zone including missing values
+	 * @param envelope      the combined {@link GeoEnvelope} of all rows
+	 * @param geometryTypes the geometry types of all rows see
+	 *                      {@link GeoValue#getGeometryType()}
+	 */
+	GeoZone(final long rowCount, final GeoEnvelope envelope, final Set<String> geometryTypes) {
+		m_rowCount = rowCount;
+		m_envelope = envelope;
+		m_geometryTypes = Collections.unmodifiableSet(new TreeSet<>(geometryTypes));
+	}
+
+	/**
+	 * @return the number of rows of the zone including missing values
+	 */
+	public long getRowCount() {
+		return m_rowCount;
+	}
+
+	/**
+	 * @return the combined {@link GeoEnvelope} of all rows of the zone
+	 */
+	public GeoEnvelope getEnvelope() {
+		return m_envelope;
+	}
+
+	/**
+	 * @return the geometry types of all rows of the zone
+	 */
+	public Set<String> getGeometryTypes() {
+		return m_geometryTypes;
+	}
+
+	/**
+	 * @param window the spatial window
+	 * @return <code>false</code> if no geometric object of the zone intersects
+	 *         the envelope of the window and the zone can be skipped
+	 */
+	public boolean mayIntersect(final GeoEnvelope window) {
+		return m_envelope.intersects(window);
+	}
+
+	/**
+	 * @param geometryType the geometry type see {@link GeoValue#getGeometryType()}
+	 * @return <code>false</code> if the zone contains no geometric object of the
+	 *         given type and the zone can be skipped
+	 */
+	public boolean mayContain(final String geometryType) {
+		return m_geometryTypes.contains(geometryType);
+	}
+
+	/**
+	 * @param other the zone that directly follows this zone
+	 * @return the zone that covers the rows of both zones
+	 */
+	GeoZone merge(final GeoZone other) {
+		final Set<String> types = new TreeSet<>(m_geometryTypes);
+		types.addAll(other.m_geometryTypes);
+		return new GeoZone(m_rowCount + other.m_rowCount, m_envelope.union(other.m_envelope), types);
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof GeoZone)) {
+			return false;
+		}
+		final GeoZone other = (GeoZone) obj;
+		return m_rowCount == other.m_rowCount && m_envelope.equals(other.m_envelope)
+				&& m_geometryTypes.equals(other.m_geometryTypes);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + Long.hashCode(m_rowCount);
+		result = prime * result + m_envelope.hashCode();
+		result = prime * result + m_geometryTypes.hashCode();
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return m_rowCount + " rows " + m_envelope + " " + m_geometryTypes;
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.metadata;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Counts the coordinates of a Well Known Binary (WKB) geometry by only reading
+ * the headers and element counts and skipping the coordinates. Supports ISO
+ * and extended WKB type codes in both byte orders.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+final class WKBCoordinateCounter {
+
+	private static final int EWKB_Z_FLAG = 0x80000000;
+
+	private static final int EWKB_M_FLAG = 0x40000000;
+
+	private static final int EWKB_SRID_FLAG = 0x20000000;
+
+	private static final int EWKB_FLAGS = EWKB_Z_FLAG | EWKB_M_FLAG | EWKB_SRID_FLAG;
+
+	private WKBCoordinateCounter() {
+		// utility class
+	}
+
+	/**
+	 * @param wkb the buffer positioned at the start of the WKB, the position is
+	 *            moved behind the geometry
+	 * @return the number of coordinates of the geometry
+	 */
+	static long count(final ByteBuffer wkb) {
+		wkb.order(wkb.get() == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+		final int typeCode = wkb.getInt();
+		if ((typeCode & EWKB_SRID_FLAG) != 0) {
+			wkb.getInt();
+		}
+		final int isoCode = typeCode & ~EWKB_FLAGS;
+		// ISO encodes the dimensions in the thousands: 1000 Z, 2000 M and 3000 ZM
+		final int isoDims = isoCode / 1000;
+		final boolean hasZ = (typeCode & EWKB_Z_FLAG) != 0 || isoDims == 1 || isoDims == 3;
+		final boolean hasM = (typeCode & EWKB_M_FLAG) != 0 || isoDims == 2 || isoDims == 3;
+		final int coordinateSize = (2 + (hasZ ? 1 : 0) + (hasM ? 1 : 0)) * Double.BYTES;
+		switch (isoCode % 1000) {
+		case 1:
+			// point
+			skip(wkb, coordinateSize);
+			return 1;
+		case 2:
+		case 8:
+			// line string and circular string
+			return countPoints(wkb, coordinateSize);
+		case 3:
+		case 17:
+			// polygon and triangle
+			final int numRings = wkb.getInt();
+			long count = 0;
+			for (int i = 0; i < numRings; i++) {
+				count += countPoints(wkb, coordinateSize);
+			}
+			return count;
+		default:
+			// all other types are collections of geometries with their own header
+			final int numGeometries = wkb.getInt();
+			long total = 0;
+			for (int i = 0; i < numGeometries; i++) {
+				total += count(wkb);
+			}
+			return total;
+		}
+	}
+
+	private static long countPoints(final ByteBuffer wkb, final int coordinateSize) {
+		final int numPoints = wkb.getInt();
+		skip(wkb, numPoints * coordinateSize);
+		return numPoints;
+	}
+
+	private static void skip(final ByteBuffer wkb, final int bytes) {
+		wkb.position(wkb.position() + bytes);
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.reference;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.knime.core.node.NodeLogger;
+import org.locationtech.proj4j.CoordinateReferenceSystem;
+
+/**
+ * Thread-safe cache of parsed {@link CoordinateReferenceSystem}s that is
+ * bounded by the number of entries. Each CRS string is parsed only once even if
+ * several threads request it at the same time. The least recently used entry is
+ * evicted once the maximum size is exceeded e.g. by many custom WKT-CRS
+ * strings. The statistics of the cache are logged on debug level whenever a
+ * CRS string is parsed or an entry is evicted.
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+final class CRSCache {
+
+	/**
+	 * Creates the {@link CoordinateReferenceSystem} for a normalized CRS string.
+	 */
+	@FunctionalInterface
+	interface Loader {
+		/**
+		 * @param crs the normalized CRS string
+		 * @return the {@link CoordinateReferenceSystem}
+		 * @throws Exception if the CRS string is invalid
+		 */
+		CoordinateReferenceSystem load(String crs) throws Exception;
+	}
+
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(CRSCache.class);
+
+	/**
+	 * The entries in access order which is why the eldest entry is the least
+	 * recently used one. Guarded by itself since reads change the order.
+	 */
+	private final Map<String, Entry> m_entries;
+
+	private final int m_maxSize;
+
+	private final Loader m_loader;
+
+	private final LongAdder m_hits = new LongAdder();
+
+	private final LongAdder m_loads = new LongAdder();
+
+	private final LongAdder m_loadTime = new LongAdder();
+
+	private final LongAdder m_evictions = new LongAdder();
+
+	/**
+	 * @param maxSize the maximum number of cached entries
+	 * @param loader  the {@link Loader} to create missing entries
+	 */
+	CRSCache(final int maxSize, final Loader loader) {
+		m_maxSize = maxSize;
+		m_loader = loader;
+		m_entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, CRSCache.Entry> eldest) {
+				if (size() <= m_maxSize) {
+					return false;
+				}
+				m_evictions.increment();
+				if (LOGGER.isDebugEnabled()) {
+					LOGGER.debug("Evicted coordinate reference system " + eldest.getKey() + ". " + CRSCache.this);
+				}
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached {@link CoordinateReferenceSystem} for the given string or
+	 * loads it if it is not cached yet.
+	 *
+	 * @param crs the normalized CRS string
+	 * @return the {@link CoordinateReferenceSystem}
+	 * @throws Exception if the CRS string is invalid
+	 */
+	CoordinateReferenceSystem get(final String crs) throws Exception {
+		Entry entry;
+		synchronized (m_entries) {
+			// marks the entry as most recently used and evicts the least recently used one if necessary
+			entry = m_entries.computeIfAbsent(crs, key -> new Entry());
+		}
+		// parse outside of the lock to not block requests for other CRS strings
+		return entry.get(crs);
+	}
+
+	/**
+	 * @return the number of requests that were answered from the cache
+	 */
+	long getHitCount() {
+		return m_hits.sum();
+	}
+
+	/**
+	 * @return the number of requests that required parsing the CRS string
+	 */
+	long getLoadCount() {
+		return m_loads.sum();
+	}
+
+	/**
+	 * @return the ratio of requests that were answered from the cache or 1 if
+	 *         there was no request yet
+	 */
+	double getHitRate() {
+		final long hits = getHitCount();
+		final long requests = hits + getLoadCount();
+		return requests == 0 ? 1 : (double) hits / requests;
+	}
+
+	/**
+	 * @return the average time in nanoseconds needed to parse a CRS string
+	 */
+	double getAverageLoadTime() {
+		final long loads = getLoadCount();
+		return loads == 0 ? 0 : (double) m_loadTime.sum() / loads;
+	}
+
+	/**
+	 * @return the number of entries that were removed to stay within the maximum
+	 *         size
+	 */
+	long getEvictionCount() {
+		return m_evictions.sum();
+	}
+
+	/**
+	 * @return the number of cached entries
+	 */
+	int size() {
+		synchronized (m_entries) {
+			return m_entries.size();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("CRS cache: %d entries, hit rate %.3f, %d loads (avg. %.1f ms), %d evictions", size(),
+				getHitRate(), getLoadCount(), getAverageLoadTime() / 1e6, getEvictionCount());
+	}
+
+	/**
+	 * Cache entry that parses the CRS string only once. Concurrent requests for
+	 * the same entry wait until the first request has parsed it.
+	 */
+	private final class Entry {
+
+		private volatile CoordinateReferenceSystem m_crs;
+
+		CoordinateReferenceSystem get(final String crs) throws Exception {
+			CoordinateReferenceSystem result = m_crs;
+			if (result != null) {
+				m_hits.increment();
+				return result;
+			}
+			synchronized (this) {
+				result = m_crs;
+				if (result != null) {
+					m_hits.increment();
+					return result;
+				}
+				final long start = System.nanoTime();
+				try {
+					result = m_loader.load(crs);
+				} catch (final Exception e) {
+					// do not cache invalid CRS strings
+					synchronized (m_entries) {
+						m_entries.remove(crs, this);
+					}
+					throw e;
+				} finally {
+					m_loads.increment();
+					m_loadTime.add(System.nanoTime() - start);
+				}
+				m_crs = result;
+				if (LOGGER.isDebugEnabled()) {
+					LOGGER.debug("Parsed coordinate reference system " + crs + ". " + CRSCache.this);
+				}
+				return result;
+			}
+		}
+	}
+}
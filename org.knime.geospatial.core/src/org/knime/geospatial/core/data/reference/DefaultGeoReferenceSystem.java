@@ -46,14 +46,18 @@
 package org.knime.geospatial.core.data.reference;
 
 import java.io.IOException;
-import java.lang.ref.SoftReference;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.knime.core.node.NodeLogger;
+import org.knime.geospatial.core.data.GeoEnvelope;
 import org.locationtech.proj4j.CRSFactory;
 import org.locationtech.proj4j.CoordinateReferenceSystem;
+import org.locationtech.proj4j.datum.Ellipsoid;
+import org.locationtech.proj4j.proj.LongLatProjection;
+import org.locationtech.proj4j.proj.Projection;
 
 import mil.nga.crs.CRS;
 import mil.nga.crs.util.proj.ProjParser;
@@ -70,15 +74,44 @@ class DefaultGeoReferenceSystem implements GeoReferenceSystem {
 
     private static final CRSFactory CRS_FACTORY = new CRSFactory();
 
-    private static final Map<String, SoftReference<CoordinateReferenceSystem>> CACHE = new LinkedHashMap<>();
+    /** Maximum number of parsed reference systems that are kept e.g. for custom WKT-CRS strings. */
+    private static final int MAX_CACHE_SIZE = 256;
+
+    private static final CRSCache CACHE = new CRSCache(MAX_CACHE_SIZE, DefaultGeoReferenceSystem::createCRS);
+
+    /** Maximum number of interned instances to not keep an unlimited number of custom WKT-CRS strings. */
+    private static final int MAX_INSTANCES = 1024;
+
+    /**
+     * The interned instances in access order. The least recently used instance is evicted once the maximum number is
+     * exceeded. Guarded by itself since reads change the order.
+     */
+    private static final Map<String, DefaultGeoReferenceSystem> INSTANCES =
+        new LinkedHashMap<String, DefaultGeoReferenceSystem>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, DefaultGeoReferenceSystem> eldest) {
+                return size() > MAX_INSTANCES;
+            }
+        };
+
+    /** The default instance which is never evicted to always share {@link GeoReferenceSystem#DEFAULT}. */
+    private static final DefaultGeoReferenceSystem DEFAULT_INSTANCE = new DefaultGeoReferenceSystem("EPSG:4326");
+
+    /** The extent of geographic reference systems that covers longitude and latitude values in any axis order. */
+    private static final GeoEnvelope GEOGRAPHIC_EXTENT = new GeoEnvelope(-180, -180, 180, 180);
 
     private final String m_refSystem;
 
-    //We need the ReferenceSystem only internally for equals comparison which is why we use a soft reference
-    private SoftReference<CoordinateReferenceSystem> m_referenceSystem =
-        new SoftReference<CoordinateReferenceSystem>(null);
+    //Resolved once so that equals and hashCode do not need to compare the parsed reference systems, null if not yet
+    //resolved
+    private volatile String m_identity;
 
-    DefaultGeoReferenceSystem(final String refSystem) throws IOException {
+    //Resolved together with the identity, null if not yet resolved
+    private volatile GeoEnvelope m_extent;
+
+    private DefaultGeoReferenceSystem(final String refSystem) {
         if (StringUtils.isEmpty(refSystem)) {
             throw new IllegalArgumentException("refSystem must not be empty");
         }
@@ -86,6 +119,28 @@ class DefaultGeoReferenceSystem implements GeoReferenceSystem {
         m_refSystem = normalize(refSystem);
     }
 
+    /**
+     * Returns the shared instance for the given CRS string. All CRS strings that are equal after normalization share
+     * the same instance as long as it is one of the {@link #MAX_INSTANCES} most recently used ones which is why most
+     * comparisons are identity checks.
+     *
+     * @param refSystem the CRS string
+     * @return the shared {@link DefaultGeoReferenceSystem}
+     */
+    static DefaultGeoReferenceSystem intern(final String refSystem) {
+        if (StringUtils.isEmpty(refSystem)) {
+            throw new IllegalArgumentException("refSystem must not be empty");
+        }
+        final String normalized = normalize(refSystem);
+        if (DEFAULT_INSTANCE.m_refSystem.equals(normalized)) {
+            return DEFAULT_INSTANCE;
+        }
+        synchronized (INSTANCES) {
+            // creating an instance is cheap since the CRS string is parsed lazily
+            return INSTANCES.computeIfAbsent(normalized, DefaultGeoReferenceSystem::new);
+        }
+    }
+
     private static String normalize(final String refSystem) {
         if (refSystem == null) {
             return refSystem;
@@ -99,14 +154,12 @@ public String getCRS() {
     }
 
     private static CoordinateReferenceSystem parseCRS(final String crsString) throws Exception {
-        final String input = normalize(crsString);
+        return CACHE.get(normalize(crsString));
+    }
+
+    private static CoordinateReferenceSystem createCRS(final String input) throws Exception {
         CoordinateReferenceSystem rs;
-        final SoftReference<CoordinateReferenceSystem> ref = CACHE.get(input);
-        rs = ref != null ? ref.get() : null;
-        if (rs != null) {
-            return rs;
-        }
-        final String errorMsg = "Exception parsing coordinate reference system: " + crsString;
+        final String errorMsg = "Exception parsing coordinate reference system: " + input;
         try {
             rs = CRS_FACTORY.createFromName(input);
         } catch (Exception e) {
@@ -126,10 +179,16 @@ private static CoordinateReferenceSystem parseCRS(final String crsString) throws
         if (rs == null) {
             throw new IllegalArgumentException(errorMsg);
         }
-        CACHE.put(input, new SoftReference<>(rs));
         return rs;
     }
 
+    /**
+     * @return the statistics of the cache of parsed reference systems
+     */
+    static CRSCache getCache() {
+        return CACHE;
+    }
+
     /**
      * Validates the input parameter if it is a valid Well Known Text representation or projection name of the
      * coordinate reference system (WKT-CRS).
@@ -147,23 +206,97 @@ public static boolean valid(final String crsString) {
         return true;
     }
 
-    private CoordinateReferenceSystem getReferenceSystem() {
-        CoordinateReferenceSystem rs = m_referenceSystem.get();
-        if (rs == null) {
-            try {
-                rs = parseCRS(m_refSystem);
-                m_referenceSystem = new SoftReference<>(rs);
-            } catch (Exception e) {
-                throw new IllegalArgumentException(
-                    "Exception parsing coordinate reference system for details see log file", e);
-            }
+    /**
+     * Returns the identity of the reference system. Different CRS strings that describe the same reference system
+     * e.g. 'EPSG:4326' and its WKT-CRS have the same identity. The identity is interned which is why it can be
+     * compared by reference and is released by the JVM once no instance uses it anymore.
+     *
+     * @return the interned canonical fingerprint of the parsed reference system
+     */
+    String getIdentity() {
+        String identity = m_identity;
+        if (identity == null) {
+            resolve();
+            identity = m_identity;
         }
-        return rs;
+        return identity;
+    }
+
+    /**
+     * {@inheritDoc} Geographic reference systems use longitude and latitude degrees for both axes to not depend on
+     * the axis order. Projected reference systems use half the circumference of the equator around the false origin
+     * in the units of the projection.
+     */
+    @Override
+    public GeoEnvelope getExtent() {
+        GeoEnvelope extent = m_extent;
+        if (extent == null) {
+            resolve();
+            extent = m_extent;
+        }
+        return extent;
+    }
+
+    /** Parses the reference system once to resolve its identity and its extent. */
+    private void resolve() {
+        final CoordinateReferenceSystem rs;
+        try {
+            rs = parseCRS(m_refSystem);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(
+                "Exception parsing coordinate reference system for details see log file", e);
+        }
+        m_extent = extent(rs.getProjection());
+        m_identity = fingerprint(rs).intern();
+    }
+
+    private static GeoEnvelope extent(final Projection projection) {
+        if (projection instanceof LongLatProjection) {
+            return GEOGRAPHIC_EXTENT;
+        }
+        final double fromMetres = projection.getFromMetres();
+        final double halfCircumference = Math.PI * projection.getEllipsoid().getEquatorRadius();
+        final double falseEasting = projection.getFalseEasting();
+        final double falseNorthing = projection.getFalseNorthing();
+        return new GeoEnvelope((falseEasting - halfCircumference) * fromMetres,
+            (falseNorthing - halfCircumference) * fromMetres, (falseEasting + halfCircumference) * fromMetres,
+            (falseNorthing + halfCircumference) * fromMetres);
+    }
+
+    /**
+     * The fingerprint is created from the parsed projection, ellipsoid and datum values and thus does not depend on
+     * the notation or the parameter order of the input. The values are written with full double precision since the
+     * PROJ.4 description of the projection omits parameters such as lat_1, lat_2, lat_ts and alpha and rounds angles.
+     */
+    private static String fingerprint(final CoordinateReferenceSystem rs) {
+        final Projection projection = rs.getProjection();
+        final Ellipsoid ellipsoid = projection.getEllipsoid();
+        final StringBuilder buf = new StringBuilder(projection.getClass().getName());
+        append(buf, "lat_0", projection.getProjectionLatitude());
+        append(buf, "lon_0", projection.getProjectionLongitude());
+        append(buf, "lat_1", projection.getProjectionLatitude1());
+        append(buf, "lat_2", projection.getProjectionLatitude2());
+        append(buf, "lat_ts", projection.getTrueScaleLatitude());
+        append(buf, "alpha", projection.getAlpha());
+        append(buf, "lonc", projection.getLonC());
+        append(buf, "k_0", projection.getScaleFactor());
+        append(buf, "x_0", projection.getFalseEasting());
+        append(buf, "y_0", projection.getFalseNorthing());
+        append(buf, "from_meter", projection.getFromMetres());
+        append(buf, "a", ellipsoid.getEquatorRadius());
+        append(buf, "es", ellipsoid.getEccentricitySquared());
+        return buf.append(" +towgs84=").append(Arrays.toString(rs.getDatum().getTransformToWGS84())).toString();
+    }
+
+    private static void append(final StringBuilder buf, final String name, final double value) {
+        //adding 0.0 maps -0.0 to 0.0
+        buf.append(" +").append(name).append('=').append(Double.toString(value + 0.0));
     }
 
     @Override
     public int hashCode() {
-        return getReferenceSystem().hashCode();
+        // the hash of the identity string is stable across sessions which is why it is used by persisted sort keys
+        return getIdentity().hashCode();
     }
 
     @Override
@@ -177,7 +310,7 @@ public boolean equals(final Object obj) {
         if (getClass() != obj.getClass()) {
             return false;
         }
-        return getReferenceSystem().equals(((DefaultGeoReferenceSystem)obj).getReferenceSystem());
+        return getIdentity() == ((DefaultGeoReferenceSystem)obj).getIdentity();
     }
 
     @Override
@@ -191,11 +324,7 @@ public String toString() {
      * @return the default {@link GeoReferenceSystem}
      */
     static GeoReferenceSystem getDefault() {
-        try {
-            return new DefaultGeoReferenceSystem("EPSG:4326");
-        } catch (IOException ex) {
-            throw new IllegalStateException("Can not create default geo reference system" + ex);
-        }
+        return DEFAULT_INSTANCE;
     }
 
 }
@@ -45,6 +45,9 @@
 
 package org.knime.geospatial.core.data.reference;
 
+import org.knime.geospatial.core.data.GeoEnvelope;
+import org.knime.geospatial.core.data.util.HilbertCurve;
+
 /**
  * Representation of a coordinate reference system (CRS).
  *
@@ -68,4 +71,12 @@ public interface GeoReferenceSystem {
 	 */
 	String getCRS();
 
+	/**
+	 * Returns the extent that contains the valid coordinates of this reference system e.g. to map the coordinates
+	 * linearly onto the grid of a {@link HilbertCurve}. Coordinates outside of the extent are possible.
+	 *
+	 * @return the {@link GeoEnvelope} of the valid coordinates
+	 */
+	GeoEnvelope getExtent();
+
 }
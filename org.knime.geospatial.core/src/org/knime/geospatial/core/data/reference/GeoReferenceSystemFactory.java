@@ -63,7 +63,8 @@ private GeoReferenceSystemFactory() {
 
 	/**
 	 * Returns the {@link GeoReferenceSystem} implementation for the given well known name representation
-	 * of the coordinate reference system.
+	 * of the coordinate reference system. Equal CRS strings (after converting them to upper case and trimming
+	 * them) return the same shared instance.
 	 *
 	 * @param crsString well known name representation of the coordinate reference e.g. 'authority:code'
 	 *
@@ -72,7 +73,7 @@ private GeoReferenceSystemFactory() {
 	 */
 	public static GeoReferenceSystem create(final String crsString) throws IOException {
 	    try {
-	        return new DefaultGeoReferenceSystem(crsString);
+	        return DefaultGeoReferenceSystem.intern(crsString);
 	    } catch (Exception ex) {
 	        throw new IOException("Invalid coordinate reference system:\n" + crsString);
         }
@@ -89,4 +90,24 @@ public static boolean valid(final String crsString) {
         return DefaultGeoReferenceSystem.valid(crsString);
     }
 
+    /**
+     * Compares two reference systems consistent with their equals method e.g. different CRS strings of the same
+     * reference system are equal. The order is stable across sessions but has no further meaning.
+     *
+     * @param refSystem1 the first {@link GeoReferenceSystem}
+     * @param refSystem2 the second {@link GeoReferenceSystem}
+     * @return a negative integer, zero, or a positive integer as the first reference system is less than, equal to, or
+     *         greater than the second one
+     */
+    public static int compare(final GeoReferenceSystem refSystem1, final GeoReferenceSystem refSystem2) {
+        if (refSystem1.equals(refSystem2)) {
+            return 0;
+        }
+        if (refSystem1 instanceof DefaultGeoReferenceSystem && refSystem2 instanceof DefaultGeoReferenceSystem) {
+            return ((DefaultGeoReferenceSystem)refSystem1).getIdentity()
+                .compareTo(((DefaultGeoReferenceSystem)refSystem2).getIdentity());
+        }
+        final int compareClass = refSystem1.getClass().getName().compareTo(refSystem2.getClass().getName());
+        return compareClass != 0 ? compareClass : refSystem1.getCRS().compareTo(refSystem2.getCRS());
+    }
 }
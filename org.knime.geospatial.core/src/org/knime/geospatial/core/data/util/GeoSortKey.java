@@ -0,0 +1,127 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.util;
+
+import java.util.Arrays;
+
+import org.knime.geospatial.core.data.GeoValue;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
+
+/**
+ * Creates and compares the fixed width binary sort keys of geometric objects
+ * (see {@link GeoValue#getSortKey()}). A key consists of the big endian hash of
+ * the reference system (see {@link GeoReferenceSystem#hashCode()}), the Hilbert
+ * index of the envelope center (see {@link HilbertCurve}) and the hash of the
+ * canonical WKB as tie break. Comparing two keys byte by byte thus groups the
+ * objects by their reference system and clusters them spatially without
+ * parsing the geometric objects.
+ * <p>
+ * The hash of the reference system is derived from its canonical identity
+ * which is why different CRS strings of the same reference system get the same
+ * hash. The hashes are stable across sessions which is why the keys can be
+ * persisted. Different geometric objects can have equal keys e.g. due to hash
+ * collisions which is why equal keys require a comparison of the objects.
+ * </p>
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+public final class GeoSortKey {
+
+	/** Number of bytes of a sort key. */
+	public static final int LENGTH = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+	private GeoSortKey() {
+		// utility class
+	}
+
+	/**
+	 * @param refSystemHash the hash of the reference system see
+	 *                      {@link GeoReferenceSystem#hashCode()}
+	 * @param hilbertIndex  the Hilbert index of the envelope center
+	 * @param wkbHash       the hash of the canonical WKB see
+	 *                      {@link #hash(byte[], int)}
+	 * @return the sort key with {@link #LENGTH} bytes
+	 */
+	public static byte[] create(final int refSystemHash, final long hilbertIndex, final int wkbHash) {
+		final byte[] key = new byte[LENGTH];
+		writeInt(key, 0, refSystemHash);
+		writeInt(key, Integer.BYTES, (int) (hilbertIndex >>> Integer.SIZE));
+		writeInt(key, 2 * Integer.BYTES, (int) hilbertIndex);
+		writeInt(key, Integer.BYTES + Long.BYTES, wkbHash);
+		return key;
+	}
+
+	/**
+	 * Computes the same hash as {@link Arrays#hashCode(byte[])} for the first
+	 * bytes of the given array e.g. of a reused buffer.
+	 *
+	 * @param wkb    the array that starts with the WKB
+	 * @param length the length of the WKB
+	 * @return the hash of the WKB
+	 */
+	public static int hash(final byte[] wkb, final int length) {
+		int hash = 1;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + wkb[i];
+		}
+		return hash;
+	}
+
+	/**
+	 * @param key1 the first sort key
+	 * @param key2 the second sort key
+	 * @return the unsigned lexicographic comparison of both keys
+	 */
+	public static int compare(final byte[] key1, final byte[] key2) {
+		return Arrays.compareUnsigned(key1, key2);
+	}
+
+	private static void writeInt(final byte[] key, final int offset, final int value) {
+		key[offset] = (byte) (value >>> 24);
+		key[offset + 1] = (byte) (value >>> 16);
+		key[offset + 2] = (byte) (value >>> 8);
+		key[offset + 3] = (byte) value;
+	}
+}
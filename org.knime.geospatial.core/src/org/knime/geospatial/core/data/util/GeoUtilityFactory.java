@@ -45,7 +45,9 @@
 
 package org.knime.geospatial.core.data.util;
 
+import java.io.IOException;
 import java.net.URL;
+import java.util.Arrays;
 
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
@@ -61,6 +63,9 @@
 import org.knime.core.data.ExtensibleUtilityFactory;
 import org.knime.core.node.NodeLogger;
 import org.knime.geospatial.core.data.GeoValue;
+import org.knime.geospatial.core.data.cell.GeoCellFactory;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystemFactory;
 
 /** Implementations of the meta information of this value class. */
 public class GeoUtilityFactory extends ExtensibleUtilityFactory {
@@ -131,20 +136,50 @@ public String getGroupName() {
 		return "Geospatial";
 	}
 
+	/**
+	 * Sorts geometric objects in the order of their binary sort keys (see
+	 * {@link GeoValue#getSortKey()}) which groups them by their reference system
+	 * and clusters them spatially by the Hilbert index of their envelope center.
+	 * The parts of the keys are computed when they are needed. The identity of the
+	 * reference systems and the canonical WKB are only compared if both keys are
+	 * equal to get a total order that is consistent with equals.
+	 */
 	private static class GeoValueComparator extends DataValueComparator {
 		@Override
 		protected int compareDataValues(final DataValue v1, final DataValue v2) {
 			final GeoValue g1 = (GeoValue) v1;
 			final GeoValue g2 = (GeoValue) v2;
-			// Sort by reference system first
-			final int compareTo = g1.getReferenceSystem().getCRS().compareTo(g2.getReferenceSystem().getCRS());
-			if (compareTo != 0) {
-				return compareTo;
+			// the parts of the sort keys are compared one by one to only compute the Hilbert index and the WKB hash if
+			// the previous parts are equal
+			final GeoReferenceSystem r1 = g1.getReferenceSystem();
+			final GeoReferenceSystem r2 = g2.getReferenceSystem();
+			final int compareRefSystemHashes = Integer.compareUnsigned(r1.hashCode(), r2.hashCode());
+			if (compareRefSystemHashes != 0) {
+				return compareRefSystemHashes;
+			}
+			final int compareHilbertIndices = Long.compareUnsigned(g1.getHilbertIndex(), g2.getHilbertIndex());
+			if (compareHilbertIndices != 0) {
+				return compareHilbertIndices;
+			}
+			try {
+				final byte[] wkb1 = GeoCellFactory.createCanonicalWKB(g1);
+				final byte[] wkb2 = GeoCellFactory.createCanonicalWKB(g2);
+				final int compareWKBHashes = Integer.compareUnsigned(Arrays.hashCode(wkb1), Arrays.hashCode(wkb2));
+				if (compareWKBHashes != 0) {
+					return compareWKBHashes;
+				}
+				// equal keys of different geometric objects e.g. due to hash collisions. The ties are broken
+				// consistent with equals which is why different CRS strings of the same reference system are equal
+				final int compareRefSystems = GeoReferenceSystemFactory.compare(r1, r2);
+				if (compareRefSystems != 0) {
+					return compareRefSystems;
+				}
+				return Arrays.compareUnsigned(wkb1, wkb2);
+			} catch (final IOException e) {
+				throw new IllegalArgumentException("Exception reading WKB: " + e.getMessage(), e);
 			}
-			return g1.getWKT().compareTo(g2.getWKT());
-
 		}
 
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.geospatial.core.data.util;
+
+import org.knime.geospatial.core.data.GeoEnvelope;
+import org.knime.geospatial.core.data.reference.GeoReferenceSystem;
+
+/**
+ * Computes the index of a location on a Hilbert curve. Locations that are close
+ * to each other mostly have close indices which is why sorting by the index
+ * clusters geometric objects spatially.
+ * <p>
+ * The coordinates are mapped linearly onto a grid over the extent of the
+ * reference system (see {@link GeoReferenceSystem#getExtent()}). Coordinates
+ * outside of the extent are mapped to the closest grid cell. The grid has
+ * 2<sup>{@link #ORDER}</sup> cells per dimension e.g. about 2 centimeters for
+ * longitude values and the equator of a projected reference system.
+ * </p>
+ *
+ * @author Tobias Koetter, KNIME GmbH, Konstanz, Germany
+ */
+public final class HilbertCurve {
+
+	/** Number of bits per dimension. */
+	public static final int ORDER = 31;
+
+	/** The largest grid coordinate. */
+	private static final int MAX_GRID = (1 << ORDER) - 1;
+
+	private HilbertCurve() {
+		// utility class
+	}
+
+	/**
+	 * @param envelope the {@link GeoEnvelope} of the geometric object
+	 * @param extent   the extent of the reference system see
+	 *                 {@link GeoReferenceSystem#getExtent()}
+	 * @return the non negative index of the center of the envelope or 0 for empty
+	 *         envelopes
+	 */
+	public static long index(final GeoEnvelope envelope, final GeoEnvelope extent) {
+		if (envelope.isEmpty()) {
+			return 0;
+		}
+		return index((envelope.getMinX() + envelope.getMaxX()) / 2, (envelope.getMinY() + envelope.getMaxY()) / 2,
+				extent);
+	}
+
+	/**
+	 * @param x      the x coordinate
+	 * @param y      the y coordinate
+	 * @param extent the extent of the reference system see
+	 *               {@link GeoReferenceSystem#getExtent()}
+	 * @return the non negative index of the location with {@link #ORDER} bits per
+	 *         dimension
+	 */
+	public static long index(final double x, final double y, final GeoEnvelope extent) {
+		return index(toGrid(x, extent.getMinX(), extent.getMaxX()), toGrid(y, extent.getMinY(), extent.getMaxY()));
+	}
+
+	/**
+	 * Maps the coordinate linearly to the {@link #ORDER} bit grid over the given
+	 * range and clamps coordinates outside of the range.
+	 */
+	private static int toGrid(final double value, final double min, final double max) {
+		final double normalized = (value - min) / (max - min);
+		// also maps NaN to the first grid cell
+		if (!(normalized > 0)) {
+			return 0;
+		}
+		return (int) Math.min(normalized * (MAX_GRID + 1.0), MAX_GRID);
+	}
+
+	private static long index(final int gridX, final int gridY) {
+		int x = gridX;
+		int y = gridY;
+		long index = 0;
+		for (int s = 1 << (ORDER - 1); s > 0; s >>>= 1) {
+			final int rx = (x & s) != 0 ? 1 : 0;
+			final int ry = (y & s) != 0 ? 1 : 0;
+			index += (long) s * s * ((3 * rx) ^ ry);
+			// rotate the quadrant so that the curve is continuous
+			if (ry == 0) {
+				if (rx == 1) {
+					x = ~x;
+					y = ~y;
+				}
+				final int tmp = x;
+				x = y;
+				y = tmp;
+			}
+		}
+		return index;
+	}
+}
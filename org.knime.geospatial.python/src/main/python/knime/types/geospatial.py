@@ -89,6 +89,237 @@ class GeoValueFactory(kt.PythonValueFactory):
         return {"0": value.wkb, "1": value.crs}
 
 
+class GeoEnvelopeValueFactory(GeoValueFactory):
+    """Stores the envelope (minX, minY, maxX, maxY) next to the WKB and the crs"""
+
+    def encode(self, value):
+        if value is None:
+            return None
+        # scan the coordinates of the WKB instead of creating a shapely geometry per value.
+        # Empty geometries have NaN bounds which is also used on the Java side
+        min_x, min_y, max_x, max_y = _wkb_bounds(value.wkb)
+        return {
+            "0": value.wkb,
+            "1": value.crs,
+            "2": min_x,
+            "3": min_y,
+            "4": max_x,
+            "5": max_y,
+        }
+
+
+class GeoPointValueFactory(kt.PythonValueFactory):
+    """
+    Converts between GeoValues and points that are stored as primitive x and y coordinates.
+    Points with z or m values additionally store their WKB.
+    """
+
+    def __init__(self):
+        kt.PythonValueFactory.__init__(self, GeoValue)
+
+    def decode(self, storage):
+        if storage is None:
+            return None
+        if storage["3"] is not None:
+            return GeoValue(storage["3"], storage["2"])
+        import struct
+
+        # same encoding as on the Java side: big endian and ISO type code
+        wkb = struct.pack(">BI2d", 0, 1, storage["0"], storage["1"])
+        return GeoValue(wkb, storage["2"])
+
+    def encode(self, value):
+        if value is None:
+            return None
+        import struct
+
+        byte_order = "<" if value.wkb[0] == 1 else ">"
+        (wkb_type_code,) = struct.unpack_from(f"{byte_order}I", value.wkb, 1)
+        type_code = _iso_type_code(wkb_type_code)
+        if type_code % 1000 != 1:
+            raise ValueError(f"Geometry type with WKB type code {wkb_type_code} is not a point")
+        offset = 9 if wkb_type_code & 0x20000000 else 5
+        x, y = struct.unpack_from(f"{byte_order}2d", value.wkb, offset)
+        return {
+            "0": x,
+            "1": y,
+            "2": value.crs,
+            # points with z or m values are stored as WKB
+            "3": value.wkb if type_code != 1 else None,
+        }
+
+
+class GeoArrowValueFactory(kt.PythonValueFactory):
+    """
+    Converts between GeoValues and the GeoArrow native layout that stores the coordinates
+    as nested lists of {x, y} structs. Geometries without native layout of the depth of the
+    column e.g. curves or geometries with z or m values are stored as WKB instead.
+    """
+
+    # number of nested coordinate lists of the column
+    depth = 1
+
+    def __init__(self):
+        kt.PythonValueFactory.__init__(self, GeoValue)
+
+    def decode(self, storage):
+        if storage is None:
+            return None
+        if storage["2"] is not None:
+            return GeoValue(storage["2"], storage["3"])
+        import struct
+
+        # same encoding as on the Java side: big endian and ISO type code
+        parts = [struct.pack(">BI", 0, storage["0"])]
+        _write_native(parts, storage["0"], storage["1"])
+        return GeoValue(b"".join(parts), storage["3"])
+
+    def encode(self, value):
+        if value is None:
+            return None
+        import struct
+
+        byte_order = "<" if value.wkb[0] == 1 else ">"
+        (wkb_type_code,) = struct.unpack_from(f"{byte_order}I", value.wkb, 1)
+        type_code = _iso_type_code(wkb_type_code)
+        if _native_depth(type_code) != self.depth:
+            # z or m values and types of other depths are stored as WKB
+            return {"0": type_code, "1": None, "2": value.wkb, "3": value.crs}
+        offset = 9 if wkb_type_code & 0x20000000 else 5
+        coordinates, _ = _read_native(value.wkb, offset, byte_order, type_code)
+        return {"0": type_code, "1": coordinates, "2": None, "3": value.crs}
+
+
+class GeoArrowLineValueFactory(GeoArrowValueFactory):
+    depth = 1
+
+
+class GeoArrowPolygonValueFactory(GeoArrowValueFactory):
+    depth = 2
+
+
+class GeoArrowMultiPointValueFactory(GeoArrowValueFactory):
+    depth = 1
+
+
+class GeoArrowMultiLineValueFactory(GeoArrowValueFactory):
+    depth = 2
+
+
+class GeoArrowMultiPolygonValueFactory(GeoArrowValueFactory):
+    depth = 3
+
+
+# nesting depth of the two dimensional ISO types with native layout
+_NATIVE_DEPTHS = {2: 1, 8: 1, 4: 1, 3: 2, 17: 2, 5: 2, 6: 3}
+
+
+def _iso_type_code(type_code):
+    # support the ISO type codes as well as the extended WKB flags
+    base = type_code & 0xFFFF
+    has_z = bool(type_code & 0x80000000) or base // 1000 in (1, 3)
+    has_m = bool(type_code & 0x40000000) or base // 1000 in (2, 3)
+    return base % 1000 + 1000 * (has_z + 2 * has_m)
+
+
+def _native_depth(type_code):
+    return _NATIVE_DEPTHS.get(type_code, -1)
+
+
+def _element_type(type_code):
+    # the elements of multi geometries have the type code of the multi type minus 3
+    if type_code in (4, 5, 6):
+        return type_code - 3
+    # the elements of line strings are points and the elements of polygons line strings
+    return {2: 1, 8: 1, 3: 2, 17: 2}[type_code]
+
+
+def _read_native(wkb, offset, byte_order, type_code):
+    import struct
+
+    if type_code == 1:
+        x, y = struct.unpack_from(f"{byte_order}2d", wkb, offset)
+        return {"0": x, "1": y}, offset + 16
+    (size,) = struct.unpack_from(f"{byte_order}I", wkb, offset)
+    offset += 4
+    element_type = _element_type(type_code)
+    elements = []
+    for _ in range(size):
+        if type_code in (4, 5, 6):
+            # each element of a multi geometry has its own header
+            byte_order = "<" if wkb[offset] == 1 else ">"
+            offset += 5
+        element, offset = _read_native(wkb, offset, byte_order, element_type)
+        elements.append(element)
+    return elements, offset
+
+
+def _write_native(parts, type_code, coordinates):
+    import struct
+
+    if type_code == 1:
+        parts.append(struct.pack(">2d", coordinates["0"], coordinates["1"]))
+        return
+    parts.append(struct.pack(">I", len(coordinates)))
+    element_type = _element_type(type_code)
+    for element in coordinates:
+        if type_code in (4, 5, 6):
+            parts.append(struct.pack(">BI", 0, element_type))
+        _write_native(parts, element_type, element)
+
+
+def _wkb_bounds(wkb):
+    inf = float("inf")
+    bounds = [inf, inf, -inf, -inf]
+    _scan_bounds(wkb, 0, bounds)
+    if bounds[0] == inf:
+        # geometries without coordinates are empty
+        return (float("nan"),) * 4
+    return tuple(bounds)
+
+
+def _scan_bounds(wkb, offset, bounds):
+    import struct
+
+    byte_order = "<" if wkb[offset] == 1 else ">"
+    (wkb_type_code,) = struct.unpack_from(f"{byte_order}I", wkb, offset + 1)
+    offset += 9 if wkb_type_code & 0x20000000 else 5
+    type_code = _iso_type_code(wkb_type_code)
+    dims = 2 + (type_code // 1000 in (1, 3)) + (type_code // 1000 in (2, 3))
+    base = type_code % 1000
+    if base == 1:
+        return _scan_coordinates(wkb, offset, byte_order, dims, 1, bounds)
+    (size,) = struct.unpack_from(f"{byte_order}I", wkb, offset)
+    offset += 4
+    if base in (2, 8):
+        # line strings and circular strings
+        return _scan_coordinates(wkb, offset, byte_order, dims, size, bounds)
+    if base in (3, 17):
+        # the rings of polygons and triangles
+        for _ in range(size):
+            (points,) = struct.unpack_from(f"{byte_order}I", wkb, offset)
+            offset = _scan_coordinates(wkb, offset + 4, byte_order, dims, points, bounds)
+        return offset
+    # all other types consist of geometries with their own header
+    for _ in range(size):
+        offset = _scan_bounds(wkb, offset, bounds)
+    return offset
+
+
+def _scan_coordinates(wkb, offset, byte_order, dims, size, bounds):
+    import struct
+
+    values = struct.unpack_from(f"{byte_order}{dims * size}d", wkb, offset)
+    # NaN coordinates of empty points are ignored since all comparisons with NaN are false
+    xs = [x for x in values[0::dims] if x == x]
+    ys = [y for y in values[1::dims] if y == y]
+    bounds[0] = min(bounds[0], min(xs, default=bounds[0]))
+    bounds[1] = min(bounds[1], min(ys, default=bounds[1]))
+    bounds[2] = max(bounds[2], max(xs, default=bounds[2]))
+    bounds[3] = max(bounds[3], max(ys, default=bounds[3]))
+    return offset + 8 * dims * size
+
+
 def _knime_value_factory(name):
     return '{"value_factory_class":"' + name + '"}'
 
@@ -98,6 +329,9 @@ _geo_logical_types = [
     _knime_value_factory(
         "org.knime.geospatial.core.data.cell.GeoPointCell$ValueFactory"
     ),
+    _knime_value_factory(
+        "org.knime.geospatial.core.data.cell.GeoPointCell$PrimitiveValueFactory"
+    ),
     _knime_value_factory(
         "org.knime.geospatial.core.data.cell.GeoLineCell$ValueFactory"
     ),
@@ -116,20 +350,97 @@ _geo_logical_types = [
     _knime_value_factory(
         "org.knime.geospatial.core.data.cell.GeoCollectionCell$ValueFactory"
     ),
+    _knime_value_factory(
+        "org.knime.geospatial.core.data.cell.GeoCell$EnvelopeValueFactory"
+    ),
+    _knime_value_factory(
+        "org.knime.geospatial.core.data.cell.GeoLineCell$EnvelopeValueFactory"
+    ),
+    _knime_value_factory(
+        "org.knime.geospatial.core.data.cell.GeoPolygonCell$EnvelopeValueFactory"
+    ),
+    _knime_value_factory(
+        "org.knime.geospatial.core.data.cell.GeoMultiPointCell$EnvelopeValueFactory"
+    ),
+    _knime_value_factory(
+        "org.knime.geospatial.core.data.cell.GeoMultiLineCell$EnvelopeValueFactory"
+    ),
+    _knime_value_factory(
+        "org.knime.geospatial.core.data.cell.GeoMultiPolygonCell$EnvelopeValueFactory"
+    ),
+    _knime_value_factory(
+        "org.knime.geospatial.core.data.cell.GeoCollectionCell$EnvelopeValueFactory"
+    ),
+    _knime_value_factory(
+        "org.knime.geospatial.core.data.cell.GeoLineCell$NativeValueFactory"
+    ),
+    _knime_value_factory(
+        "org.knime.geospatial.core.data.cell.GeoPolygonCell$NativeValueFactory"
+    ),
+    _knime_value_factory(
+        "org.knime.geospatial.core.data.cell.GeoMultiPointCell$NativeValueFactory"
+    ),
+    _knime_value_factory(
+        "org.knime.geospatial.core.data.cell.GeoMultiLineCell$NativeValueFactory"
+    ),
+    _knime_value_factory(
+        "org.knime.geospatial.core.data.cell.GeoMultiPolygonCell$NativeValueFactory"
+    ),
 ]
 
 _shapely_type_to_value_factory = {
-    "Point": "org.knime.geospatial.core.data.cell.GeoPointCell$ValueFactory",
-    "LineString": "org.knime.geospatial.core.data.cell.GeoLineCell$ValueFactory",
-    "Polygon": "org.knime.geospatial.core.data.cell.GeoPolygonCell$ValueFactory",
-    "MultiPoint": "org.knime.geospatial.core.data.cell.GeoMultiPointCell$ValueFactory",
-    "MultiLineString": "org.knime.geospatial.core.data.cell.GeoMultiLineCell$ValueFactory",
-    "MultiPolygon": "org.knime.geospatial.core.data.cell.GeoMultiPolygonCell$ValueFactory",
-    "GeometryCollection": "org.knime.geospatial.core.data.cell.GeoCollectionCell$ValueFactory"
+    "Point": "org.knime.geospatial.core.data.cell.GeoPointCell$PrimitiveValueFactory",
+    "LineString": "org.knime.geospatial.core.data.cell.GeoLineCell$EnvelopeValueFactory",
+    "Polygon": "org.knime.geospatial.core.data.cell.GeoPolygonCell$EnvelopeValueFactory",
+    "MultiPoint": "org.knime.geospatial.core.data.cell.GeoMultiPointCell$EnvelopeValueFactory",
+    "MultiLineString": "org.knime.geospatial.core.data.cell.GeoMultiLineCell$EnvelopeValueFactory",
+    "MultiPolygon": "org.knime.geospatial.core.data.cell.GeoMultiPolygonCell$EnvelopeValueFactory",
+    "GeometryCollection": "org.knime.geospatial.core.data.cell.GeoCollectionCell$EnvelopeValueFactory"
     # There are more types in shapely like LinearRing, etc.
     # If we want to support these, we need corresponding ValueFactories on the Java side.
 }
 
+# value factories of the GeoArrow native layout which is written instead of the envelope
+# layout if the environment variable KNIME_GEOSPATIAL_GEOARROW is set to true
+_shapely_type_to_native_value_factory = {
+    "LineString": "org.knime.geospatial.core.data.cell.GeoLineCell$NativeValueFactory",
+    "Polygon": "org.knime.geospatial.core.data.cell.GeoPolygonCell$NativeValueFactory",
+    "MultiPoint": "org.knime.geospatial.core.data.cell.GeoMultiPointCell$NativeValueFactory",
+    "MultiLineString": "org.knime.geospatial.core.data.cell.GeoMultiLineCell$NativeValueFactory",
+    "MultiPolygon": "org.knime.geospatial.core.data.cell.GeoMultiPolygonCell$NativeValueFactory",
+}
+
+_native_value_factory_to_converter = {
+    "org.knime.geospatial.core.data.cell.GeoLineCell$NativeValueFactory": GeoArrowLineValueFactory,
+    "org.knime.geospatial.core.data.cell.GeoPolygonCell$NativeValueFactory": GeoArrowPolygonValueFactory,
+    "org.knime.geospatial.core.data.cell.GeoMultiPointCell$NativeValueFactory": GeoArrowMultiPointValueFactory,
+    "org.knime.geospatial.core.data.cell.GeoMultiLineCell$NativeValueFactory": GeoArrowMultiLineValueFactory,
+    "org.knime.geospatial.core.data.cell.GeoMultiPolygonCell$NativeValueFactory": GeoArrowMultiPolygonValueFactory,
+}
+
+
+def _write_native_layout():
+    import os
+
+    return os.environ.get("KNIME_GEOSPATIAL_GEOARROW", "").lower() in ("1", "true")
+
+
+def _native_storage_type(depth):
+    import pyarrow as pa
+
+    # same layout as GeoArrowValueFactory on the Java side
+    coordinates = pa.struct([("0", pa.float64()), ("1", pa.float64())])
+    for _ in range(depth):
+        coordinates = pa.list_(coordinates)
+    return pa.struct(
+        [
+            ("0", pa.int32()),
+            ("1", coordinates),
+            ("2", pa.large_binary()),
+            ("3", pa.string()),
+        ]
+    )
+
 
 class FromGeoPandasColumnConverter(kt.FromPandasColumnConverter):
     # these warnings will be suppressed by the warning manager
@@ -169,7 +480,7 @@ class FromGeoPandasColumnConverter(kt.FromPandasColumnConverter):
 
         # extract the most specific type from the data and decide which value factory to use
         most_specific_value_factory = (
-            "org.knime.geospatial.core.data.cell.GeoCell$ValueFactory"
+            "org.knime.geospatial.core.data.cell.GeoCell$EnvelopeValueFactory"
         )
         geom_types = set(geo_column.geom_type)
         # geom_type is None for missing values so we remove it from the set
@@ -178,11 +489,34 @@ class FromGeoPandasColumnConverter(kt.FromPandasColumnConverter):
             geom_type = geom_types[0]
 
             most_specific_value_factory = _shapely_type_to_value_factory[geom_type]
-
+            if _write_native_layout():
+                most_specific_value_factory = _shapely_type_to_native_value_factory.get(
+                    geom_type, most_specific_value_factory
+                )
+
+        if most_specific_value_factory in _native_value_factory_to_converter:
+            converter = _native_value_factory_to_converter[most_specific_value_factory]()
+            storage_type = _native_storage_type(converter.depth)
+        elif most_specific_value_factory.endswith("$PrimitiveValueFactory"):
+            storage_type = pa.struct(
+                [
+                    ("0", pa.float64()),
+                    ("1", pa.float64()),
+                    ("2", pa.string()),
+                    ("3", pa.large_binary()),
+                ]
+            )
+            converter = GeoPointValueFactory()
+        else:
+            storage_type = pa.struct(
+                [("0", pa.large_binary()), ("1", pa.string())]
+                + [(str(i), pa.float64()) for i in range(2, 6)]
+            )
+            converter = GeoEnvelopeValueFactory()
         dtype = kap.PandasLogicalTypeExtensionType(
-            storage_type=pa.struct([("0", pa.large_binary()), ("1", pa.string())]),
+            storage_type=storage_type,
             logical_type=_knime_value_factory(most_specific_value_factory),
-            converter=GeoValueFactory(),
+            converter=converter,
         )
 
         return pd.Series(